@@ -17,7 +17,15 @@ android {
     }
 
     buildTypes {
+        debug {
+            // Bộ thông số SQLite: DEFAULT, BALANCED hoặc THROUGHPUT (xem SqliteTuningProfile).
+            // Debug dùng cache/mmap lớn để chạy nhanh với dữ liệu thử lớn; so sánh các profile bằng
+            // SqliteTuningBenchmarkTest trước khi đổi profile của release
+            buildConfigField("String", "SQLITE_PROFILE", "\"THROUGHPUT\"")
+        }
         release {
+            // Giữ bộ nhớ vừa phải trên máy thật: cache 8 MiB, mmap 32 MiB
+            buildConfigField("String", "SQLITE_PROFILE", "\"BALANCED\"")
             isMinifyEnabled = false
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
@@ -25,6 +33,9 @@ android {
             )
         }
     }
+    buildFeatures {
+        buildConfig = true
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -43,6 +54,7 @@ dependencies {
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     testImplementation(libs.junit)
+    testImplementation(libs.arch.core.testing)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 
@@ -0,0 +1,141 @@
+package com.khanghv.campusexpense.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.khanghv.campusexpense.data.database.AppDatabase;
+import com.khanghv.campusexpense.data.database.ExpenseDao;
+import com.khanghv.campusexpense.data.model.Category;
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+import com.khanghv.campusexpense.data.model.MonthlyCategoryTotal;
+import com.khanghv.campusexpense.util.CancellationToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 10k lần ExpenseDao.insert qua DatabaseDispatcher.write từ nhiều luồng gửi cùng lúc, xen 1k lần đọc trang qua
+ * DatabaseDispatcher.read, trên AppDatabase in-memory dùng đúng hai executor của dispatcher (như getInstance).
+ * Kiểm tra số luồng thực của hai pool, việc ghi không bao giờ chạy song song, và tổng thời gian trong ngân sách.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseDispatcherStressTest {
+
+    private static final String TAG = "DispatcherStress";
+    private static final int USER_ID = 1;
+    private static final int INSERTS = 10_000;
+    private static final int READ_EVERY = 10;
+    private static final int SUBMITTERS = 4;
+    // Một insert in-memory (kèm cập nhật index và FTS) mất cỡ vài chục micro giây trên máy thật; 1,5 ms/insert
+    // trung bình chỉ vượt khi có việc xếp hàng sai (ghi bị chặn sau đọc, luồng bị tạo lại liên tục...)
+    private static final long BUDGET_MS = INSERTS * 3L / 2;
+    private static final long START = 1704067200000L;
+
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryExecutor(DatabaseDispatcher.readExecutor())
+                .setTransactionExecutor(DatabaseDispatcher.writeExecutor())
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void tenThousandInsertsStayOnBoundedPoolsWithinBudget() throws Exception {
+        int categoryId = (int) database.categoryDao().insert(new Category(USER_ID, "Food"));
+        ExpenseDao dao = database.expenseDao();
+
+        Set<String> writeThreads = ConcurrentHashMap.newKeySet();
+        Set<String> readThreads = ConcurrentHashMap.newKeySet();
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger maxWriting = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch inserted = new CountDownLatch(INSERTS);
+        CountDownLatch read = new CountDownLatch(INSERTS / READ_EVERY);
+
+        long started = System.nanoTime();
+        Thread[] submitters = new Thread[SUBMITTERS];
+        for (int s = 0; s < SUBMITTERS; s++) {
+            int first = s;
+            submitters[s] = new Thread(() -> {
+                for (int i = first; i < INSERTS; i += SUBMITTERS) {
+                    Expense expense = new Expense(USER_ID, categoryId, Money.ofMinorUnits(1000 + i),
+                            "item " + i, START + i * 60_000L);
+                    DatabaseDispatcher.write(() -> {
+                        writeThreads.add(Thread.currentThread().getName());
+                        maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+                        try {
+                            dao.insert(expense);
+                        } catch (RuntimeException error) {
+                            failures.incrementAndGet();
+                        } finally {
+                            writing.decrementAndGet();
+                            inserted.countDown();
+                        }
+                    });
+                    if (i % READ_EVERY == 0) {
+                        long after = START + i * 60_000L;
+                        DatabaseDispatcher.read(new CancellationToken(), () -> {
+                            readThreads.add(Thread.currentThread().getName());
+                            return dao.getPageByDateRange(USER_ID, START, Long.MAX_VALUE,
+                                    after, Long.MAX_VALUE, Integer.MAX_VALUE, 50);
+                        }, page -> read.countDown(), error -> {
+                            failures.incrementAndGet();
+                            read.countDown();
+                        });
+                    }
+                }
+            });
+            submitters[s].start();
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        assertTrue(inserted.await(BUDGET_MS, TimeUnit.MILLISECONDS));
+        assertTrue(read.await(BUDGET_MS, TimeUnit.MILLISECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        Log.i(TAG, INSERTS + " inserts + " + INSERTS / READ_EVERY + " reads in " + elapsedMs + " ms");
+
+        assertEquals(0, failures.get());
+        assertTrue("took " + elapsedMs + " ms", elapsedMs <= BUDGET_MS);
+        assertEquals(INSERTS, database.monthlyTotalsDao().recomputeAll().stream()
+                .mapToInt(MonthlyCategoryTotal::getCount).sum());
+
+        // Ghi luôn tuần tự trên đúng một luồng db-write
+        assertEquals(1, maxWriting.get());
+        assertEquals(1, writeThreads.size());
+        assertTrue(writeThreads.toString(), writeThreads.iterator().next().startsWith("db-write-"));
+        assertEquals(1, DatabaseDispatcher.writePool().getMaximumPoolSize());
+        assertEquals(1, DatabaseDispatcher.writePool().getLargestPoolSize());
+
+        // Đọc không vượt READ_THREADS luồng db-read dù 1k việc xếp hàng cùng lúc
+        assertTrue(readThreads.toString(), readThreads.size() <= DatabaseDispatcher.READ_THREADS);
+        for (String name : readThreads) {
+            assertTrue(name, name.startsWith("db-read-"));
+        }
+        assertEquals(DatabaseDispatcher.READ_THREADS, DatabaseDispatcher.readPool().getMaximumPoolSize());
+        assertTrue(DatabaseDispatcher.readPool().getLargestPoolSize() <= DatabaseDispatcher.READ_THREADS);
+    }
+}
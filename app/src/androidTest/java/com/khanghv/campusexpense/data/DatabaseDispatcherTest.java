@@ -0,0 +1,75 @@
+package com.khanghv.campusexpense.data;
+
+import android.os.Looper;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.khanghv.campusexpense.util.CancellationToken;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class DatabaseDispatcherTest {
+
+    private static final int READ_THREADS = DatabaseDispatcher.READ_THREADS;
+    private static final int JOBS = 300;
+
+    @Test
+    public void failingReadIsRoutedToOnErrorOnMainThread() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<RuntimeException> received = new AtomicReference<>();
+        AtomicBoolean onMain = new AtomicBoolean();
+        AtomicBoolean resultDelivered = new AtomicBoolean();
+        RuntimeException failure = new IllegalStateException("boom");
+
+        DatabaseDispatcher.<Integer>read(new CancellationToken(), () -> {
+            throw failure;
+        }, result -> resultDelivered.set(true), error -> {
+            received.set(error);
+            onMain.set(Looper.myLooper() == Looper.getMainLooper());
+            done.countDown();
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertSame(failure, received.get());
+        assertTrue(onMain.get());
+        assertFalse(resultDelivered.get());
+    }
+
+    @Test
+    public void failingJobsDoNotReplaceReadThreads() throws Exception {
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(JOBS);
+        for (int i = 0; i < JOBS; i++) {
+            DatabaseDispatcher.readExecutor().execute(() -> {
+                threadNames.add(Thread.currentThread().getName());
+                done.countDown();
+                throw new IllegalStateException("boom");
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        CountDownLatch after = new CountDownLatch(1);
+        DatabaseDispatcher.readExecutor().execute(() -> {
+            threadNames.add(Thread.currentThread().getName());
+            after.countDown();
+        });
+        assertTrue(after.await(10, TimeUnit.SECONDS));
+
+        // Luồng chết vì exception sẽ được thay bằng luồng mới mang tên khác
+        assertTrue(threadNames.toString(), threadNames.size() <= READ_THREADS);
+        for (String name : threadNames) {
+            assertTrue(name, name.startsWith("db-read-"));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.khanghv.campusexpense.data;
+
+import android.content.Context;
+
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.khanghv.campusexpense.data.database.AppDatabase;
+import com.khanghv.campusexpense.data.model.Category;
+import com.khanghv.campusexpense.data.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class TableLiveDataTest {
+
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryExecutor(DatabaseDispatcher.readExecutor())
+                .setTransactionExecutor(DatabaseDispatcher.writeExecutor())
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void reloadsWhenObservedTableChangesAndStopsAfterRemoval() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        TableLiveData<List<Category>> liveData = new TableLiveData<>(database, new String[]{"categories"}, () -> {
+            loads.incrementAndGet();
+            return database.categoryDao().getAllByUser(1);
+        });
+        LinkedBlockingQueue<List<Category>> values = new LinkedBlockingQueue<>();
+        Observer<List<Category>> observer = values::add;
+        runOnMain(() -> liveData.observeForever(observer));
+
+        assertEquals(0, values.poll(10, TimeUnit.SECONDS).size());
+
+        database.categoryDao().insert(new Category(1, "Food"));
+        List<Category> afterInsert = values.poll(10, TimeUnit.SECONDS);
+        assertNotNull(afterInsert);
+        assertEquals("Food", afterInsert.get(0).getName());
+
+        // Bảng không theo dõi thay đổi thì không tải lại
+        int before = loads.get();
+        database.userDao().insertUser(new User("a", "b"));
+        assertNull(values.poll(1, TimeUnit.SECONDS));
+        assertEquals(before, loads.get());
+
+        runOnMain(() -> liveData.removeObserver(observer));
+        database.categoryDao().insert(new Category(1, "Rent"));
+        Thread.sleep(1000);
+        assertEquals(before, loads.get());
+        assertTrue(values.isEmpty());
+    }
+
+    private static void runOnMain(Runnable action) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(action);
+    }
+}
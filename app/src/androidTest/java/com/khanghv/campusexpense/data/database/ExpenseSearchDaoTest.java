@@ -0,0 +1,68 @@
+package com.khanghv.campusexpense.data.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.khanghv.campusexpense.data.model.Category;
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class ExpenseSearchDaoTest {
+
+    private static final int USER_ID = 1;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long BASE = 1704067200000L;
+
+    private AppDatabase database;
+    private int categoryId;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        categoryId = (int) database.categoryDao().insert(new Category(USER_ID, "Food"));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    // Xếp theo số lần khớp, không theo độ dài chuỗi offsets(): từ khớp ở vị trí xa (nhiều chữ số hơn)
+    // không được đứng trước dòng mới hơn có cùng số lần khớp
+    @Test
+    public void ranksByMatchCountThenNewestFirst() {
+        int farOnce = insert("a long description that finally mentions coffee", BASE);
+        int nearOnce = insert("coffee", BASE + DAY);
+        int twice = insert("coffee and more coffee", BASE - DAY);
+        int thrice = insert("coffee coffee coffee", BASE - 2 * DAY);
+        insert("tea", BASE + 2 * DAY);
+
+        List<Integer> ids = new ArrayList<>();
+        for (Expense expense : database.expenseSearchDao().search(FtsQuery.toMatchQuery("coffee"), USER_ID, -1,
+                Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)) {
+            ids.add(expense.getId());
+        }
+        assertEquals(Arrays.asList(thrice, twice, nearOnce, farOnce), ids);
+    }
+
+    private int insert(String description, long date) {
+        return (int) database.expenseDao().insert(
+                new Expense(USER_ID, categoryId, Money.ofMinorUnits(1000), description, date));
+    }
+}
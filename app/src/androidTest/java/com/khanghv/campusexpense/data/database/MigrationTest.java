@@ -0,0 +1,277 @@
+package com.khanghv.campusexpense.data.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+import com.khanghv.campusexpense.util.CalendarBuckets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Dựng database version 5 (schema của bản gốc: tiền REAL, chưa có index theo ngày, bảng tổng hợp, khóa ngoại,
+ * epochDay/yearMonth) rồi mở bằng Room với AppDatabase.migrations(): chạy 5→6→…→12 và Room kiểm tra
+ * schema cuối khớp với các entity.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String NAME = "migration-test";
+    private static final String RANDOM_NAME = "migration-test-random";
+    private static final int RANDOM_USERS = 5;
+    private static final int RANDOM_EXPENSES = 5_000;
+
+    // 23:30 ngày cuối tháng 1 và 00:15 ngày đầu tháng 2 theo giờ địa phương: hai tháng khác nhau
+    private static final long JAN_31 = millis(LocalDateTime.of(2024, 1, 31, 23, 30));
+    private static final long FEB_1 = millis(LocalDateTime.of(2024, 2, 1, 0, 15));
+
+    private Context context;
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(NAME);
+        SQLiteDatabase v5 = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(NAME), null);
+        createVersion5(v5);
+        insertVersion5Rows(v5);
+        v5.setVersion(5);
+        v5.close();
+
+        database = migrate(NAME);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(NAME);
+        context.deleteDatabase(RANDOM_NAME);
+    }
+
+    private AppDatabase migrate(String name) {
+        return Room.databaseBuilder(context, AppDatabase.class, name)
+                .addMigrations(AppDatabase.migrations())
+                .build();
+    }
+
+    /**
+     * Hàng nghìn số tiền REAL ngẫu nhiên (cả giá trị lẻ bất kỳ và đúng nửa đơn vị), ghi lại SUM(amount) theo
+     * user/tháng trước khi migrate. Sau 5→12 mỗi dòng được ROUND riêng (7→8) nên tổng mới phải bằng đúng
+     * tổng các số đã làm tròn kiểu SQLite (nửa đơn vị ra xa số 0), lệch tổng cũ không quá 0,5 × số dòng,
+     * và bảng tổng hợp phải khớp.
+     */
+    @Test
+    public void randomAmountsKeepMonthlySumsWithinRounding() {
+        context.deleteDatabase(RANDOM_NAME);
+        SQLiteDatabase v5 = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(RANDOM_NAME), null);
+        createVersion5(v5);
+        insertRandomVersion5Rows(v5, new Random(5));
+        v5.setVersion(5);
+
+        Map<String, double[]> before = new HashMap<>();
+        try (Cursor cursor = v5.rawQuery("SELECT userId, date, amount FROM expenses", null)) {
+            while (cursor.moveToNext()) {
+                double amount = cursor.getDouble(2);
+                double[] sums = before.computeIfAbsent(
+                        monthKey(cursor.getInt(0), CalendarBuckets.yearMonthOf(cursor.getLong(1))),
+                        key -> new double[3]);
+                sums[0] += amount;
+                // Cách ROUND(x) của SQLite với x >= 0: (sqlite_int64)(x + 0.5)
+                sums[1] += (long) (amount + 0.5);
+                sums[2]++;
+            }
+        }
+        v5.close();
+        assertTrue(before.size() > RANDOM_USERS);
+
+        AppDatabase migrated = migrate(RANDOM_NAME);
+        try {
+            SupportSQLiteDatabase db = migrated.getOpenHelper().getWritableDatabase();
+            Map<String, long[]> after = new HashMap<>();
+            try (Cursor cursor = db.query("SELECT userId, yearMonth, SUM(amount), COUNT(*), "
+                    + "SUM(typeof(amount) <> 'integer') FROM expenses GROUP BY userId, yearMonth")) {
+                while (cursor.moveToNext()) {
+                    assertEquals(0, cursor.getLong(4));
+                    after.put(monthKey(cursor.getInt(0), cursor.getInt(1)),
+                            new long[]{cursor.getLong(2), cursor.getLong(3)});
+                }
+            }
+            assertEquals(before.keySet(), after.keySet());
+            for (Map.Entry<String, double[]> entry : before.entrySet()) {
+                double[] old = entry.getValue();
+                long[] now = after.get(entry.getKey());
+                assertEquals(entry.getKey(), (long) old[2], now[1]);
+                assertEquals(entry.getKey(), (long) old[1], now[0]);
+                assertTrue(entry.getKey() + ": " + old[0] + " -> " + now[0],
+                        Math.abs(now[0] - old[0]) <= 0.5 * old[2] + 1e-3);
+                String[] parts = entry.getKey().split("/");
+                assertEquals(entry.getKey(), now[0], longOf(db, "SELECT SUM(total) FROM monthly_category_totals "
+                        + "WHERE userId = " + parts[0] + " AND yearMonth = " + parts[1]));
+            }
+        } finally {
+            migrated.close();
+        }
+    }
+
+    // 7→8: REAL làm tròn về INTEGER (ROUND của SQLite: nửa đơn vị làm tròn ra xa số 0)
+    @Test
+    public void amountsAreRoundedToIntegers() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        assertEquals(10, longOf(db, "SELECT amount FROM expenses WHERE id = 1"));
+        assertEquals(11, longOf(db, "SELECT amount FROM expenses WHERE id = 2"));
+        assertEquals(3, longOf(db, "SELECT amount FROM expenses WHERE id = 3"));
+        assertEquals(0, longOf(db, "SELECT COUNT(*) FROM expenses WHERE typeof(amount) <> 'integer'"));
+        assertEquals(1001, longOf(db, "SELECT amount FROM budgets WHERE id = 1"));
+        assertEquals(0, longOf(db, "SELECT COUNT(*) FROM budgets WHERE typeof(amount) <> 'integer'"));
+    }
+
+    // 9→10: expense mồ côi sang "Uncategorized" của chính user đó, budget mồ côi bị xóa
+    @Test
+    public void orphansAreRepaired() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        long uncategorized = longOf(db, "SELECT id FROM categories WHERE userId = 1 AND name = 'Uncategorized'");
+        assertEquals(1, longOf(db, "SELECT COUNT(*) FROM categories WHERE name = 'Uncategorized'"));
+        assertEquals(uncategorized, longOf(db, "SELECT categoryId FROM expenses WHERE id = 4"));
+        assertEquals(uncategorized, longOf(db, "SELECT categoryId FROM expenses WHERE id = 5"));
+        assertEquals(2, longOf(db, "SELECT categoryId FROM expenses WHERE id = 6"));
+        assertEquals(6, longOf(db, "SELECT COUNT(*) FROM expenses"));
+
+        assertEquals(1, longOf(db, "SELECT COUNT(*) FROM budgets"));
+        assertEquals(0, longOf(db, "SELECT COUNT(*) FROM expenses e LEFT JOIN categories c "
+                + "ON c.id = e.categoryId AND c.userId = e.userId WHERE c.id IS NULL"));
+        try (Cursor cursor = db.query("PRAGMA foreign_key_check")) {
+            assertEquals(0, cursor.getCount());
+        }
+    }
+
+    // 10→11: epochDay/yearMonth tính bằng SQL phải khớp CalendarBuckets
+    @Test
+    public void dayAndMonthColumnsAreBackfilled() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        try (Cursor cursor = db.query("SELECT date, epochDay, yearMonth FROM expenses")) {
+            assertEquals(6, cursor.getCount());
+            while (cursor.moveToNext()) {
+                long date = cursor.getLong(0);
+                assertEquals(CalendarBuckets.epochDayOf(date), cursor.getInt(1));
+                assertEquals(CalendarBuckets.yearMonthOf(date), cursor.getInt(2));
+            }
+        }
+        assertEquals(202401, longOf(db, "SELECT yearMonth FROM expenses WHERE id = 1"));
+        assertEquals(202402, longOf(db, "SELECT yearMonth FROM expenses WHERE id = 3"));
+    }
+
+    @Test
+    public void monthlyTotalsAreRebuiltAndKeptByTriggers() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        assertEquals(21, longOf(db, "SELECT total FROM monthly_category_totals "
+                + "WHERE userId = 1 AND yearMonth = 202401 AND categoryId = 1"));
+        assertEquals(3, longOf(db, "SELECT total FROM monthly_category_totals "
+                + "WHERE userId = 1 AND yearMonth = 202402 AND categoryId = 1"));
+
+        database.expenseDao().insert(new Expense(1, 1, Money.ofMinorUnits(5), "tea", FEB_1));
+        assertEquals(8, longOf(db, "SELECT total FROM monthly_category_totals "
+                + "WHERE userId = 1 AND yearMonth = 202402 AND categoryId = 1"));
+        assertEquals(database.monthlyTotalsDao().recomputeAll().size(),
+                database.monthlyTotalsDao().getAll().size());
+    }
+
+    @Test
+    public void fullTextIndexCoversMigratedRows() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        assertEquals(1, longOf(db, "SELECT rowid FROM expenses_fts WHERE expenses_fts MATCH 'coffee'"));
+    }
+
+    // Schema Room sinh cho các entity của version 5 (bản gốc)
+    private static void createVersion5(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE `user_table` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `username` TEXT, `password` TEXT, `createdAt` INTEGER NOT NULL)");
+        db.execSQL("CREATE UNIQUE INDEX `index_user_table_username` ON `user_table` (`username`)");
+        db.execSQL("CREATE TABLE `categories` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT, `userId` INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE `budgets` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `userId` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, `amount` REAL NOT NULL, `period` TEXT, `createdAt` INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE `expenses` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `userId` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, `amount` REAL NOT NULL, `description` TEXT, `date` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL)");
+    }
+
+    // Mỗi user có 3 category riêng; ngày rải trong 2 năm, một phần rơi sát nửa đêm đầu/cuối tháng
+    private static void insertRandomVersion5Rows(SQLiteDatabase db, Random random) {
+        db.beginTransaction();
+        try {
+            for (int user = 1; user <= RANDOM_USERS; user++) {
+                db.execSQL("INSERT INTO user_table(id, username, password, createdAt) VALUES (?, ?, 'x', 0)",
+                        new Object[]{user, "user" + user});
+                for (int c = 0; c < 3; c++) {
+                    db.execSQL("INSERT INTO categories(id, name, userId) VALUES (?, ?, ?)",
+                            new Object[]{user * 10 + c, "c" + c, user});
+                }
+            }
+            SQLiteStatement insert = db.compileStatement("INSERT INTO expenses(userId, categoryId, amount, "
+                    + "description, date, createdAt) VALUES (?, ?, ?, NULL, ?, ?)");
+            LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+            for (int i = 0; i < RANDOM_EXPENSES; i++) {
+                int user = 1 + random.nextInt(RANDOM_USERS);
+                // Một nửa là số lẻ bất kỳ, một nửa là bội của 0,25 (có đúng nửa đơn vị)
+                double amount = i % 2 == 0 ? random.nextDouble() * 2_000_000 : random.nextInt(8_000_000) / 4.0;
+                LocalDateTime time = i % 10 == 0
+                        ? start.plusMonths(random.nextInt(24)).minusMinutes(random.nextInt(120) - 60)
+                        : start.plusMinutes(random.nextInt(2 * 365 * 24 * 60));
+                insert.bindLong(1, user);
+                insert.bindLong(2, user * 10 + random.nextInt(3));
+                insert.bindDouble(3, amount);
+                insert.bindLong(4, millis(time));
+                insert.bindLong(5, i);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static String monthKey(int userId, int yearMonth) {
+        return userId + "/" + yearMonth;
+    }
+
+    private static void insertVersion5Rows(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO user_table(id, username, password, createdAt) VALUES (1, 'a', 'x', 0), (2, 'b', 'x', 0)");
+        db.execSQL("INSERT INTO categories(id, name, userId) VALUES (1, 'Food', 1), (2, 'Travel', 2)");
+        db.execSQL("INSERT INTO expenses(id, userId, categoryId, amount, description, date, createdAt) VALUES "
+                + "(1, 1, 1, 10.4, 'coffee', " + JAN_31 + ", 1), "
+                + "(2, 1, 1, 10.5, NULL, " + JAN_31 + ", 2), "
+                + "(3, 1, 1, 2.5, NULL, " + FEB_1 + ", 3), "
+                // category không tồn tại
+                + "(4, 1, 99, 100.0, NULL, " + FEB_1 + ", 4), "
+                // category của user khác
+                + "(5, 1, 2, 7.0, NULL, " + FEB_1 + ", 5), "
+                + "(6, 2, 2, 5.0, NULL, " + FEB_1 + ", 6)");
+        db.execSQL("INSERT INTO budgets(id, userId, categoryId, amount, period, createdAt) VALUES "
+                + "(1, 1, 1, 1000.6, 'monthly', 1), (2, 1, 99, 50.0, 'monthly', 2), (3, 1, 2, 50.0, 'monthly', 3)");
+    }
+
+    private static long longOf(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(sql, cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
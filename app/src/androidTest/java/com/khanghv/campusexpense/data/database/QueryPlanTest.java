@@ -0,0 +1,232 @@
+package com.khanghv.campusexpense.data.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Gọi mọi hàm của mọi DAO trong AppDatabase (tìm bằng reflection, nên DAO/hàm mới tự được kiểm tra),
+ * bắt câu SQL mà Room thực sự chạy qua QueryCallback rồi chạy EXPLAIN QUERY PLAN với đúng tham số đó:
+ * mọi lần đọc bảng phải đi qua index (hoặc khóa chính) và không cần USE TEMP B-TREE.
+ * Không chép SQL từ DAO nên sửa câu truy vấn thì test kiểm tra ngay câu mới.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+
+    // Xếp theo điểm khớp của FTS thì không index nào cho sẵn thứ tự; chỉ sắp các dòng đã khớp MATCH
+    private static final Set<String> SORT_ALLOWED = new HashSet<>(Arrays.asList("ExpenseSearchDao.search"));
+    // Hàm ghi nhận entity làm tham số, không có truy vấn đọc để kiểm tra
+    private static final List<String> WRITE_PREFIXES = Arrays.asList("insert", "update", "delete", "rebuild");
+
+    private static final int USER_ID = 1;
+    private static final long DATE = 1704067200000L;
+    private static final String TEXT = "coffee*";
+
+    // Câu SQL và tham số Room đã chạy, cùng thứ tự
+    private final List<String> capturedSql = new CopyOnWriteArrayList<>();
+    private final List<Object[]> capturedArgs = new CopyOnWriteArrayList<>();
+    private volatile boolean capturing;
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryCallback((sql, args) -> {
+                    if (capturing) {
+                        capturedSql.add(sql);
+                        capturedArgs.add(args.toArray());
+                    }
+                }, Runnable::run)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void everyDaoQueryUsesIndexWithoutTempBTree() throws Exception {
+        List<String> failures = new ArrayList<>();
+        Set<String> sortsSeen = new HashSet<>();
+        int checkedMethods = 0;
+        for (Method daoGetter : AppDatabase.class.getDeclaredMethods()) {
+            if (!Modifier.isAbstract(daoGetter.getModifiers()) || !daoGetter.getReturnType().isInterface()) {
+                continue;
+            }
+            Object dao = daoGetter.invoke(database);
+            for (Method method : daoGetter.getReturnType().getDeclaredMethods()) {
+                // Lambda của các hàm default được biên dịch thành hàm static/synthetic trong interface
+                if (method.isSynthetic() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = daoGetter.getReturnType().getSimpleName() + "." + method.getName();
+                Object[] args = argumentsFor(method);
+                if (args == null) {
+                    // Tham số là entity/list: chỉ có ở hàm ghi
+                    assertTrue(name, isWrite(method));
+                    continue;
+                }
+                List<String> statements = new ArrayList<>();
+                List<Object[]> statementArgs = new ArrayList<>();
+                run(dao, method, args, statements, statementArgs);
+
+                boolean anySelect = false;
+                for (int i = 0; i < statements.size(); i++) {
+                    String sql = statements.get(i);
+                    if (!sql.trim().toUpperCase().startsWith("SELECT")) {
+                        continue;
+                    }
+                    anySelect = true;
+                    List<String> plan = plan(sql, statementArgs.get(i));
+                    boolean sorts = false;
+                    for (String detail : plan) {
+                        if (detail.contains("USE TEMP B-TREE")) {
+                            sorts = true;
+                        } else if (!indexed(detail)) {
+                            failures.add(name + ": " + detail + "\n  " + sql);
+                        }
+                    }
+                    if (sorts && !SORT_ALLOWED.contains(name)) {
+                        failures.add(name + ": USE TEMP B-TREE " + plan + "\n  " + sql);
+                    } else if (sorts) {
+                        sortsSeen.add(name);
+                    }
+                }
+                if (!isWrite(method)) {
+                    assertTrue(name + " did not run a SELECT", anySelect);
+                    checkedMethods++;
+                }
+            }
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        // Ngoại lệ không còn cần thì xóa khỏi danh sách để test chặt lại
+        assertEquals(SORT_ALLOWED, sortsSeen);
+        assertTrue(checkedMethods > 0);
+    }
+
+    private static boolean isWrite(Method method) {
+        for (String prefix : WRITE_PREFIXES) {
+            if (method.getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // SQLite cũ ghi "SCAN TABLE x"/"SEARCH TABLE x", bản mới bỏ chữ TABLE
+    private static boolean indexed(String detail) {
+        if (!detail.startsWith("SCAN") && !detail.startsWith("SEARCH")) {
+            return true;
+        }
+        if (detail.contains("CONSTANT ROW")) {
+            return true;
+        }
+        // Bảng FTS: INDEX 0 là quét toàn bộ, số khác là tra theo MATCH hoặc docid
+        if (detail.contains("VIRTUAL TABLE INDEX")) {
+            return !detail.contains("VIRTUAL TABLE INDEX 0:");
+        }
+        return detail.contains("USING INDEX") || detail.contains("USING COVERING INDEX")
+                || detail.contains("PRIMARY KEY");
+    }
+
+    // null nếu hàm có tham số không phải kiểu đơn giản
+    private static Object[] argumentsFor(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == int.class) {
+                args[i] = USER_ID;
+            } else if (types[i] == long.class) {
+                args[i] = DATE;
+            } else if (types[i] == String.class) {
+                args[i] = TEXT;
+            } else {
+                return null;
+            }
+        }
+        return args;
+    }
+
+    // Gọi hàm DAO và thu các câu SQL nó chạy; LiveData chỉ truy vấn khi có observer nên phải observe tạm
+    @SuppressWarnings("unchecked")
+    private void run(Object dao, Method method, Object[] args, List<String> statements,
+                     List<Object[]> statementArgs) throws Exception {
+        capturedSql.clear();
+        capturedArgs.clear();
+        capturing = true;
+        try {
+            if (LiveData.class.isAssignableFrom(method.getReturnType())) {
+                LiveData<Object>[] liveData = new LiveData[1];
+                CountDownLatch loaded = new CountDownLatch(1);
+                Observer<Object> observer = value -> loaded.countDown();
+                runOnMain(() -> {
+                    try {
+                        liveData[0] = (LiveData<Object>) method.invoke(dao, args);
+                    } catch (ReflectiveOperationException e) {
+                        throw new AssertionError(e);
+                    }
+                    liveData[0].observeForever(observer);
+                });
+                assertTrue(method.getName(), loaded.await(10, TimeUnit.SECONDS));
+                runOnMain(() -> liveData[0].removeObserver(observer));
+            } else {
+                Object result = method.invoke(dao, args);
+                if (result instanceof Cursor) {
+                    ((Cursor) result).close();
+                }
+            }
+        } finally {
+            capturing = false;
+        }
+        for (int i = 0; i < capturedSql.size(); i++) {
+            // Bảng theo dõi thay đổi của InvalidationTracker không thuộc DAO
+            if (!capturedSql.get(i).contains("room_table_modification_log")) {
+                statements.add(capturedSql.get(i));
+                statementArgs.add(capturedArgs.get(i));
+            }
+        }
+    }
+
+    // Cột detail của mỗi dòng EXPLAIN QUERY PLAN
+    private List<String> plan(String sql, Object[] args) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detail));
+            }
+        }
+        return details;
+    }
+
+    private static void runOnMain(Runnable action) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(action);
+    }
+}
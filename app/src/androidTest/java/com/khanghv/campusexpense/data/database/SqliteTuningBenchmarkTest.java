@@ -0,0 +1,161 @@
+package com.khanghv.campusexpense.data.database;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.khanghv.campusexpense.data.model.Category;
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * So sánh các SqliteTuningProfile trên database file thật, mở giống AppDatabase.getInstance (kèm trigger tổng hợp):
+ * nạp 100k expense theo lô, ghi lẻ từng dòng (mỗi dòng một transaction, nơi synchronous/WAL khác nhau rõ nhất)
+ * và đọc trang keyset ở vị trí ngẫu nhiên. Mỗi phần báo ops/giây và p50/p99 qua logcat (tag SqliteTuningBenchmark)
+ * và status của instrumentation. Chạy: ./gradlew connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.khanghv.campusexpense.data.database.SqliteTuningBenchmarkTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class SqliteTuningBenchmarkTest {
+
+    private static final String TAG = "SqliteTuningBenchmark";
+    private static final String NAME = "tuning-benchmark";
+    private static final int USER_ID = 1;
+    private static final int ROWS = 100_000;
+    private static final int BATCH = 500;
+    private static final int SINGLE_INSERTS = 2_000;
+    private static final int QUERIES = 5_000;
+    private static final long START = 1672531200000L;
+    private static final long SPAN = 3L * 365 * 24 * 60 * 60 * 1000;
+
+    private Context context;
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+        context.deleteDatabase(NAME);
+    }
+
+    @Test
+    public void compareProfiles() {
+        for (SqliteTuningProfile profile : SqliteTuningProfile.values()) {
+            run(profile);
+        }
+    }
+
+    private void run(SqliteTuningProfile profile) {
+        context.deleteDatabase(NAME);
+        open(profile);
+        Random random = new Random(42);
+        int categoryId = (int) database.categoryDao().insert(new Category(USER_ID, "Food"));
+        ExpenseDao dao = database.expenseDao();
+
+        long[] batchNanos = new long[ROWS / BATCH];
+        long started = System.nanoTime();
+        for (int b = 0; b < batchNanos.length; b++) {
+            List<Expense> batch = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                batch.add(newExpense(random, categoryId));
+            }
+            long t = System.nanoTime();
+            dao.insertAll(batch);
+            batchNanos[b] = System.nanoTime() - t;
+        }
+        report(profile, "bulk insert (per " + BATCH + "-row batch)", ROWS, System.nanoTime() - started, batchNanos);
+
+        long[] singleNanos = new long[SINGLE_INSERTS];
+        started = System.nanoTime();
+        for (int i = 0; i < SINGLE_INSERTS; i++) {
+            Expense expense = newExpense(random, categoryId);
+            long t = System.nanoTime();
+            dao.insert(expense);
+            singleNanos[i] = System.nanoTime() - t;
+        }
+        report(profile, "single insert", SINGLE_INSERTS, System.nanoTime() - started, singleNanos);
+
+        long[] queryNanos = new long[QUERIES];
+        int rowsRead = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            long after = START + (long) (random.nextDouble() * SPAN);
+            long t = System.nanoTime();
+            rowsRead += dao.getPageByDateRange(USER_ID, START, START + SPAN, after, Long.MAX_VALUE,
+                    Integer.MAX_VALUE, 50).size();
+            queryNanos[i] = System.nanoTime() - t;
+        }
+        report(profile, "page query", QUERIES, System.nanoTime() - started, queryNanos);
+
+        assertEquals(ROWS + SINGLE_INSERTS, database.monthlyTotalsDao().getCountAllTime(USER_ID));
+        assertTrue(rowsRead > 0);
+        database.close();
+        database = null;
+    }
+
+    private static Expense newExpense(Random random, int categoryId) {
+        return new Expense(USER_ID, categoryId, Money.ofMinorUnits(1_000 + random.nextInt(1_000_000)),
+                random.nextInt(4) == 0 ? "coffee " + random.nextInt(100) : null,
+                START + (long) (random.nextDouble() * SPAN));
+    }
+
+    // Giống AppDatabase.getInstance: journal mode qua builder, trigger khi tạo, PRAGMA trong onOpen
+    private void open(SqliteTuningProfile profile) {
+        database = Room.databaseBuilder(context, AppDatabase.class, NAME)
+                .setJournalMode(profile.getJournalMode())
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onCreate(SupportSQLiteDatabase db) {
+                        MonthlyTotalsSchema.createTriggers(db);
+                    }
+
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        profile.apply(db);
+                    }
+                })
+                .build();
+        database.getOpenHelper().getWritableDatabase();
+    }
+
+    private static void report(SqliteTuningProfile profile, String operation, int ops, long totalNanos, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        String line = String.format(Locale.US, "%-10s %-32s %9.0f ops/s  p50 %8.1f us  p99 %8.1f us",
+                profile.name(), operation, ops * 1e9 / totalNanos,
+                percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3);
+        Log.i(TAG, line);
+        Bundle status = new Bundle();
+        status.putString("stream", line + "\n");
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+    }
+
+    private static long percentile(long[] sorted, double q) {
+        return sorted[Math.max(0, (int) Math.ceil(q * sorted.length) - 1)];
+    }
+}
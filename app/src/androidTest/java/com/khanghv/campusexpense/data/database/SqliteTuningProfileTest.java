@@ -0,0 +1,127 @@
+package com.khanghv.campusexpense.data.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Mở database file thật với từng profile giống AppDatabase.getInstance (journal mode qua builder, PRAGMA trong onOpen)
+ * rồi đọc lại PRAGMA để chắc giá trị đã được áp dụng trên kết nối mà Room dùng.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SqliteTuningProfileTest {
+
+    private static final String NAME = "tuning-test";
+    private static final String PROBE_NAME = "tuning-test-probe";
+
+    private Context context;
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(NAME);
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+        context.deleteDatabase(NAME);
+    }
+
+    @Test
+    public void fromNameIgnoresCaseAndFallsBackToDefault() {
+        assertEquals(SqliteTuningProfile.BALANCED, SqliteTuningProfile.fromName("balanced"));
+        assertEquals(SqliteTuningProfile.THROUGHPUT, SqliteTuningProfile.fromName("THROUGHPUT"));
+        assertEquals(SqliteTuningProfile.DEFAULT, SqliteTuningProfile.fromName("turbo"));
+        assertEquals(SqliteTuningProfile.DEFAULT, SqliteTuningProfile.fromName(null));
+    }
+
+    @Test
+    public void balancedIsApplied() {
+        SupportSQLiteDatabase db = open(SqliteTuningProfile.BALANCED);
+        assertEquals("wal", pragma(db, "journal_mode").toLowerCase());
+        // synchronous: 1 = NORMAL; temp_store: 2 = MEMORY
+        assertEquals("1", pragma(db, "synchronous"));
+        assertEquals(String.valueOf(-8 * 1024), pragma(db, "cache_size"));
+        assertEquals("2", pragma(db, "temp_store"));
+        assertMmap(db, 32L * 1024 * 1024);
+    }
+
+    @Test
+    public void throughputIsApplied() {
+        SupportSQLiteDatabase db = open(SqliteTuningProfile.THROUGHPUT);
+        assertEquals("wal", pragma(db, "journal_mode").toLowerCase());
+        assertEquals("1", pragma(db, "synchronous"));
+        assertEquals(String.valueOf(-32 * 1024), pragma(db, "cache_size"));
+        assertEquals("2", pragma(db, "temp_store"));
+        assertMmap(db, 128L * 1024 * 1024);
+    }
+
+    // DEFAULT không đặt PRAGMA nào: giá trị phải giống một kết nối Room không có callback
+    @Test
+    public void defaultLeavesPragmasAlone() {
+        AppDatabase untuned = Room.databaseBuilder(context, AppDatabase.class, NAME).build();
+        SupportSQLiteDatabase plain = untuned.getOpenHelper().getWritableDatabase();
+        String synchronous = pragma(plain, "synchronous");
+        String cacheSize = pragma(plain, "cache_size");
+        String tempStore = pragma(plain, "temp_store");
+        untuned.close();
+
+        SupportSQLiteDatabase db = open(SqliteTuningProfile.DEFAULT);
+        assertEquals(synchronous, pragma(db, "synchronous"));
+        assertEquals(cacheSize, pragma(db, "cache_size"));
+        assertEquals(tempStore, pragma(db, "temp_store"));
+    }
+
+    private SupportSQLiteDatabase open(SqliteTuningProfile profile) {
+        database = Room.databaseBuilder(context, AppDatabase.class, NAME)
+                .setJournalMode(profile.getJournalMode())
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        profile.apply(db);
+                    }
+                })
+                .build();
+        return database.getOpenHelper().getWritableDatabase();
+    }
+
+    // SQLite tự giới hạn mmap_size theo SQLITE_MAX_MMAP_SIZE lúc build. Giới hạn đó đo trên một kết nối riêng
+    // (đặt đúng giá trị yêu cầu rồi đọc lại); profile phải cho ra đúng giá trị ấy. Bản build tắt mmap thì bỏ qua
+    private void assertMmap(SupportSQLiteDatabase db, long requested) {
+        long allowed;
+        SQLiteDatabase probe = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(PROBE_NAME), null);
+        try (Cursor cursor = probe.rawQuery("PRAGMA mmap_size = " + requested, null)) {
+            allowed = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            probe.close();
+            context.deleteDatabase(PROBE_NAME);
+        }
+        assumeTrue("mmap disabled in this SQLite build", allowed > 0);
+        assertEquals(allowed, Long.parseLong(pragma(db, "mmap_size")));
+    }
+
+    private static String pragma(SupportSQLiteDatabase db, String name) {
+        try (Cursor cursor = db.query("PRAGMA " + name)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        }
+    }
+}
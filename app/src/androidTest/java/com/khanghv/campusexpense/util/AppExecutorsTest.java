@@ -0,0 +1,62 @@
+package com.khanghv.campusexpense.util;
+
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class AppExecutorsTest {
+
+    private static final int THREADS = 3;
+    private static final int JOBS = 600;
+
+    @Test
+    public void manyJobsNeverGrowPoolBeyondThreadCount() throws Exception {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) AppExecutors.newPool("test", THREADS,
+                Process.THREAD_PRIORITY_DEFAULT);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger maxPoolSize = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(JOBS);
+        try {
+            for (int i = 0; i < JOBS; i++) {
+                pool.execute(() -> {
+                    threadNames.add(Thread.currentThread().getName());
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    maxPoolSize.accumulateAndGet(pool.getPoolSize(), Math::max);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException ignored) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+
+            assertEquals(THREADS, threadNames.size());
+            for (String name : threadNames) {
+                assertTrue(name, name.startsWith("test-"));
+            }
+            assertTrue(maxRunning.get() <= THREADS);
+            assertTrue(maxPoolSize.get() <= THREADS);
+            assertEquals(THREADS, pool.getLargestPoolSize());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
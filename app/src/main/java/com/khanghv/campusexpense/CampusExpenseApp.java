@@ -2,11 +2,20 @@ package com.khanghv.campusexpense;
 
 import android.app.Application;
 import android.content.Context;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+import android.util.Log;
 
+import com.khanghv.campusexpense.data.MonthlyTotalsChecker;
+import com.khanghv.campusexpense.data.database.AppDatabase;
+import com.khanghv.campusexpense.util.AppExecutors;
 import com.khanghv.campusexpense.util.CurrencyManager;
 import com.khanghv.campusexpense.util.LocaleManager;
 
+import java.util.List;
+
 public class CampusExpenseApp extends Application {
+    private static final String TAG = "CampusExpenseApp";
 
     @Override
     protected void attachBaseContext(Context base) {
@@ -16,8 +25,56 @@ public class CampusExpenseApp extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
+        if (BuildConfig.DEBUG) {
+            enableStrictMode();
+        }
         LocaleManager.applyAppLocale(this);
         CurrencyManager.refreshRateIfNeeded(this, false, null);
+        if (BuildConfig.DEBUG) {
+            verifyMonthlyTotals();
+        }
+    }
+
+    // Bản debug: truy cập database trên main thread sẽ crash ngay để lộ lỗi sớm.
+    // Các lần đọc đĩa khác (SharedPreferences, locale...) chỉ được log.
+    private void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .penaltyListener(getMainExecutor(), violation -> {
+                    if (isDatabaseAccess(violation)) {
+                        throw new IllegalStateException("Main-thread database access", violation);
+                    }
+                })
+                .build());
+    }
+
+    private static boolean isDatabaseAccess(Violation violation) {
+        for (StackTraceElement element : violation.getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("android.database.sqlite")
+                    || className.startsWith("androidx.room")
+                    || className.startsWith("androidx.sqlite")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Bản debug: so bảng tổng hợp tháng với dữ liệu gốc, log và sửa nếu lệch
+    private void verifyMonthlyTotals() {
+        // Quét toàn bộ bảng nên chạy trên pool io độ ưu tiên nền, không chiếm luồng đọc của màn hình
+        AppExecutors.io().execute(() -> {
+            MonthlyTotalsChecker checker = new MonthlyTotalsChecker(AppDatabase.getInstance(this));
+            List<MonthlyTotalsChecker.Mismatch> mismatches = checker.findMismatches();
+            if (!mismatches.isEmpty()) {
+                for (MonthlyTotalsChecker.Mismatch mismatch : mismatches) {
+                    Log.w(TAG, "monthly_category_totals mismatch: " + mismatch);
+                }
+                checker.repair();
+            }
+        });
     }
 }
 
@@ -1,31 +1,31 @@
 package com.khanghv.campusexpense;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import com.khanghv.campusexpense.R;
 import com.khanghv.campusexpense.base.BaseActivity;
+import com.khanghv.campusexpense.data.database.QueryCounter;
 import com.khanghv.campusexpense.ui.auth.LoginActivity;
 import com.khanghv.campusexpense.ui.fragments.AccountFragment;
-import com.khanghv.campusexpense.ui.fragments.AddFragment;
 import com.khanghv.campusexpense.ui.fragments.BudgetFragment;
 import com.khanghv.campusexpense.ui.fragments.CategoryFragment;
 import com.khanghv.campusexpense.ui.fragments.HomeFragment;
-import com.khanghv.campusexpense.ui.fragments.TransactionFragment;
+import com.khanghv.campusexpense.util.AppSettings;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import  com.khanghv.campusexpense.ui.fragments.ExpenseFragment;
 
 public class MainActivity extends BaseActivity {
 
-    private SharedPreferences sharedPreferences;
     private BottomNavigationView bottomNavigation;
-    private static final String SETTINGS_PREFS = "settings_prefs";
-    private static final String KEY_RESET_HOME_AFTER_RECREATE = "reset_to_home_after_recreate";
+    private static final int[] TAB_IDS = {R.id.nav_home, R.id.nav_expense, R.id.nav_budget, R.id.nav_account};
     private boolean isLoggedIn() {
-        return sharedPreferences.getBoolean("isLoggedIn", false);
+        return AppSettings.get(this).isLoggedIn();
     }
     private void goToLoginAcitivity() {
         Intent intent = new Intent(this, LoginActivity.class);
@@ -39,7 +39,6 @@ public class MainActivity extends BaseActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        sharedPreferences = getSharedPreferences("user_prefs", MODE_PRIVATE);
         if (!isLoggedIn()) {
             goToLoginAcitivity();
             return;
@@ -47,22 +46,11 @@ public class MainActivity extends BaseActivity {
 
         bottomNavigation = findViewById(R.id.bottom_navigation);
         bottomNavigation.setOnItemSelectedListener(item -> {
-            Fragment selectedFragment = null;
-            int itemId = item.getItemId();
-            if (itemId == R.id.nav_home) {
-                selectedFragment = new HomeFragment();
-            } else if (itemId == R.id.nav_expense) {
-                selectedFragment = new ExpenseFragment();
-            }  else if (itemId == R.id.nav_budget) {
-                selectedFragment = new BudgetFragment();
-            } else if (itemId == R.id.nav_account) {
-                selectedFragment = new AccountFragment();
-            }
-            if (selectedFragment != null) {
-                getSupportFragmentManager().beginTransaction()
-                        .replace(R.id.fragment_container, selectedFragment)
-                        .commit();
+            if (BuildConfig.DEBUG) {
+                // Số câu SQL của tab vừa rời (tải lần đầu + mọi lần tải lại) kể từ lần đổi tab trước
+                QueryCounter.logSince("leaving for " + item.getTitle());
             }
+            showTab(item.getItemId());
             return true;
         });
 
@@ -74,20 +62,61 @@ public class MainActivity extends BaseActivity {
     protected void onResume() {
         super.onResume();
         // Nếu vừa đổi ngôn ngữ từ AccountFragment, ép bottom nav về Home
-        SharedPreferences settingsPrefs = getSharedPreferences(SETTINGS_PREFS, MODE_PRIVATE);
-        boolean shouldResetHome = settingsPrefs.getBoolean(KEY_RESET_HOME_AFTER_RECREATE, false);
-        if (shouldResetHome && bottomNavigation != null) {
+        if (AppSettings.get(this).shouldResetToHomeAfterRecreate() && bottomNavigation != null) {
             bottomNavigation.setSelectedItemId(R.id.nav_home);
-            settingsPrefs.edit().putBoolean(KEY_RESET_HOME_AFTER_RECREATE, false).apply();
+            AppSettings.setResetToHomeAfterRecreate(this, false);
+        }
+    }
+
+    // Mỗi tab chỉ có một instance (tìm lại theo tag, kể cả sau recreate). Tab bị ẩn giữ nguyên view,
+    // adapter và ViewModel, chỉ bị giới hạn ở STARTED; quay lại tab không inflate và không query lại
+    private void showTab(int itemId) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        // Trang Categories mở từ Account nằm trên back stack, đổi tab thì đóng nó trước
+        if (fragmentManager.getBackStackEntryCount() > 0) {
+            fragmentManager.popBackStackImmediate(null, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+        }
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+        for (int tabId : TAB_IDS) {
+            Fragment tab = fragmentManager.findFragmentByTag(tabTag(tabId));
+            if (tabId == itemId) {
+                if (tab == null) {
+                    transaction.add(R.id.fragment_container, createTab(tabId), tabTag(tabId));
+                } else {
+                    transaction.show(tab).setMaxLifecycle(tab, Lifecycle.State.RESUMED);
+                }
+            } else if (tab != null && !tab.isHidden()) {
+                transaction.hide(tab).setMaxLifecycle(tab, Lifecycle.State.STARTED);
+            }
         }
+        transaction.commit();
     }
 
+    private static String tabTag(int itemId) {
+        return "tab_" + itemId;
+    }
+
+    private static Fragment createTab(int itemId) {
+        if (itemId == R.id.nav_expense) {
+            return new ExpenseFragment();
+        } else if (itemId == R.id.nav_budget) {
+            return new BudgetFragment();
+        } else if (itemId == R.id.nav_account) {
+            return new AccountFragment();
+        }
+        return new HomeFragment();
+    }
+
+    // Ẩn tab Account thay vì thay thế để Back quay lại đúng view cũ
     public void navigateToCategoriesFragment() {
-        CategoryFragment categoryFragment = new CategoryFragment();
-        getSupportFragmentManager().beginTransaction()
-                .replace(R.id.fragment_container, categoryFragment)
-                .addToBackStack(null)
-                .commit();
+        Fragment accountFragment = getSupportFragmentManager().findFragmentByTag(tabTag(R.id.nav_account));
+        FragmentTransaction transaction = getSupportFragmentManager().beginTransaction()
+                .setReorderingAllowed(true)
+                .add(R.id.fragment_container, new CategoryFragment());
+        if (accountFragment != null) {
+            transaction.hide(accountFragment).setMaxLifecycle(accountFragment, Lifecycle.State.STARTED);
+        }
+        transaction.addToBackStack(null).commit();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.khanghv.campusexpense.data;
+
+import android.util.SparseArray;
+
+import com.khanghv.campusexpense.data.database.CategoryDao;
+import com.khanghv.campusexpense.data.model.Category;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Danh sách category của từng user giữ trong bộ nhớ, tra theo id bằng SparseArray.
+ * Mỗi user chỉ truy vấn một lần; mọi thao tác ghi bảng categories phải đi qua write() để bỏ bản cache.
+ * Các đối tượng Category trả về được dùng chung, không được sửa.
+ */
+public final class CategoryCache {
+
+    private static final Object lock = new Object();
+    private static final SparseArray<Categories> byUser = new SparseArray<>();
+    // Tăng mỗi lần ghi bắt đầu/kết thúc; bản tải được trong lúc đó bị bỏ, không lưu vào cache
+    private static int generation;
+    private static int pendingWrites;
+
+    private CategoryCache() {}
+
+    public static final class Categories {
+        private final List<Category> list;
+        private final SparseArray<Category> byId;
+
+        Categories(List<Category> categories) {
+            list = Collections.unmodifiableList(categories);
+            byId = new SparseArray<>(categories.size());
+            for (Category category : categories) {
+                byId.put(category.getId(), category);
+            }
+        }
+
+        // Cùng thứ tự với CategoryDao.getAllByUser
+        public List<Category> all() {
+            return list;
+        }
+
+        public Category get(int categoryId) {
+            return byId.get(categoryId);
+        }
+
+        public String nameOf(int categoryId, String fallback) {
+            Category category = byId.get(categoryId);
+            return category != null ? category.getName() : fallback;
+        }
+    }
+
+    // Chạy trên luồng đọc của DatabaseDispatcher
+    public static Categories get(CategoryDao categoryDao, int userId) {
+        int loadGeneration;
+        synchronized (lock) {
+            Categories cached = byUser.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = pendingWrites == 0 ? generation : -1;
+        }
+        Categories loaded = new Categories(categoryDao.getAllByUser(userId));
+        synchronized (lock) {
+            if (loadGeneration == generation && pendingWrites == 0) {
+                byUser.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Chạy thao tác ghi categories của user (trên luồng ghi) và bỏ bản cache cả trước lẫn sau khi ghi,
+     * để không lần đọc nào chạy xen giữa lưu lại dữ liệu cũ.
+     */
+    public static void write(int userId, Runnable write) {
+        synchronized (lock) {
+            pendingWrites++;
+            generation++;
+            byUser.remove(userId);
+        }
+        try {
+            write.run();
+        } finally {
+            synchronized (lock) {
+                pendingWrites--;
+                generation++;
+                byUser.remove(userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.khanghv.campusexpense.data;
+
+import com.khanghv.campusexpense.data.model.Expense;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Báo thay đổi dữ liệu theo phạm vi (loại dữ liệu, userId, yearMonth, categoryId) thay vì theo cả bảng
+ * như InvalidationTracker của Room. Mọi đường ghi expenses/budgets/categories phát sự kiện sau khi commit;
+ * ScopedLiveData chỉ truy vấn lại khi phạm vi nó theo dõi giao với phạm vi vừa thay đổi.
+ * ANY khớp mọi giá trị ở vị trí đó.
+ */
+public final class ChangeBus {
+
+    public static final int ANY = -1;
+
+    public static final int EXPENSES = 1;
+    public static final int BUDGETS = 1 << 1;
+    public static final int CATEGORIES = 1 << 2;
+
+    private static final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private ChangeBus() {}
+
+    public interface Listener {
+        // Gọi trên luồng vừa ghi, listener không được chặn lâu
+        void onChanged();
+    }
+
+    public static final class Scope {
+        final int kinds;
+        final int userId;
+        final int yearMonth;
+        final int categoryId;
+
+        private Scope(int kinds, int userId, int yearMonth, int categoryId) {
+            this.kinds = kinds;
+            this.userId = userId;
+            this.yearMonth = yearMonth;
+            this.categoryId = categoryId;
+        }
+
+        public static Scope expenses(int userId, int yearMonth, int categoryId) {
+            return new Scope(EXPENSES, userId, yearMonth, categoryId);
+        }
+
+        public static Scope expense(Expense expense) {
+            return expenses(expense.getUserId(), expense.getYearMonth(), expense.getCategoryId());
+        }
+
+        // Budget và category không gắn với tháng nên giao với mọi tháng
+        public static Scope budgets(int userId, int categoryId) {
+            return new Scope(BUDGETS, userId, ANY, categoryId);
+        }
+
+        public static Scope categories(int userId, int categoryId) {
+            return new Scope(CATEGORIES, userId, ANY, categoryId);
+        }
+
+        // Xóa category kéo theo expenses và budgets của nó (ON DELETE CASCADE)
+        public static Scope categoryCascade(int userId, int categoryId) {
+            return new Scope(EXPENSES | BUDGETS | CATEGORIES, userId, ANY, categoryId);
+        }
+
+        boolean intersects(Scope other) {
+            return (kinds & other.kinds) != 0
+                    && matches(userId, other.userId)
+                    && matches(yearMonth, other.yearMonth)
+                    && matches(categoryId, other.categoryId);
+        }
+
+        private static boolean matches(int a, int b) {
+            return a == ANY || b == ANY || a == b;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Scope)) return false;
+            Scope scope = (Scope) o;
+            return kinds == scope.kinds && userId == scope.userId
+                    && yearMonth == scope.yearMonth && categoryId == scope.categoryId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kinds, userId, yearMonth, categoryId);
+        }
+    }
+
+    public static final class Subscription {
+        private final Scope[] scopes;
+        private final Listener listener;
+
+        private Subscription(Scope[] scopes, Listener listener) {
+            this.scopes = scopes;
+            this.listener = listener;
+        }
+
+        boolean intersects(Scope changed) {
+            for (Scope scope : scopes) {
+                if (scope.intersects(changed)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void dispose() {
+            subscriptions.remove(this);
+        }
+    }
+
+    public static Subscription subscribe(Listener listener, Scope... scopes) {
+        Subscription subscription = new Subscription(scopes, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public static void publish(Scope changed) {
+        publish(Collections.singleton(changed));
+    }
+
+    // Mỗi subscriber được báo nhiều nhất một lần cho cả lô, dù nhiều phạm vi cùng giao với nó
+    public static void publish(Collection<Scope> changed) {
+        for (Subscription subscription : subscriptions) {
+            for (Scope scope : changed) {
+                if (subscription.intersects(scope)) {
+                    subscription.listener.onChanged();
+                    break;
+                }
+            }
+        }
+    }
+}
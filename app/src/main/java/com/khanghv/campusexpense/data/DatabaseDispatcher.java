@@ -0,0 +1,153 @@
+package com.khanghv.campusexpense.data;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.lifecycle.LifecycleOwner;
+
+import com.khanghv.campusexpense.util.AppExecutors;
+import com.khanghv.campusexpense.util.CancellationToken;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Chạy mọi truy vấn Room ngoài main thread: đọc trên pool giới hạn, ghi tuần tự trên một luồng riêng.
+ * Kết quả được gửi về main thread qua CancellationToken: owner bị hủy trước khi việc đọc bắt đầu thì
+ * bỏ luôn truy vấn, bị hủy trong lúc chạy thì bỏ kết quả. Việc ghi luôn chạy hết, chỉ bỏ callback.
+ * Một việc ném exception không làm chết luồng của pool: lỗi được ghi log và báo cho onError nếu có.
+ */
+public final class DatabaseDispatcher {
+
+    private static final String TAG = "DatabaseDispatcher";
+    static final int READ_THREADS = 3;
+
+    // Màn hình đang chờ kết quả nên giữ độ ưu tiên mặc định, cao hơn AppExecutors.io()
+    private static final ExecutorService READ_POOL =
+            AppExecutors.newPool("db-read", READ_THREADS, Process.THREAD_PRIORITY_DEFAULT);
+    private static final ExecutorService WRITE_POOL =
+            AppExecutors.newPool("db-write", 1, Process.THREAD_PRIORITY_DEFAULT);
+    // Room cũng chạy truy vấn của LiveData và transaction trên hai executor này
+    private static final Executor READ_EXECUTOR = job -> READ_POOL.execute(guard(job));
+    private static final Executor WRITE_EXECUTOR = job -> WRITE_POOL.execute(guard(job));
+
+    private DatabaseDispatcher() {}
+
+    public interface Work<T> {
+        T run();
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public static Executor readExecutor() {
+        return READ_EXECUTOR;
+    }
+
+    public static Executor writeExecutor() {
+        return WRITE_EXECUTOR;
+    }
+
+    // Cho test đọc số luồng thực của hai pool (newPool luôn tạo ThreadPoolExecutor)
+    static ThreadPoolExecutor readPool() {
+        return (ThreadPoolExecutor) READ_POOL;
+    }
+
+    static ThreadPoolExecutor writePool() {
+        return (ThreadPoolExecutor) WRITE_POOL;
+    }
+
+    // Các hàm nhận LifecycleOwner gọi trên main thread
+    public static <T> void read(LifecycleOwner owner, Work<T> work, Callback<T> callback) {
+        read(CancellationToken.bindTo(owner), work, callback, null);
+    }
+
+    // onError chạy trên main thread khi work ném exception, trừ khi owner đã bị hủy
+    public static <T> void read(LifecycleOwner owner, Work<T> work, Callback<T> callback,
+                                Callback<RuntimeException> onError) {
+        read(CancellationToken.bindTo(owner), work, callback, onError);
+    }
+
+    public static <T> void read(CancellationToken token, Work<T> work, Callback<T> callback) {
+        read(token, work, callback, null);
+    }
+
+    public static <T> void read(CancellationToken token, Work<T> work, Callback<T> callback,
+                                Callback<RuntimeException> onError) {
+        READ_EXECUTOR.execute(() -> {
+            if (token.isCancelled()) {
+                AppExecutors.mainThread().execute(token::release);
+                return;
+            }
+            T result;
+            try {
+                result = work.run();
+            } catch (RuntimeException error) {
+                fail(token, error, onError);
+                return;
+            }
+            deliver(token, () -> callback.onResult(result));
+        });
+    }
+
+    public static void write(Runnable work) {
+        WRITE_EXECUTOR.execute(work);
+    }
+
+    public static void write(LifecycleOwner owner, Runnable work, Runnable onComplete) {
+        CancellationToken token = CancellationToken.bindTo(owner);
+        WRITE_EXECUTOR.execute(() -> {
+            try {
+                work.run();
+            } catch (RuntimeException error) {
+                fail(token, error, null);
+                return;
+            }
+            deliver(token, onComplete);
+        });
+    }
+
+    public static <T> void writeForResult(LifecycleOwner owner, Work<T> work, Callback<T> callback) {
+        CancellationToken token = CancellationToken.bindTo(owner);
+        WRITE_EXECUTOR.execute(() -> {
+            T result;
+            try {
+                result = work.run();
+            } catch (RuntimeException error) {
+                fail(token, error, null);
+                return;
+            }
+            deliver(token, () -> callback.onResult(result));
+        });
+    }
+
+    // Lưới cuối cho việc không tự bắt lỗi (write(Runnable), truy vấn LiveData của Room)
+    private static Runnable guard(Runnable job) {
+        return () -> {
+            try {
+                job.run();
+            } catch (RuntimeException error) {
+                Log.e(TAG, "Database job failed", error);
+            }
+        };
+    }
+
+    // Vẫn gửi về main thread để gỡ token khỏi lifecycle
+    private static void fail(CancellationToken token, RuntimeException error, Callback<RuntimeException> onError) {
+        Log.e(TAG, "Database job failed", error);
+        deliver(token, onError == null ? null : () -> onError.onResult(error));
+    }
+
+    private static void deliver(CancellationToken token, Runnable action) {
+        AppExecutors.mainThread().execute(() -> {
+            token.release();
+            // Fragment/Activity đã bị hủy trong lúc truy vấn chạy -> không cập nhật UI nữa
+            if (action == null || token.isCancelled()) {
+                return;
+            }
+            action.run();
+        });
+    }
+}
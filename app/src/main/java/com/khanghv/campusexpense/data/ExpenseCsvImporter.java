@@ -0,0 +1,475 @@
+package com.khanghv.campusexpense.data;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.khanghv.campusexpense.data.database.AppDatabase;
+import com.khanghv.campusexpense.data.database.CategoryDao;
+import com.khanghv.campusexpense.data.database.ExpenseDao;
+import com.khanghv.campusexpense.data.model.Category;
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+import com.khanghv.campusexpense.util.AppExecutors;
+import com.khanghv.campusexpense.util.CancellationToken;
+import com.khanghv.campusexpense.util.CurrencyManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Nhập expenses từ file CSV (chọn qua Storage Access Framework).
+ * Đọc từng dòng nên bộ nhớ không phụ thuộc kích thước file; ghi theo lô CHUNK_SIZE dòng, mỗi lô một transaction.
+ * Luồng io chỉ đọc và phân tích; mỗi lô được giao cho luồng ghi của DatabaseDispatcher, tối đa
+ * MAX_PENDING_CHUNKS lô chờ cùng lúc nên việc đọc không chạy quá xa việc ghi.
+ * Dòng lỗi được bỏ qua và đếm lại, không làm hỏng cả lần nhập.
+ * Một bản ghi mở ngoặc kép mà không đóng (trong MAX_RECORD_LINES dòng / MAX_RECORD_CHARS ký tự, hoặc tới hết file)
+ * cũng là dòng lỗi: các dòng đã đọc thêm được đọc lại như bản ghi bình thường.
+ */
+public class ExpenseCsvImporter {
+
+    public static final int CHUNK_SIZE = 500;
+    private static final int MAX_PENDING_CHUNKS = 2;
+    // Giới hạn một bản ghi có xuống dòng trong ngoặc kép: dòng đọc thêm và tổng số ký tự
+    static final int MAX_RECORD_LINES = 50;
+    static final int MAX_RECORD_CHARS = 16 * 1024;
+    static final String DEFAULT_CATEGORY = "Imported";
+
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.US),
+            DateTimeFormatter.ofPattern("d/M/yyyy", Locale.US),
+            DateTimeFormatter.ofPattern("d-M-yyyy", Locale.US),
+            DateTimeFormatter.ofPattern("yyyy/M/d", Locale.US),
+            DateTimeFormatter.ofPattern("d.M.yyyy", Locale.US)
+    };
+
+    public interface Listener {
+        void onProgress(int imported, int skipped);
+
+        void onFinished(Result result);
+
+        void onError(Exception exception);
+    }
+
+    public static class Result {
+        public final int imported;
+        public final int skipped;
+        public final int categoriesCreated;
+        public final boolean cancelled;
+
+        Result(int imported, int skipped, int categoriesCreated, boolean cancelled) {
+            this.imported = imported;
+            this.skipped = skipped;
+            this.categoriesCreated = categoriesCreated;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private final Context context;
+    private final AppDatabase database;
+    private final ExpenseDao expenseDao;
+    private final CategoryDao categoryDao;
+    private final CancellationToken cancellation = new CancellationToken();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Chỉ dùng trên luồng io
+    private int dateFormatIndex;
+    // Các lô đã giao cho luồng ghi mà chưa xong
+    private final Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+    // Chỉ dùng trên luồng ghi; luồng io đọc lại sau awaitWrites()
+    private int imported;
+    private int categoriesCreated;
+    private volatile RuntimeException writeFailure;
+
+    public ExpenseCsvImporter(Context context) {
+        this.context = context.getApplicationContext();
+        this.database = AppDatabase.getInstance(this.context);
+        this.expenseDao = database.expenseDao();
+        this.categoryDao = database.categoryDao();
+    }
+
+    public void start(Uri uri, int userId, Listener listener) {
+        AppExecutors.io().execute(() -> {
+            try (InputStream input = context.getContentResolver().openInputStream(uri)) {
+                if (input == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+                Result result = importRows(reader, userId, listener);
+                AppExecutors.mainThread().execute(() -> listener.onFinished(result));
+            } catch (Exception exception) {
+                AppExecutors.mainThread().execute(() -> listener.onError(exception));
+            }
+        });
+    }
+
+    // Các lô đã ghi vẫn được giữ lại, chỉ dừng đọc tiếp
+    public void cancel() {
+        cancellation.cancel();
+    }
+
+    private Result importRows(BufferedReader reader, int userId, Listener listener) throws IOException {
+        Map<String, Integer> categoryIds = new HashMap<>();
+        for (Category category : CategoryCache.get(categoryDao, userId).all()) {
+            categoryIds.put(normalizeName(category.getName()), category.getId());
+        }
+
+        String firstLine = reader.readLine();
+        if (firstLine == null) {
+            return new Result(0, 0, 0, false);
+        }
+        // Byte order mark của file xuất từ Excel
+        if (firstLine.startsWith("\uFEFF")) {
+            firstLine = firstLine.substring(1);
+        }
+        char delimiter = detectDelimiter(firstLine);
+        int skipped = 0;
+        List<String> firstFields = splitLine(firstLine, reader, delimiter);
+        ColumnMap columns = firstFields == null ? null : ColumnMap.fromHeader(firstFields);
+        List<String> pendingFirstRow = null;
+        if (firstFields == null) {
+            // Dòng đầu hỏng: không có header, bỏ dòng đó
+            columns = ColumnMap.DEFAULT;
+            skipped++;
+        } else if (columns == null) {
+            // Không có header: mặc định date, amount, category, description
+            columns = ColumnMap.DEFAULT;
+            pendingFirstRow = firstFields;
+        }
+
+        List<Expense> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<String> chunkCategoryNames = new ArrayList<>(CHUNK_SIZE);
+        try {
+            while (!cancellation.isCancelled() && writeFailure == null) {
+                List<String> fields;
+                if (pendingFirstRow != null) {
+                    fields = pendingFirstRow;
+                    pendingFirstRow = null;
+                } else {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    fields = splitLine(line, reader, delimiter);
+                }
+
+                Expense expense = fields == null ? null : parseRow(fields, columns, userId);
+                if (expense == null) {
+                    skipped++;
+                    continue;
+                }
+                chunk.add(expense);
+                chunkCategoryNames.add(columns.get(fields, columns.category));
+                if (chunk.size() == CHUNK_SIZE) {
+                    submitChunk(chunk, chunkCategoryNames, categoryIds, userId, skipped, listener);
+                    // Lô vừa giao thuộc về luồng ghi, lô kế tiếp dùng danh sách mới
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    chunkCategoryNames = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty() && !cancellation.isCancelled() && writeFailure == null) {
+                submitChunk(chunk, chunkCategoryNames, categoryIds, userId, skipped, listener);
+            }
+        } finally {
+            // Lỗi đọc file cũng phải chờ các lô đã giao ghi xong rồi mới báo kết quả
+            awaitWrites();
+        }
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+        return new Result(imported, skipped, categoriesCreated, cancellation.isCancelled());
+    }
+
+    // Chờ khi đã có đủ MAX_PENDING_CHUNKS lô chưa ghi xong; không ghi tiếp sau lô lỗi
+    private void submitChunk(List<Expense> chunk, List<String> names, Map<String, Integer> categoryIds, int userId,
+                             int skippedSoFar, Listener listener) {
+        pendingChunks.acquireUninterruptibly();
+        DatabaseDispatcher.write(() -> {
+            try {
+                if (writeFailure == null) {
+                    writeChunk(chunk, names, categoryIds, userId);
+                    int importedSoFar = imported;
+                    AppExecutors.mainThread().execute(() -> listener.onProgress(importedSoFar, skippedSoFar));
+                }
+            } catch (RuntimeException exception) {
+                writeFailure = exception;
+            } finally {
+                pendingChunks.release();
+            }
+        });
+    }
+
+    private void awaitWrites() {
+        pendingChunks.acquireUninterruptibly(MAX_PENDING_CHUNKS);
+        pendingChunks.release(MAX_PENDING_CHUNKS);
+    }
+
+    /**
+     * Chạy trên luồng ghi: tạo các category còn thiếu và ghi cả lô expenses trong cùng một transaction.
+     * Các lô ghi tuần tự trên một luồng nên categoryIds luôn đã có category do lô trước tạo.
+     */
+    private void writeChunk(List<Expense> chunk, List<String> names, Map<String, Integer> categoryIds, int userId) {
+        int createdBefore = categoriesCreated;
+        Map<String, Category> missing = new LinkedHashMap<>();
+        for (String name : names) {
+            String displayName = displayName(name);
+            String key = normalizeName(displayName);
+            if (!categoryIds.containsKey(key) && !missing.containsKey(key)) {
+                missing.put(key, new Category(userId, displayName));
+            }
+        }
+        Runnable write = () -> database.runInTransaction(() -> {
+            if (!missing.isEmpty()) {
+                List<Long> ids = categoryDao.insertAll(new ArrayList<>(missing.values()));
+                int i = 0;
+                for (String key : missing.keySet()) {
+                    categoryIds.put(key, ids.get(i++).intValue());
+                }
+                categoriesCreated += missing.size();
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setCategoryId(categoryIds.get(normalizeName(displayName(names.get(i)))));
+            }
+            expenseDao.insertAll(chunk);
+        });
+        // Chỉ lô có tạo category mới mới cần bỏ bản cache category của user
+        if (missing.isEmpty()) {
+            write.run();
+        } else {
+            CategoryCache.write(userId, write);
+        }
+        imported += chunk.size();
+        // Một lần báo cho cả lô sau khi commit: màn hình đang mở chỉ tải lại nếu lô chạm tới tháng/category nó hiển thị
+        Set<ChangeBus.Scope> changed = new HashSet<>();
+        for (Expense expense : chunk) {
+            changed.add(ChangeBus.Scope.expense(expense));
+        }
+        if (categoriesCreated != createdBefore) {
+            changed.add(ChangeBus.Scope.categories(userId, ChangeBus.ANY));
+        }
+        ChangeBus.publish(changed);
+    }
+
+    private Expense parseRow(List<String> fields, ColumnMap columns, int userId) {
+        try {
+            long date = parseDate(columns.get(fields, columns.date));
+            // Cùng quy tắc với ô nhập số tiền; file ngân hàng ghi khoản chi là số âm
+            double displayAmount = Math.abs(CurrencyManager.parseDisplayAmount(columns.get(fields, columns.amount)));
+            Money amount = CurrencyManager.toBaseCurrency(context, displayAmount);
+            if (!amount.isPositive()) {
+                return null;
+            }
+            return new Expense(userId, 0, amount, columns.get(fields, columns.description), date);
+        } catch (NumberFormatException | DateTimeParseException exception) {
+            return null;
+        }
+    }
+
+    private long parseDate(String raw) {
+        String value = raw.trim();
+        if (value.isEmpty()) {
+            throw new DateTimeParseException("Empty date", value, 0);
+        }
+        // Epoch millis
+        if (value.length() >= 12 && isDigits(value)) {
+            return Long.parseLong(value);
+        }
+        // Bỏ phần giờ (yyyy-MM-dd HH:mm:ss, ISO 8601)
+        int timeStart = value.indexOf(' ');
+        if (timeStart < 0 && value.length() > 10 && value.charAt(10) == 'T') {
+            timeStart = 10;
+        }
+        if (timeStart > 0) {
+            value = value.substring(0, timeStart);
+        }
+        // Thử định dạng khớp lần trước trước tiên: cả file thường dùng một định dạng
+        for (int i = 0; i < DATE_FORMATS.length; i++) {
+            int index = (dateFormatIndex + i) % DATE_FORMATS.length;
+            try {
+                LocalDate date = LocalDate.parse(value, DATE_FORMATS[index]);
+                dateFormatIndex = index;
+                return date.atStartOfDay(zone).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                // thử định dạng tiếp theo
+            }
+        }
+        throw new DateTimeParseException("Unsupported date", value, 0);
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String displayName(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        return trimmed.isEmpty() ? DEFAULT_CATEGORY : trimmed;
+    }
+
+    private static String normalizeName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static char detectDelimiter(String headerLine) {
+        int commas = 0;
+        int semicolons = 0;
+        int tabs = 0;
+        for (int i = 0; i < headerLine.length(); i++) {
+            char c = headerLine.charAt(i);
+            if (c == ',') commas++;
+            else if (c == ';') semicolons++;
+            else if (c == '\t') tabs++;
+        }
+        if (tabs > commas && tabs > semicolons) return '\t';
+        return semicolons > commas ? ';' : ',';
+    }
+
+    /**
+     * Tách một bản ghi CSV: hỗ trợ trường trong ngoặc kép, "" để escape và xuống dòng bên trong ngoặc kép
+     * (khi đó đọc thêm dòng từ reader). Ngoặc kép chỉ có nghĩa ở đầu trường (sau khoảng trắng); ở giữa trường
+     * như 5" screen thì giữ nguyên như ký tự thường.
+     * Trả về null nếu ngoặc kép không được đóng trong giới hạn của một bản ghi hoặc tới hết file; khi đó reader
+     * được đưa về ngay sau dòng đầu để các dòng sau không bị nuốt mất.
+     */
+    static List<String> splitLine(String line, BufferedReader reader, char delimiter) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean atFieldStart = true;
+        boolean marked = false;
+        int extraLines = 0;
+        int recordChars = line.length();
+        String current = line;
+        int i = 0;
+        while (true) {
+            if (i >= current.length()) {
+                if (!inQuotes) {
+                    break;
+                }
+                if (!marked) {
+                    reader.mark(MAX_RECORD_CHARS + 2);
+                    marked = true;
+                }
+                String next = reader.readLine();
+                // + 2 cho \r\n mà readLine đã bỏ
+                recordChars += next == null ? 0 : next.length() + 2;
+                if (next == null || ++extraLines > MAX_RECORD_LINES || recordChars > MAX_RECORD_CHARS) {
+                    rewind(reader);
+                    return null;
+                }
+                field.append('\n');
+                current = next;
+                i = 0;
+                continue;
+            }
+            char c = current.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < current.length() && current.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+                atFieldStart = true;
+            } else if (c == '"' && atFieldStart) {
+                // Bỏ khoảng trắng trước ngoặc mở
+                field.setLength(0);
+                inQuotes = true;
+                atFieldStart = false;
+            } else {
+                field.append(c);
+                if (!Character.isWhitespace(c)) {
+                    atFieldStart = false;
+                }
+            }
+            i++;
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    // Một dòng rất dài có thể đã vượt vùng mark: khi đó không đọc lại được, các dòng ấy coi như thuộc bản ghi hỏng
+    private static void rewind(BufferedReader reader) {
+        try {
+            reader.reset();
+        } catch (IOException markInvalid) {
+            // đọc tiếp từ vị trí hiện tại
+        }
+    }
+
+    // Vị trí các cột cần dùng, đoán từ header
+    static class ColumnMap {
+        static final ColumnMap DEFAULT = new ColumnMap(0, 1, 2, 3);
+
+        final int date;
+        final int amount;
+        final int category;
+        final int description;
+
+        ColumnMap(int date, int amount, int category, int description) {
+            this.date = date;
+            this.amount = amount;
+            this.category = category;
+            this.description = description;
+        }
+
+        String get(List<String> fields, int index) {
+            return index >= 0 && index < fields.size() ? fields.get(index) : "";
+        }
+
+        // null nếu dòng đầu không giống header (không có cột ngày hoặc số tiền)
+        static ColumnMap fromHeader(List<String> header) {
+            int date = -1;
+            int amount = -1;
+            int category = -1;
+            int description = -1;
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+                if (date < 0 && (name.contains("date") || name.contains("ngày"))) {
+                    date = i;
+                } else if (amount < 0 && (name.contains("amount") || name.contains("số tiền")
+                        || name.contains("debit") || name.contains("value"))) {
+                    amount = i;
+                } else if (category < 0 && (name.contains("category") || name.contains("danh mục"))) {
+                    category = i;
+                } else if (description < 0 && (name.contains("description") || name.contains("note")
+                        || name.contains("memo") || name.contains("mô tả") || name.contains("ghi chú"))) {
+                    description = i;
+                }
+            }
+            if (date < 0 || amount < 0) {
+                return null;
+            }
+            return new ColumnMap(date, amount, category, description);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.khanghv.campusexpense.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+
+import com.khanghv.campusexpense.data.database.AppDatabase;
+import com.khanghv.campusexpense.data.database.ExpenseDao;
+import com.khanghv.campusexpense.util.AppExecutors;
+import com.khanghv.campusexpense.util.CancellationToken;
+import com.khanghv.campusexpense.util.CurrencyManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+
+/**
+ * Xuất expenses của một user ra CSV hoặc JSON theo dòng (NDJSON).
+ * Đọc qua Cursor và ghi thẳng ra stream từng dòng, không bao giờ dựng List<Expense>,
+ * nên bộ nhớ cố định (một CursorWindow + buffer ghi) bất kể số dòng.
+ * File CSV dùng cùng header và đơn vị tiền hiển thị với ExpenseCsvImporter để nhập lại được.
+ */
+public class ExpenseExporter {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        public final String mimeType;
+        public final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+    }
+
+    public interface Listener {
+        void onProgress(int exported);
+
+        void onFinished(int exported, boolean cancelled);
+
+        void onError(Exception exception);
+    }
+
+    private static final int PROGRESS_INTERVAL = 5000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Context context;
+    private final ExpenseDao expenseDao;
+    private final CancellationToken cancellation = new CancellationToken();
+
+    public ExpenseExporter(Context context) {
+        this.context = context.getApplicationContext();
+        this.expenseDao = AppDatabase.getInstance(this.context).expenseDao();
+    }
+
+    public void start(Uri uri, int userId, Format format, Listener listener) {
+        AppExecutors.io().execute(() -> {
+            try (OutputStream output = context.getContentResolver().openOutputStream(uri)) {
+                if (output == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+                int exported = export(writer, userId, format, listener);
+                writer.flush();
+                AppExecutors.mainThread().execute(() -> listener.onFinished(exported, cancellation.isCancelled()));
+            } catch (Exception exception) {
+                AppExecutors.mainThread().execute(() -> listener.onError(exception));
+            }
+        });
+    }
+
+    public void cancel() {
+        cancellation.cancel();
+    }
+
+    private int export(Writer writer, int userId, Format format, Listener listener) throws IOException {
+        // Đơn vị hiển thị và tỷ giá lấy một lần cho cả lần xuất
+        ExportLineWriter lineWriter = new ExportLineWriter(
+                CurrencyManager.getDisplayCurrency(context) == CurrencyManager.CurrencyType.VND,
+                CurrencyManager.getStoredUsdToVndRate(context), ZoneId.systemDefault());
+        StringBuilder line = new StringBuilder(256);
+        int exported = 0;
+
+        try (Cursor cursor = expenseDao.getExportCursor(userId)) {
+            int dateColumn = cursor.getColumnIndexOrThrow("date");
+            int amountColumn = cursor.getColumnIndexOrThrow("amount");
+            int categoryColumn = cursor.getColumnIndexOrThrow("categoryName");
+            int descriptionColumn = cursor.getColumnIndexOrThrow("description");
+
+            if (format == Format.CSV) {
+                writer.write(ExportLineWriter.CSV_HEADER);
+            }
+            while (cursor.moveToNext() && !cancellation.isCancelled()) {
+                line.setLength(0);
+                long date = cursor.getLong(dateColumn);
+                long amount = cursor.getLong(amountColumn);
+                String category = cursor.isNull(categoryColumn) ? "" : cursor.getString(categoryColumn);
+                String description = cursor.isNull(descriptionColumn) ? "" : cursor.getString(descriptionColumn);
+
+                if (format == Format.CSV) {
+                    lineWriter.appendCsv(line, date, amount, category, description);
+                } else {
+                    lineWriter.appendJson(line, date, amount, category, description);
+                }
+                writer.append(line);
+
+                exported++;
+                if (exported % PROGRESS_INTERVAL == 0) {
+                    int exportedSoFar = exported;
+                    AppExecutors.mainThread().execute(() -> listener.onProgress(exportedSoFar));
+                }
+            }
+        }
+        return exported;
+    }
+}
@@ -0,0 +1,197 @@
+package com.khanghv.campusexpense.data;
+
+import com.khanghv.campusexpense.data.database.ExpenseDao;
+import com.khanghv.campusexpense.data.database.ExpenseSearchDao;
+import com.khanghv.campusexpense.data.model.Expense;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Đọc danh sách expense theo từng trang bằng keyset (date, createdAt, id) thay vì OFFSET,
+ * nên chi phí mỗi trang là hằng số dù tháng (hoặc toàn bộ lịch sử) có bao nhiêu dòng.
+ * Khi có từ khóa tìm kiếm thì đọc kết quả đã xếp hạng từ FTS theo OFFSET
+ * (thứ tự theo độ khớp không dùng keyset được, và tập kết quả thường nhỏ).
+ * Chỉ giữ tối đa MAX_PAGES trang liên tiếp (cửa sổ): cuộn xuống thì bỏ trang đầu, cuộn lên thì đọc lại
+ * trang phía trước và bỏ trang cuối, nên bộ nhớ và chi phí reload() không tăng theo độ sâu đã cuộn.
+ * Khi dữ liệu đổi, reload() tạo pager mới chỉ đọc lại đúng cửa sổ đang giữ để danh sách giữ nguyên vị trí.
+ */
+public class ExpensePager {
+
+    public static final int PAGE_SIZE = 50;
+    public static final int MAX_PAGES = 4;
+    public static final int ALL_CATEGORIES = -1;
+
+    private final ExpenseDao expenseDao;
+    private final int userId;
+    private final int categoryId;
+    private final long startDate;
+    private final long endDate;
+    private final ExpenseSearchDao searchDao;
+    private final String matchQuery;
+
+    // Các trang trong cửa sổ, theo thứ tự hiển thị
+    private final ArrayDeque<List<Expense>> pages = new ArrayDeque<>();
+    private int windowSize;
+    // Khóa của dòng ngay trước cửa sổ (trang đầu đã bỏ); MAX_VALUE khi cửa sổ bắt đầu từ dòng đầu tiên
+    private long headDate = Long.MAX_VALUE;
+    private long headCreatedAt = Long.MAX_VALUE;
+    private int headId = Integer.MAX_VALUE;
+    // Khóa của dòng cuối cửa sổ, trang sau đọc tiếp từ đây
+    private long lastDate = Long.MAX_VALUE;
+    private long lastCreatedAt = Long.MAX_VALUE;
+    private int lastId = Integer.MAX_VALUE;
+    // Tìm kiếm: vị trí của dòng đầu cửa sổ trong kết quả đã xếp hạng
+    private int windowOffset;
+    private boolean endReached;
+    // Số dòng của lần đọc đầu tiên (bằng cửa sổ cũ khi là pager tải lại)
+    private int firstPageSize = PAGE_SIZE;
+
+    public ExpensePager(ExpenseDao expenseDao, int userId, int categoryId, long startDate, long endDate) {
+        this(expenseDao, null, null, userId, categoryId, startDate, endDate);
+    }
+
+    private ExpensePager(ExpenseDao expenseDao, ExpenseSearchDao searchDao, String matchQuery,
+                         int userId, int categoryId, long startDate, long endDate) {
+        this.expenseDao = expenseDao;
+        this.searchDao = searchDao;
+        this.matchQuery = matchQuery;
+        this.userId = userId;
+        this.categoryId = categoryId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    // matchQuery là biểu thức đã qua FtsQuery.toMatchQuery
+    public static ExpensePager forSearch(ExpenseSearchDao searchDao, String matchQuery,
+                                         int userId, int categoryId, long startDate, long endDate) {
+        return new ExpensePager(null, searchDao, matchQuery, userId, categoryId, startDate, endDate);
+    }
+
+    // Cùng bộ lọc, đọc lại từ đầu cửa sổ hiện tại với đúng số dòng của cửa sổ (tối đa MAX_PAGES trang)
+    public synchronized ExpensePager reload() {
+        ExpensePager next = new ExpensePager(expenseDao, searchDao, matchQuery, userId, categoryId, startDate, endDate);
+        next.headDate = next.lastDate = headDate;
+        next.headCreatedAt = next.lastCreatedAt = headCreatedAt;
+        next.headId = next.lastId = headId;
+        next.windowOffset = windowOffset;
+        next.firstPageSize = Math.max(PAGE_SIZE, windowSize);
+        return next;
+    }
+
+    public synchronized boolean hasMore() {
+        return !endReached;
+    }
+
+    public synchronized boolean hasPrevious() {
+        return matchQuery != null ? windowOffset > 0 : headId != Integer.MAX_VALUE;
+    }
+
+    // Các dòng của cửa sổ theo thứ tự hiển thị (bản sao, tối đa MAX_PAGES * PAGE_SIZE dòng)
+    public synchronized List<Expense> window() {
+        List<Expense> rows = new ArrayList<>(windowSize);
+        for (List<Expense> page : pages) {
+            rows.addAll(page);
+        }
+        return rows;
+    }
+
+    public synchronized List<Expense> loadNextPage() {
+        if (endReached) {
+            return Collections.emptyList();
+        }
+        int limit = pages.isEmpty() ? firstPageSize : PAGE_SIZE;
+        List<Expense> rows;
+        if (matchQuery != null) {
+            rows = searchDao.search(matchQuery, userId, categoryId, startDate, endDate,
+                    limit, windowOffset + windowSize);
+        } else {
+            rows = categoryId == ALL_CATEGORIES ?
+                    expenseDao.getPageByDateRange(userId, startDate, endDate,
+                            lastDate, lastCreatedAt, lastId, limit) :
+                    expenseDao.getPageByCategoryAndDateRange(userId, categoryId, startDate, endDate,
+                            lastDate, lastCreatedAt, lastId, limit);
+        }
+        endReached = rows.size() < limit;
+        // Lần đọc lại cửa sổ được chia lại thành từng trang để vẫn bỏ được từng trang một
+        for (int start = 0; start < rows.size(); start += PAGE_SIZE) {
+            pages.addLast(rows.subList(start, Math.min(start + PAGE_SIZE, rows.size())));
+        }
+        windowSize += rows.size();
+        if (!rows.isEmpty()) {
+            setLast(rows.get(rows.size() - 1));
+        }
+        while (pages.size() > MAX_PAGES) {
+            List<Expense> dropped = pages.removeFirst();
+            windowSize -= dropped.size();
+            windowOffset += dropped.size();
+            Expense head = dropped.get(dropped.size() - 1);
+            headDate = head.getDate();
+            headCreatedAt = head.getCreatedAt();
+            headId = head.getId();
+        }
+        return rows;
+    }
+
+    // Đọc lại trang ngay trước cửa sổ (khi cuộn lên) và bỏ trang cuối nếu cửa sổ vượt MAX_PAGES
+    public synchronized List<Expense> loadPreviousPage() {
+        if (!hasPrevious()) {
+            return Collections.emptyList();
+        }
+        List<Expense> page;
+        if (matchQuery != null) {
+            int start = Math.max(0, windowOffset - PAGE_SIZE);
+            page = searchDao.search(matchQuery, userId, categoryId, startDate, endDate,
+                    windowOffset - start, start);
+            windowOffset = start;
+        } else {
+            // Đọc tăng dần từ dòng đầu cửa sổ; dòng thứ PAGE_SIZE + 1 (nếu có) thành dòng ngay trước cửa sổ mới.
+            // Cửa sổ rỗng (các dòng vừa bị xóa hết) thì đọc từ chính dòng head: id - 1 để lấy cả dòng đó
+            Expense first = pages.isEmpty() ? null : pages.peekFirst().get(0);
+            long firstDate = first != null ? first.getDate() : headDate;
+            long firstCreatedAt = first != null ? first.getCreatedAt() : headCreatedAt;
+            int firstId = first != null ? first.getId() : headId - 1;
+            List<Expense> before = categoryId == ALL_CATEGORIES ?
+                    expenseDao.getPreviousPageByDateRange(userId, startDate, endDate,
+                            firstDate, firstCreatedAt, firstId, PAGE_SIZE + 1) :
+                    expenseDao.getPreviousPageByCategoryAndDateRange(userId, categoryId, startDate, endDate,
+                            firstDate, firstCreatedAt, firstId, PAGE_SIZE + 1);
+            if (before.size() > PAGE_SIZE) {
+                Expense head = before.get(PAGE_SIZE);
+                headDate = head.getDate();
+                headCreatedAt = head.getCreatedAt();
+                headId = head.getId();
+                before = before.subList(0, PAGE_SIZE);
+            } else {
+                headDate = Long.MAX_VALUE;
+                headCreatedAt = Long.MAX_VALUE;
+                headId = Integer.MAX_VALUE;
+            }
+            page = new ArrayList<>(before);
+            Collections.reverse(page);
+        }
+        if (page.isEmpty()) {
+            return page;
+        }
+        pages.addFirst(page);
+        windowSize += page.size();
+        if (pages.size() == 1) {
+            setLast(page.get(page.size() - 1));
+        }
+        while (pages.size() > MAX_PAGES) {
+            windowSize -= pages.removeLast().size();
+            List<Expense> tail = pages.peekLast();
+            setLast(tail.get(tail.size() - 1));
+            endReached = false;
+        }
+        return page;
+    }
+
+    private void setLast(Expense last) {
+        lastDate = last.getDate();
+        lastCreatedAt = last.getCreatedAt();
+        lastId = last.getId();
+    }
+}
@@ -0,0 +1,126 @@
+package com.khanghv.campusexpense.data;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Locale;
+
+/**
+ * Ghi một dòng xuất (CSV hoặc NDJSON) vào StringBuilder dùng lại của ExpenseExporter.
+ * Đơn vị tiền, tỷ giá và múi giờ cố định cho cả lần xuất; không phụ thuộc Android nên kiểm thử được trên JVM.
+ */
+final class ExportLineWriter {
+
+    static final String CSV_HEADER = "date,amount,category,description\n";
+
+    private final boolean vnd;
+    private final double rate;
+    private final DecimalFormat usdFormat = new DecimalFormat("0.##", DecimalFormatSymbols.getInstance(Locale.US));
+    private final ZoneId zone;
+    // Dữ liệu được sắp theo ngày nên chuỗi yyyy-MM-dd của ngày trước gần như luôn dùng lại được
+    private long dayStart = Long.MAX_VALUE;
+    private long dayEnd = Long.MIN_VALUE;
+    private String dayText = "";
+
+    // Tỷ giá 0 thì giữ nguyên giá trị, giống CurrencyManager.fromBaseCurrency
+    ExportLineWriter(boolean vnd, double usdToVndRate, ZoneId zone) {
+        this.vnd = vnd;
+        this.rate = usdToVndRate == 0 ? 1 : usdToVndRate;
+        this.zone = zone;
+    }
+
+    void appendCsv(StringBuilder out, long date, long amount, String category, String description) {
+        appendDate(out, date);
+        out.append(',');
+        appendAmount(out, amount);
+        out.append(',');
+        appendCsvField(out, category);
+        out.append(',');
+        appendCsvField(out, description);
+        out.append('\n');
+    }
+
+    void appendJson(StringBuilder out, long date, long amount, String category, String description) {
+        out.append("{\"date\":\"");
+        appendDate(out, date);
+        out.append("\",\"amount\":");
+        appendAmount(out, amount);
+        out.append(",\"category\":");
+        appendJsonString(out, category);
+        out.append(",\"description\":");
+        appendJsonString(out, description);
+        out.append("}\n");
+    }
+
+    private void appendAmount(StringBuilder out, long minorUnits) {
+        if (vnd) {
+            out.append(minorUnits);
+        } else {
+            out.append(usdFormat.format(minorUnits / rate));
+        }
+    }
+
+    private void appendDate(StringBuilder out, long millis) {
+        if (millis < dayStart || millis >= dayEnd) {
+            LocalDate day = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+            dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            dayText = day.toString();
+        }
+        out.append(dayText);
+    }
+
+    // readLine của ExpenseCsvImporter coi \r, \n và \r\n đều là xuống dòng rồi ghép lại bằng \n,
+    // nên ghi sẵn mọi kiểu xuống dòng thành \n để nhập lại ra đúng chuỗi đã xuất
+    private static void appendCsvField(StringBuilder out, String value) {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            } else if (c == '\r') {
+                if (i + 1 < value.length() && value.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                c = '\n';
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format(Locale.US, "\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
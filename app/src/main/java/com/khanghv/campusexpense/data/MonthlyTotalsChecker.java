@@ -0,0 +1,91 @@
+package com.khanghv.campusexpense.data;
+
+import com.khanghv.campusexpense.data.database.AppDatabase;
+import com.khanghv.campusexpense.data.database.MonthlyTotalsDao;
+import com.khanghv.campusexpense.data.model.Money;
+import com.khanghv.campusexpense.data.model.MonthlyCategoryTotal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * So sánh bảng monthly_category_totals với kết quả tính lại toàn bộ từ expenses.
+ * Không được gọi trên main thread.
+ */
+public class MonthlyTotalsChecker {
+
+    private final AppDatabase database;
+    private final MonthlyTotalsDao monthlyTotalsDao;
+
+    public MonthlyTotalsChecker(AppDatabase database) {
+        this.database = database;
+        this.monthlyTotalsDao = database.monthlyTotalsDao();
+    }
+
+    public static class Mismatch {
+        public final int userId;
+        public final int yearMonth;
+        public final int categoryId;
+        public final Money expectedTotal;
+        public final Money actualTotal;
+        public final int expectedCount;
+        public final int actualCount;
+
+        Mismatch(int userId, int yearMonth, int categoryId,
+                 Money expectedTotal, Money actualTotal, int expectedCount, int actualCount) {
+            this.userId = userId;
+            this.yearMonth = yearMonth;
+            this.categoryId = categoryId;
+            this.expectedTotal = expectedTotal;
+            this.actualTotal = actualTotal;
+            this.expectedCount = expectedCount;
+            this.actualCount = actualCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "user=%d month=%d category=%d total %s/%s count %d/%d",
+                    userId, yearMonth, categoryId, expectedTotal, actualTotal, expectedCount, actualCount);
+        }
+    }
+
+    public List<Mismatch> findMismatches() {
+        return database.runInTransaction(() -> {
+            Map<String, MonthlyCategoryTotal> actual = new HashMap<>();
+            for (MonthlyCategoryTotal total : monthlyTotalsDao.getAll()) {
+                actual.put(keyOf(total), total);
+            }
+
+            List<Mismatch> mismatches = new ArrayList<>();
+            for (MonthlyCategoryTotal expected : monthlyTotalsDao.recomputeAll()) {
+                MonthlyCategoryTotal stored = actual.remove(keyOf(expected));
+                Money storedTotal = stored != null ? stored.getTotal() : Money.ZERO;
+                int storedCount = stored != null ? stored.getCount() : 0;
+                if (storedCount != expected.getCount()
+                        || !storedTotal.equals(expected.getTotal())) {
+                    mismatches.add(new Mismatch(expected.getUserId(), expected.getYearMonth(), expected.getCategoryId(),
+                            expected.getTotal(), storedTotal, expected.getCount(), storedCount));
+                }
+            }
+            // Dòng còn lại trong bảng tổng hợp nhưng không còn expense nào tương ứng
+            for (MonthlyCategoryTotal orphan : actual.values()) {
+                mismatches.add(new Mismatch(orphan.getUserId(), orphan.getYearMonth(), orphan.getCategoryId(),
+                        Money.ZERO, orphan.getTotal(), 0, orphan.getCount()));
+            }
+            return mismatches;
+        });
+    }
+
+    public void repair() {
+        monthlyTotalsDao.rebuild();
+        // Không biết trước phạm vi nào bị lệch nên báo cho mọi màn hình đọc tổng theo tháng
+        ChangeBus.publish(ChangeBus.Scope.expenses(ChangeBus.ANY, ChangeBus.ANY, ChangeBus.ANY));
+    }
+
+    private static String keyOf(MonthlyCategoryTotal total) {
+        return total.getUserId() + ":" + total.getYearMonth() + ":" + total.getCategoryId();
+    }
+}
@@ -0,0 +1,77 @@
+package com.khanghv.campusexpense.data;
+
+import androidx.lifecycle.LiveData;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LiveData chạy query trên luồng đọc của DatabaseDispatcher và chỉ chạy lại khi ChangeBus báo thay đổi
+ * giao với các phạm vi đã khai báo. Thay đổi xảy ra lúc không có observer active được gộp lại
+ * và tải một lần khi active trở lại; nhiều thay đổi trong lúc đang tải cũng chỉ gây thêm một lần tải.
+ */
+class ScopedLiveData<T> extends LiveData<T> {
+
+    private final DatabaseDispatcher.Work<T> query;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    ScopedLiveData(DatabaseDispatcher.Work<T> query, ChangeBus.Scope... scopes) {
+        this.query = query;
+        WeakListener listener = new WeakListener(this);
+        listener.subscription = ChangeBus.subscribe(listener, scopes);
+    }
+
+    @Override
+    protected void onActive() {
+        if (dirty.get()) {
+            load();
+        }
+    }
+
+    private void onChanged() {
+        dirty.set(true);
+        if (hasActiveObservers()) {
+            load();
+        }
+    }
+
+    private void load() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        DatabaseDispatcher.readExecutor().execute(() -> {
+            try {
+                while (dirty.getAndSet(false)) {
+                    postValue(query.run());
+                }
+            } finally {
+                loading.set(false);
+            }
+            // Thay đổi đến đúng lúc vòng lặp vừa kết thúc
+            if (dirty.get() && hasActiveObservers()) {
+                load();
+            }
+        });
+    }
+
+    // Bus giữ listener suốt đời ứng dụng; giữ LiveData qua WeakReference để màn hình đã đóng không bị rò rỉ
+    private static final class WeakListener implements ChangeBus.Listener {
+        private final WeakReference<ScopedLiveData<?>> target;
+        private volatile ChangeBus.Subscription subscription;
+
+        WeakListener(ScopedLiveData<?> liveData) {
+            target = new WeakReference<>(liveData);
+        }
+
+        @Override
+        public void onChanged() {
+            ScopedLiveData<?> liveData = target.get();
+            if (liveData != null) {
+                liveData.onChanged();
+            } else if (subscription != null) {
+                subscription.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.khanghv.campusexpense.data;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LiveData chạy query trên luồng đọc của DatabaseDispatcher và chạy lại khi InvalidationTracker báo một trong
+ * các bảng đã khai báo thay đổi. Chỉ dùng API công khai của Room (InvalidationTracker.Observer):
+ * observer được đăng ký khi LiveData có observer đầu tiên và gỡ khi observer cuối cùng bị gỡ
+ * (view lifecycle bị hủy hoặc switchMap đổi nguồn). Giống ScopedLiveData, thay đổi lúc không active
+ * được gộp lại và tải một lần khi active trở lại.
+ */
+public final class TableLiveData<T> extends LiveData<T> {
+
+    private final InvalidationTracker tracker;
+    private final InvalidationTracker.Observer tableObserver;
+    private final DatabaseDispatcher.Work<T> query;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final AtomicBoolean loading = new AtomicBoolean();
+    // Chỉ đọc/ghi trên main thread
+    private boolean registered;
+
+    public TableLiveData(RoomDatabase database, String[] tables, DatabaseDispatcher.Work<T> query) {
+        this.tracker = database.getInvalidationTracker();
+        this.query = query;
+        this.tableObserver = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changedTables) {
+                onChanged();
+            }
+        };
+    }
+
+    @Override
+    protected void onActive() {
+        if (!registered) {
+            registered = true;
+            // addObserver/removeObserver có thể đồng bộ trigger của Room nên không gọi trên main thread;
+            // chạy trên luồng ghi (một luồng) để thứ tự đăng ký/gỡ luôn đúng, tải lần đầu sau khi đã đăng ký
+            DatabaseDispatcher.writeExecutor().execute(() -> {
+                tracker.addObserver(tableObserver);
+                load();
+            });
+        } else if (dirty.get()) {
+            load();
+        }
+    }
+
+    @Override
+    public void removeObserver(@NonNull Observer<? super T> observer) {
+        super.removeObserver(observer);
+        if (registered && !hasObservers()) {
+            registered = false;
+            // Không còn ai theo dõi thì lần gắn lại phải đọc lại từ đầu
+            dirty.set(true);
+            DatabaseDispatcher.writeExecutor().execute(() -> tracker.removeObserver(tableObserver));
+        }
+    }
+
+    private void onChanged() {
+        dirty.set(true);
+        if (hasActiveObservers()) {
+            load();
+        }
+    }
+
+    private void load() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        DatabaseDispatcher.readExecutor().execute(() -> {
+            try {
+                while (dirty.getAndSet(false)) {
+                    postValue(query.run());
+                }
+            } finally {
+                loading.set(false);
+            }
+            // Thay đổi đến đúng lúc vòng lặp vừa kết thúc
+            if (dirty.get() && hasActiveObservers()) {
+                load();
+            }
+        });
+    }
+}
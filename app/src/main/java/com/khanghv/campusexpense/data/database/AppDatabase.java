@@ -8,14 +8,20 @@ import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
 
+import com.khanghv.campusexpense.BuildConfig;
+import com.khanghv.campusexpense.data.DatabaseDispatcher;
 import com.khanghv.campusexpense.data.model.Budget;
 import com.khanghv.campusexpense.data.model.Category;
 import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.ExpenseFts;
+import com.khanghv.campusexpense.data.model.MonthlyCategoryTotal;
 import com.khanghv.campusexpense.data.model.User;
 
 
-@Database(entities = {User.class, Category.class, Budget.class, Expense.class}, version =5, exportSchema = false)
+@Database(entities = {User.class, Category.class, Budget.class, Expense.class, MonthlyCategoryTotal.class, ExpenseFts.class}, version = 12, exportSchema = false)
+@TypeConverters(MoneyConverter.class)
 public abstract class AppDatabase extends RoomDatabase {
 private static AppDatabase instance;
 public static final String DATABASE_NAME = "app_database";
@@ -25,32 +31,170 @@ public abstract UserDao userDao ();
 public abstract CategoryDao categoryDao();
 public abstract BudgetDao budgetDao();
 public abstract ExpenseDao expenseDao();
+public abstract MonthlyTotalsDao monthlyTotalsDao();
+public abstract ExpenseSearchDao expenseSearchDao();
 
 
+// Các migration theo thứ tự version; tách khỏi getInstance để test dựng được database riêng qua đúng các bước này
+static Migration[] migrations() {
+    Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS category_pairs (oldCategoryId INTEGER, userId INTEGER, name TEXT)");
+            db.execSQL("INSERT INTO category_pairs(oldCategoryId,userId,name) SELECT c.id, b.userId, c.name FROM categories c JOIN budgets b ON b.categoryId = c.id");
+            db.execSQL("INSERT INTO category_pairs(oldCategoryId,userId,name) SELECT c.id, e.userId, c.name FROM categories c JOIN expenses e ON e.categoryId = c.id");
+            db.execSQL("CREATE TABLE IF NOT EXISTS categories_user (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, name TEXT, userId INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO categories_user(name,userId) SELECT DISTINCT name,userId FROM category_pairs");
+            db.execSQL("CREATE TABLE IF NOT EXISTS cat_map (oldCategoryId INTEGER, userId INTEGER, newCategoryId INTEGER)");
+            db.execSQL("INSERT INTO cat_map(oldCategoryId,userId,newCategoryId) SELECT DISTINCT p.oldCategoryId, p.userId, cu.id FROM category_pairs p JOIN categories_user cu ON cu.name = p.name AND cu.userId = p.userId");
+            db.execSQL("UPDATE budgets SET categoryId = (SELECT newCategoryId FROM cat_map WHERE oldCategoryId = budgets.categoryId AND userId = budgets.userId) WHERE EXISTS (SELECT 1 FROM cat_map WHERE oldCategoryId = budgets.categoryId AND userId = budgets.userId)");
+            db.execSQL("UPDATE expenses SET categoryId = (SELECT newCategoryId FROM cat_map WHERE oldCategoryId = expenses.categoryId AND userId = expenses.userId) WHERE EXISTS (SELECT 1 FROM cat_map WHERE oldCategoryId = expenses.categoryId AND userId = expenses.userId)");
+            db.execSQL("DROP TABLE categories");
+            db.execSQL("ALTER TABLE categories_user RENAME TO categories");
+            db.execSQL("DROP TABLE category_pairs");
+            db.execSQL("DROP TABLE cat_map");
+        }
+    };
+    // Index phủ cho các truy vấn theo khoảng ngày (ORDER BY date DESC, createdAt DESC)
+    Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_date_createdAt` ON `expenses` (`userId`, `date`, `createdAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_categoryId_date_createdAt` ON `expenses` (`userId`, `categoryId`, `date`, `createdAt`)");
+        }
+    };
+    // Bảng tổng hợp theo tháng/category, giữ đúng bằng trigger và nạp lại từ dữ liệu cũ
+    Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL(MonthlyTotalsSchema.CREATE_TABLE);
+            MonthlyTotalsSchema.rebuildFromDate(db);
+            MonthlyTotalsSchema.createDateTriggers(db);
+        }
+    };
+    // Tiền chuyển từ REAL sang INTEGER (đồng). SQLite không đổi được kiểu cột nên phải dựng lại bảng;
+    // DROP TABLE xóa luôn trigger nên tạo lại trigger và nạp lại bảng tổng hợp ở cuối
+    Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            MonthlyTotalsSchema.dropTriggers(db);
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `expenses_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `userId` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, `amount` INTEGER NOT NULL, `description` TEXT, `date` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO expenses_new(id,userId,categoryId,amount,description,date,createdAt) SELECT id, userId, categoryId, CAST(ROUND(amount) AS INTEGER), description, date, createdAt FROM expenses");
+            db.execSQL("DROP TABLE expenses");
+            db.execSQL("ALTER TABLE expenses_new RENAME TO expenses");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_date_createdAt` ON `expenses` (`userId`, `date`, `createdAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_categoryId_date_createdAt` ON `expenses` (`userId`, `categoryId`, `date`, `createdAt`)");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `budgets_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `userId` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, `amount` INTEGER NOT NULL, `period` TEXT, `createdAt` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO budgets_new(id,userId,categoryId,amount,period,createdAt) SELECT id, userId, categoryId, CAST(ROUND(amount) AS INTEGER), period, createdAt FROM budgets");
+            db.execSQL("DROP TABLE budgets");
+            db.execSQL("ALTER TABLE budgets_new RENAME TO budgets");
+
+            db.execSQL("DROP TABLE IF EXISTS monthly_category_totals");
+            db.execSQL(MonthlyTotalsSchema.CREATE_TABLE);
+            MonthlyTotalsSchema.rebuildFromDate(db);
+            MonthlyTotalsSchema.createDateTriggers(db);
+        }
+    };
+    // Index full-text cho description. Trigger đồng bộ do Room tự tạo lại sau mỗi lần migrate
+    Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `expenses_fts` USING FTS4(`description` TEXT, tokenize=unicode61, content=`expenses`)");
+            db.execSQL("INSERT INTO expenses_fts(expenses_fts) VALUES('rebuild')");
+        }
+    };
+    // Khóa ngoại CASCADE từ expenses/budgets sang categories. Trước khi dựng lại bảng, sửa các dòng mồ côi:
+    // expense trỏ tới category không tồn tại (hoặc của user khác) chuyển sang "Uncategorized" của chính user đó,
+    // budget mồ côi thì xóa vì không còn ý nghĩa
+    Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            MonthlyTotalsSchema.dropTriggers(db);
+
+            db.execSQL("INSERT INTO categories(name,userId) SELECT DISTINCT 'Uncategorized', e.userId FROM expenses e WHERE NOT EXISTS (SELECT 1 FROM categories c WHERE c.id = e.categoryId AND c.userId = e.userId) AND NOT EXISTS (SELECT 1 FROM categories c2 WHERE c2.userId = e.userId AND c2.name = 'Uncategorized')");
+            db.execSQL("UPDATE expenses SET categoryId = (SELECT MIN(c.id) FROM categories c WHERE c.userId = expenses.userId AND c.name = 'Uncategorized') WHERE NOT EXISTS (SELECT 1 FROM categories c WHERE c.id = expenses.categoryId AND c.userId = expenses.userId)");
+            db.execSQL("DELETE FROM budgets WHERE NOT EXISTS (SELECT 1 FROM categories c WHERE c.id = budgets.categoryId AND c.userId = budgets.userId)");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `expenses_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `userId` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, `amount` INTEGER NOT NULL, `description` TEXT, `date` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL, FOREIGN KEY(`categoryId`) REFERENCES `categories`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("INSERT INTO expenses_new(id,userId,categoryId,amount,description,date,createdAt) SELECT id, userId, categoryId, amount, description, date, createdAt FROM expenses");
+            db.execSQL("DROP TABLE expenses");
+            db.execSQL("ALTER TABLE expenses_new RENAME TO expenses");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_date_createdAt` ON `expenses` (`userId`, `date`, `createdAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_categoryId_date_createdAt` ON `expenses` (`userId`, `categoryId`, `date`, `createdAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_categoryId` ON `expenses` (`categoryId`)");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `budgets_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `userId` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, `amount` INTEGER NOT NULL, `period` TEXT, `createdAt` INTEGER NOT NULL, FOREIGN KEY(`categoryId`) REFERENCES `categories`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("INSERT INTO budgets_new(id,userId,categoryId,amount,period,createdAt) SELECT id, userId, categoryId, amount, period, createdAt FROM budgets");
+            db.execSQL("DROP TABLE budgets");
+            db.execSQL("ALTER TABLE budgets_new RENAME TO budgets");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_budgets_categoryId` ON `budgets` (`categoryId`)");
+
+            // id giữ nguyên nên expenses_fts vẫn khớp; chỉ categoryId đổi nên nạp lại bảng tổng hợp
+            MonthlyTotalsSchema.rebuildFromDate(db);
+            MonthlyTotalsSchema.createDateTriggers(db);
+        }
+    };
+    // Cột epochDay/yearMonth tính sẵn theo giờ địa phương để nhóm theo ngày/tháng bằng số nguyên.
+    // ADD COLUMN không dựng lại bảng nên FK, index cũ và expenses_fts giữ nguyên; UPDATE chỉ đụng hai cột mới
+    // nên trigger tổng hợp (theo dõi date) không chạy, sau đó mới chuyển trigger sang đọc yearMonth
+    Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `expenses` ADD COLUMN `epochDay` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `expenses` ADD COLUMN `yearMonth` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE expenses SET epochDay = " + MonthlyTotalsSchema.epochDayOf("date")
+                    + ", yearMonth = " + MonthlyTotalsSchema.yearMonthOf("date"));
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_yearMonth_categoryId` ON `expenses` (`userId`, `yearMonth`, `categoryId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_epochDay` ON `expenses` (`userId`, `epochDay`)");
+
+            // Bảng tổng hợp đã được tính bằng đúng biểu thức tháng này nên không cần nạp lại
+            MonthlyTotalsSchema.dropTriggers(db);
+            MonthlyTotalsSchema.createTriggers(db);
+        }
+    };
+    // Các truy vấn categories/budgets theo user không còn quét cả bảng rồi sắp xếp tạm
+    Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_categories_userId_name` ON `categories` (`userId`, `name`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_budgets_userId_createdAt` ON `budgets` (`userId`, `createdAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_budgets_userId_categoryId_createdAt` ON `budgets` (`userId`, `categoryId`, `createdAt`)");
+        }
+    };
+    return new Migration[]{MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10,
+            MIGRATION_10_11, MIGRATION_11_12};
+}
+
 public static synchronized AppDatabase getInstance(Context context){
     if (instance == null) {
-        Migration MIGRATION_4_5 = new Migration(4, 5) {
-            @Override
-            public void migrate(SupportSQLiteDatabase db) {
-                db.execSQL("CREATE TABLE IF NOT EXISTS category_pairs (oldCategoryId INTEGER, userId INTEGER, name TEXT)");
-                db.execSQL("INSERT INTO category_pairs(oldCategoryId,userId,name) SELECT c.id, b.userId, c.name FROM categories c JOIN budgets b ON b.categoryId = c.id");
-                db.execSQL("INSERT INTO category_pairs(oldCategoryId,userId,name) SELECT c.id, e.userId, c.name FROM categories c JOIN expenses e ON e.categoryId = c.id");
-                db.execSQL("CREATE TABLE IF NOT EXISTS categories_user (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, name TEXT, userId INTEGER NOT NULL)");
-                db.execSQL("INSERT INTO categories_user(name,userId) SELECT DISTINCT name,userId FROM category_pairs");
-                db.execSQL("CREATE TABLE IF NOT EXISTS cat_map (oldCategoryId INTEGER, userId INTEGER, newCategoryId INTEGER)");
-                db.execSQL("INSERT INTO cat_map(oldCategoryId,userId,newCategoryId) SELECT DISTINCT p.oldCategoryId, p.userId, cu.id FROM category_pairs p JOIN categories_user cu ON cu.name = p.name AND cu.userId = p.userId");
-                db.execSQL("UPDATE budgets SET categoryId = (SELECT newCategoryId FROM cat_map WHERE oldCategoryId = budgets.categoryId AND userId = budgets.userId) WHERE EXISTS (SELECT 1 FROM cat_map WHERE oldCategoryId = budgets.categoryId AND userId = budgets.userId)");
-                db.execSQL("UPDATE expenses SET categoryId = (SELECT newCategoryId FROM cat_map WHERE oldCategoryId = expenses.categoryId AND userId = expenses.userId) WHERE EXISTS (SELECT 1 FROM cat_map WHERE oldCategoryId = expenses.categoryId AND userId = expenses.userId)");
-                db.execSQL("DROP TABLE categories");
-                db.execSQL("ALTER TABLE categories_user RENAME TO categories");
-                db.execSQL("DROP TABLE category_pairs");
-                db.execSQL("DROP TABLE cat_map");
-            }
-        };
-        instance = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DATABASE_NAME)
-                .allowMainThreadQueries()
-                .addMigrations(MIGRATION_4_5)
-                .build();
+        SqliteTuningProfile tuning = SqliteTuningProfile.fromName(BuildConfig.SQLITE_PROFILE);
+        RoomDatabase.Builder<AppDatabase> builder = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DATABASE_NAME)
+                .setJournalMode(tuning.getJournalMode())
+                .setQueryExecutor(DatabaseDispatcher.readExecutor())
+                .setTransactionExecutor(DatabaseDispatcher.writeExecutor())
+                .addMigrations(migrations())
+                .addCallback(new Callback() {
+                    @Override
+                    public void onCreate(SupportSQLiteDatabase db) {
+                        // Trigger không nằm trong schema Room nên phải tạo thủ công khi cài mới
+                        MonthlyTotalsSchema.createTriggers(db);
+                    }
+
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        tuning.apply(db);
+                        if (BuildConfig.DEBUG) {
+                            tuning.logEffective(db);
+                        }
+                    }
+                });
+        if (BuildConfig.DEBUG) {
+            // Đếm trên chính luồng chạy câu lệnh, không cần executor riêng
+            builder.setQueryCallback(QueryCounter::onQuery, Runnable::run);
+        }
+        instance = builder.build();
     }
     return instance;
 }
@@ -1,9 +1,11 @@
 package com.khanghv.campusexpense.data.database;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.khanghv.campusexpense.data.model.Category;
@@ -15,15 +17,27 @@ public interface CategoryDao {
     @Insert
     long insert(Category category);
 
+    @Insert
+    List<Long> insertAll(List<Category> categories);
+
     @Update
     void update(Category category);
 
     @Delete
     void delete(Category category);
 
+    // Một câu lệnh, một commit: expenses và budgets của category bị xóa theo ON DELETE CASCADE,
+    // trigger tổng hợp tháng và FTS chạy trong cùng transaction
+    @Transaction
+    @Query("DELETE FROM categories WHERE id = :categoryId AND userId = :userId")
+    int deleteCategoryForUser(int categoryId, int userId);
+
     @Query("SELECT * FROM categories WHERE userId = :userId ORDER BY name ASC")
     List<Category> getAllByUser(int userId);
 
+    @Query("SELECT * FROM categories WHERE userId = :userId ORDER BY name ASC")
+    LiveData<List<Category>> getAllByUserLiveData(int userId);
+
     @Query("SELECT * FROM categories WHERE id = :id LIMIT 1")
     Category getById(int id);
 }
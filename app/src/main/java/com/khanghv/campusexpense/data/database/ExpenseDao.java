@@ -1,6 +1,7 @@
 package com.khanghv.campusexpense.data.database;
 
-import androidx.lifecycle.LiveData;
+import android.database.Cursor;
+
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -15,42 +16,57 @@ public interface ExpenseDao {
     @Insert
     long insert(Expense expense);
 
+    // Dùng cho nhập hàng loạt: một câu INSERT được biên dịch một lần cho cả danh sách
+    @Insert
+    void insertAll(List<Expense> expenses);
+
     @Update
     void update(Expense expense);
 
     @Delete
     void delete(Expense expense);
 
-    @Query("SELECT * FROM expenses WHERE userId = :userId ORDER BY date DESC, createdAt DESC")
-    List<Expense> getAllExpensesByUser(int userId);
-
-    @Query("SELECT * FROM expenses WHERE userId = :userId AND categoryId = :categoryId ORDER BY date DESC, createdAt DESC")
-    List<Expense> getExpensesByCategoryAndUser(int userId, int categoryId);
-
-    @Query("SELECT * FROM expenses WHERE userId = :userId AND date >= :startDate AND date <= :endDate ORDER BY date DESC, createdAt DESC")
-    List<Expense> getExpensesByDateRange(int userId, long startDate, long endDate);
-
     @Query("SELECT * FROM expenses WHERE userId = :userId AND categoryId = :categoryId AND date >= :startDate AND date <= :endDate ORDER BY date DESC, createdAt DESC")
     List<Expense> getExpensesByCategoryAndDateRange(int userId, int categoryId, long startDate, long endDate);
 
-    @Query("SELECT SUM(amount) FROM expenses WHERE userId = :userId AND date >= :startDate AND date <= :endDate")
-    Double getTotalExpensesByDateRange(int userId, long startDate, long endDate);
-
-    @Query("SELECT SUM(amount) FROM expenses WHERE userId = :userId AND date >= :startDate AND date <= :endDate")
-    LiveData<Double> getTotalSpentForMonth(long startDate, long endDate, int userId);
-
-    @Query("SELECT SUM(amount) FROM expenses WHERE userId = :userId AND categoryId = :categoryId AND date >= :startDate AND date <= :endDate")
-    Double getTotalExpensesByCategoryAndDateRange(int userId, int categoryId, long startDate, long endDate);
-
-    @Query("SELECT * FROM expenses WHERE id = :id")
-    Expense getExpenseById(int id);
-
-    @Query("SELECT COUNT(*) FROM expenses WHERE userId = :userId AND date >= :startDate AND date <= :endDate")
-    int getExpenseCountByDateRange(int userId, long startDate, long endDate);
-
-    @Query("SELECT COUNT(*) FROM expenses WHERE userId = :userId AND date >= :startDate AND date <= :endDate")
-    LiveData<Integer> getTransactionCountForMonth(long startDate, long endDate, int userId);
-
-    @Query("DELETE FROM expenses WHERE categoryId = :categoryId")
-    void deleteExpensesByCategoryId(int categoryId);
+    // Keyset paging theo (date, createdAt, id) giảm dần: trang sau bắt đầu ngay sau dòng cuối của trang trước.
+    // Cận trên gộp thành một MIN(:endDate, :afterDate) để SQLite seek thẳng vào index thay vì lọc từng dòng;
+    // hai cận "<=" riêng làm planner bỏ index (userId, categoryId, date, createdAt) ở trang theo category.
+    @Query("SELECT * FROM expenses WHERE userId = :userId AND date >= :startDate " +
+            "AND date <= MIN(:endDate, :afterDate) AND (date < :afterDate OR (date = :afterDate " +
+            "AND (createdAt < :afterCreatedAt OR (createdAt = :afterCreatedAt AND id < :afterId)))) " +
+            "ORDER BY date DESC, createdAt DESC, id DESC LIMIT :limit")
+    List<Expense> getPageByDateRange(int userId, long startDate, long endDate,
+                                     long afterDate, long afterCreatedAt, int afterId, int limit);
+
+    @Query("SELECT * FROM expenses WHERE userId = :userId AND categoryId = :categoryId " +
+            "AND date >= :startDate AND date <= MIN(:endDate, :afterDate) " +
+            "AND (date < :afterDate OR (date = :afterDate " +
+            "AND (createdAt < :afterCreatedAt OR (createdAt = :afterCreatedAt AND id < :afterId)))) " +
+            "ORDER BY date DESC, createdAt DESC, id DESC LIMIT :limit")
+    List<Expense> getPageByCategoryAndDateRange(int userId, int categoryId, long startDate, long endDate,
+                                                long afterDate, long afterCreatedAt, int afterId, int limit);
+
+    // Trang ngay trước cửa sổ của ExpensePager: các dòng đứng trước (date, createdAt, id) của dòng đầu cửa sổ,
+    // đọc tăng dần để seek từ đúng dòng đó trên cùng index; ExpensePager đảo lại thứ tự
+    @Query("SELECT * FROM expenses WHERE userId = :userId AND date <= :endDate " +
+            "AND date >= MAX(:startDate, :firstDate) AND (date > :firstDate OR (date = :firstDate " +
+            "AND (createdAt > :firstCreatedAt OR (createdAt = :firstCreatedAt AND id > :firstId)))) " +
+            "ORDER BY date ASC, createdAt ASC, id ASC LIMIT :limit")
+    List<Expense> getPreviousPageByDateRange(int userId, long startDate, long endDate,
+                                             long firstDate, long firstCreatedAt, int firstId, int limit);
+
+    @Query("SELECT * FROM expenses WHERE userId = :userId AND categoryId = :categoryId " +
+            "AND date <= :endDate AND date >= MAX(:startDate, :firstDate) " +
+            "AND (date > :firstDate OR (date = :firstDate " +
+            "AND (createdAt > :firstCreatedAt OR (createdAt = :firstCreatedAt AND id > :firstId)))) " +
+            "ORDER BY date ASC, createdAt ASC, id ASC LIMIT :limit")
+    List<Expense> getPreviousPageByCategoryAndDateRange(int userId, int categoryId, long startDate, long endDate,
+                                                        long firstDate, long firstCreatedAt, int firstId, int limit);
+
+    // Dùng cho xuất file: đọc tuần tự qua Cursor, không nạp cả danh sách vào bộ nhớ
+    @Query("SELECT e.date AS date, e.amount AS amount, c.name AS categoryName, e.description AS description " +
+            "FROM expenses e LEFT JOIN categories c ON c.id = e.categoryId " +
+            "WHERE e.userId = :userId ORDER BY e.date ASC, e.createdAt ASC")
+    Cursor getExportCursor(int userId);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.khanghv.campusexpense.data.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+
+import java.util.List;
+
+/**
+ * Tìm kiếm description qua expenses_fts. :match là biểu thức MATCH dựng bằng FtsQuery.
+ * categoryId = -1 nghĩa là mọi category.
+ */
+@Dao
+public interface ExpenseSearchDao {
+
+    // Xếp hạng theo số lần khớp rồi mới nhất trước. offsets() trả 4 số nguyên cho mỗi lần khớp, cách nhau
+    // bằng dấu cách, nên số lần khớp = (số dấu cách + 1) / 4; độ dài chuỗi thì lệ thuộc số chữ số của vị trí
+    @Query("SELECT e.* FROM expenses_fts JOIN expenses e ON e.id = expenses_fts.rowid " +
+            "WHERE expenses_fts MATCH :match AND e.userId = :userId " +
+            "AND (:categoryId = -1 OR e.categoryId = :categoryId) " +
+            "AND e.date >= :startDate AND e.date <= :endDate " +
+            "ORDER BY (length(offsets(expenses_fts)) - length(replace(offsets(expenses_fts), ' ', '')) + 1) / 4 DESC, " +
+            "e.date DESC, e.createdAt DESC, e.id DESC " +
+            "LIMIT :limit OFFSET :offset")
+    List<Expense> search(String match, int userId, int categoryId, long startDate, long endDate,
+                         int limit, int offset);
+
+    @Query("SELECT COUNT(*) FROM expenses_fts JOIN expenses e ON e.id = expenses_fts.rowid " +
+            "WHERE expenses_fts MATCH :match AND e.userId = :userId " +
+            "AND (:categoryId = -1 OR e.categoryId = :categoryId) " +
+            "AND e.date >= :startDate AND e.date <= :endDate")
+    int countMatches(String match, int userId, int categoryId, long startDate, long endDate);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM expenses_fts JOIN expenses e ON e.id = expenses_fts.rowid " +
+            "WHERE expenses_fts MATCH :match AND e.userId = :userId " +
+            "AND (:categoryId = -1 OR e.categoryId = :categoryId) " +
+            "AND e.date >= :startDate AND e.date <= :endDate")
+    Money sumMatches(String match, int userId, int categoryId, long startDate, long endDate);
+}
@@ -0,0 +1,34 @@
+package com.khanghv.campusexpense.data.database;
+
+import java.util.Locale;
+
+/**
+ * Chuyển chuỗi người dùng gõ thành biểu thức MATCH an toàn cho FTS4:
+ * bỏ ký tự đặc biệt của cú pháp FTS, mỗi từ thành một prefix query ("ca phe" -> "ca* phe*", AND ngầm định).
+ */
+public final class FtsQuery {
+
+    private FtsQuery() {}
+
+    // null nếu không còn từ nào để tìm
+    public static String toMatchQuery(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= raw.length(); i++) {
+            char c = i < raw.length() ? raw.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(token.toString().toLowerCase(Locale.ROOT)).append('*');
+                token.setLength(0);
+            }
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+}
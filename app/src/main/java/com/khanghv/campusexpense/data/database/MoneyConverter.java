@@ -0,0 +1,21 @@
+package com.khanghv.campusexpense.data.database;
+
+import androidx.room.TypeConverter;
+
+import com.khanghv.campusexpense.data.model.Money;
+
+/**
+ * Room lưu Money thành cột INTEGER (số đơn vị nhỏ nhất).
+ */
+public class MoneyConverter {
+
+    @TypeConverter
+    public static Long fromMoney(Money money) {
+        return money == null ? null : money.getMinorUnits();
+    }
+
+    @TypeConverter
+    public static Money toMoney(Long minorUnits) {
+        return minorUnits == null ? null : Money.ofMinorUnits(minorUnits);
+    }
+}
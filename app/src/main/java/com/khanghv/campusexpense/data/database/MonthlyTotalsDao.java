@@ -0,0 +1,116 @@
+package com.khanghv.campusexpense.data.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.khanghv.campusexpense.data.model.BudgetSpending;
+import com.khanghv.campusexpense.data.model.CategoryExpenseSummary;
+import com.khanghv.campusexpense.data.model.DashboardSnapshot;
+import com.khanghv.campusexpense.data.model.MonthlyCategoryTotal;
+import com.khanghv.campusexpense.data.model.Money;
+
+import java.util.List;
+
+@Dao
+public interface MonthlyTotalsDao {
+
+    @Query("SELECT COALESCE(SUM(total), 0) FROM monthly_category_totals WHERE userId = :userId AND yearMonth = :yearMonth")
+    Money getTotalForMonth(int userId, int yearMonth);
+
+    @Query("SELECT COALESCE(SUM(total), 0) FROM monthly_category_totals WHERE userId = :userId AND yearMonth = :yearMonth AND categoryId = :categoryId")
+    Money getCategoryTotalForMonth(int userId, int yearMonth, int categoryId);
+
+    @Query("SELECT COALESCE(SUM(`count`), 0) FROM monthly_category_totals WHERE userId = :userId AND yearMonth = :yearMonth")
+    int getCountForMonth(int userId, int yearMonth);
+
+    @Query("SELECT COALESCE(SUM(`count`), 0) FROM monthly_category_totals WHERE userId = :userId AND yearMonth = :yearMonth AND categoryId = :categoryId")
+    int getCategoryCountForMonth(int userId, int yearMonth, int categoryId);
+
+    // Bộ lọc "Tất cả thời gian": cộng mọi tháng của user, vẫn chỉ đọc bảng tổng hợp
+    @Query("SELECT COALESCE(SUM(total), 0) FROM monthly_category_totals WHERE userId = :userId")
+    Money getTotalAllTime(int userId);
+
+    @Query("SELECT COALESCE(SUM(total), 0) FROM monthly_category_totals WHERE userId = :userId AND categoryId = :categoryId")
+    Money getCategoryTotalAllTime(int userId, int categoryId);
+
+    @Query("SELECT COALESCE(SUM(`count`), 0) FROM monthly_category_totals WHERE userId = :userId")
+    int getCountAllTime(int userId);
+
+    @Query("SELECT COALESCE(SUM(`count`), 0) FROM monthly_category_totals WHERE userId = :userId AND categoryId = :categoryId")
+    int getCategoryCountAllTime(int userId, int categoryId);
+
+    // Cộng theo từng category bằng subquery tương quan (tra index theo userId) thay vì GROUP BY,
+    // để không cần bảng tạm sắp xếp
+    @Query("SELECT c.id AS categoryId, c.name AS categoryName, " +
+            "(SELECT COALESCE(SUM(t.total), 0) FROM monthly_category_totals t " +
+            "WHERE t.userId = :userId AND t.categoryId = c.id) AS totalExpense, " +
+            "(SELECT COALESCE(SUM(t.`count`), 0) FROM monthly_category_totals t " +
+            "WHERE t.userId = :userId AND t.categoryId = c.id) AS expenseCount, " +
+            "b.amount AS budgetAmount " +
+            "FROM categories c " +
+            "LEFT JOIN budgets b ON b.id = (SELECT b2.id FROM budgets b2 " +
+            "WHERE b2.userId = :userId AND b2.categoryId = c.id ORDER BY b2.createdAt DESC LIMIT 1) " +
+            "WHERE c.userId = :userId " +
+            "ORDER BY c.name ASC")
+    List<CategoryExpenseSummary> getCategorySummariesAllTime(int userId);
+
+
+    // Breakdown theo category đọc từ bảng tổng hợp: O(số category) bất kể số dòng expenses
+    @Query("SELECT c.id AS categoryId, c.name AS categoryName, " +
+            "COALESCE(t.total, 0) AS totalExpense, COALESCE(t.`count`, 0) AS expenseCount, " +
+            "b.amount AS budgetAmount " +
+            "FROM categories c " +
+            "LEFT JOIN monthly_category_totals t ON t.userId = :userId AND t.yearMonth = :yearMonth AND t.categoryId = c.id " +
+            "LEFT JOIN budgets b ON b.id = (SELECT b2.id FROM budgets b2 " +
+            "WHERE b2.userId = :userId AND b2.categoryId = c.id ORDER BY b2.createdAt DESC LIMIT 1) " +
+            "WHERE c.userId = :userId " +
+            "ORDER BY c.name ASC")
+    List<CategoryExpenseSummary> getCategorySummariesForMonth(int userId, int yearMonth);
+
+    @Query("SELECT b.id AS budgetId, b.categoryId AS categoryId, c.name AS categoryName, b.amount AS budgetAmount, " +
+            "COALESCE(t.total, 0) AS spentAmount " +
+            "FROM budgets b " +
+            "JOIN categories c ON c.id = b.categoryId " +
+            "LEFT JOIN monthly_category_totals t ON t.userId = b.userId AND t.yearMonth = :yearMonth AND t.categoryId = b.categoryId " +
+            "WHERE b.userId = :userId " +
+            "ORDER BY b.createdAt DESC")
+    List<BudgetSpending> getBudgetSpendingForMonth(int userId, int yearMonth);
+
+    // Các con số tổng của màn Home trong một câu; ngân sách được cộng bằng SQL
+    @Query("SELECT :yearMonth AS yearMonth, " +
+            "(SELECT COALESCE(SUM(total), 0) FROM monthly_category_totals WHERE userId = :userId AND yearMonth = :yearMonth) AS totalSpent, " +
+            "(SELECT COALESCE(SUM(`count`), 0) FROM monthly_category_totals WHERE userId = :userId AND yearMonth = :yearMonth) AS transactionCount, " +
+            "(SELECT COALESCE(SUM(amount), 0) FROM budgets WHERE userId = :userId) AS totalBudget")
+    DashboardSnapshot getDashboardTotals(int userId, int yearMonth);
+
+    // Tổng và breakdown đọc trong cùng transaction nên không thấy trạng thái giữa chừng của một lần ghi
+    @Transaction
+    default DashboardSnapshot getDashboard(int userId, int yearMonth) {
+        DashboardSnapshot snapshot = getDashboardTotals(userId, yearMonth);
+        snapshot.setBreakdown(getBudgetSpendingForMonth(userId, yearMonth));
+        return snapshot;
+    }
+
+    @Query("SELECT * FROM monthly_category_totals ORDER BY userId, yearMonth, categoryId")
+    List<MonthlyCategoryTotal> getAll();
+
+    // Tính lại toàn bộ từ bảng expenses (dùng cho kiểm tra nhất quán và sửa lỗi)
+    @Query("SELECT userId, yearMonth, categoryId, SUM(amount) AS total, COUNT(*) AS `count` " +
+            "FROM expenses GROUP BY userId, yearMonth, categoryId " +
+            "ORDER BY userId, yearMonth, categoryId")
+    List<MonthlyCategoryTotal> recomputeAll();
+
+    @Insert
+    void insertAll(List<MonthlyCategoryTotal> totals);
+
+    @Query("DELETE FROM monthly_category_totals")
+    void deleteAll();
+
+    @Transaction
+    default void rebuild() {
+        deleteAll();
+        insertAll(recomputeAll());
+    }
+}
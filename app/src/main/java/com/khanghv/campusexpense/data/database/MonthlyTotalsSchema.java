@@ -0,0 +1,89 @@
+package com.khanghv.campusexpense.data.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQL tạo, nạp lại và giữ đồng bộ bảng monthly_category_totals bằng trigger trên expenses.
+ */
+final class MonthlyTotalsSchema {
+
+    static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS `monthly_category_totals` ("
+            + "`userId` INTEGER NOT NULL, `yearMonth` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, "
+            + "`total` INTEGER NOT NULL, `count` INTEGER NOT NULL, "
+            + "PRIMARY KEY(`userId`, `yearMonth`, `categoryId`))";
+
+    private static final String TRIGGER_INSERT = "trg_expenses_rollup_insert";
+    private static final String TRIGGER_UPDATE = "trg_expenses_rollup_update";
+    private static final String TRIGGER_DELETE = "trg_expenses_rollup_delete";
+
+    private MonthlyTotalsSchema() {}
+
+    // yyyyMM theo giờ địa phương, khớp với cách Calendar tính biên tháng
+    static String yearMonthOf(String dateColumn) {
+        return "CAST(strftime('%Y%m', " + dateColumn + " / 1000, 'unixepoch', 'localtime') AS INTEGER)";
+    }
+
+    // Ngày địa phương tính thành epochDay, cùng quy ước với CalendarBuckets.epochDayOf
+    static String epochDayOf(String dateColumn) {
+        return "(CAST(strftime('%s', " + dateColumn + " / 1000, 'unixepoch', 'localtime') AS INTEGER) / 86400)";
+    }
+
+    private static String addRow(String row, String yearMonth) {
+        String key = "userId = " + row + ".userId AND yearMonth = " + yearMonth
+                + " AND categoryId = " + row + ".categoryId";
+        return "INSERT OR IGNORE INTO monthly_category_totals(userId, yearMonth, categoryId, total, `count`) "
+                + "VALUES (" + row + ".userId, " + yearMonth + ", " + row + ".categoryId, 0, 0); "
+                + "UPDATE monthly_category_totals SET total = total + " + row + ".amount, `count` = `count` + 1 "
+                + "WHERE " + key + "; ";
+    }
+
+    private static String removeRow(String row, String yearMonth) {
+        String key = "userId = " + row + ".userId AND yearMonth = " + yearMonth
+                + " AND categoryId = " + row + ".categoryId";
+        return "UPDATE monthly_category_totals SET total = total - " + row + ".amount, `count` = `count` - 1 "
+                + "WHERE " + key + "; "
+                + "DELETE FROM monthly_category_totals WHERE " + key + " AND `count` <= 0; ";
+    }
+
+    // Từ version 11 tháng đọc thẳng từ cột expenses.yearMonth
+    static void createTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_INSERT + " AFTER INSERT ON expenses BEGIN "
+                + addRow("NEW", "NEW.yearMonth") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_UPDATE
+                + " AFTER UPDATE OF userId, categoryId, amount, yearMonth ON expenses BEGIN "
+                + removeRow("OLD", "OLD.yearMonth") + addRow("NEW", "NEW.yearMonth") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_DELETE + " AFTER DELETE ON expenses BEGIN "
+                + removeRow("OLD", "OLD.yearMonth") + "END");
+    }
+
+    // Các migration trước version 11 chưa có cột yearMonth nên tính tháng từ date
+    static void createDateTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_INSERT + " AFTER INSERT ON expenses BEGIN "
+                + addRow("NEW", yearMonthOf("NEW.date")) + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_UPDATE
+                + " AFTER UPDATE OF userId, categoryId, amount, date ON expenses BEGIN "
+                + removeRow("OLD", yearMonthOf("OLD.date")) + addRow("NEW", yearMonthOf("NEW.date")) + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_DELETE + " AFTER DELETE ON expenses BEGIN "
+                + removeRow("OLD", yearMonthOf("OLD.date")) + "END");
+    }
+
+    static void dropTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_INSERT);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_UPDATE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_DELETE);
+    }
+
+    static void rebuild(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM monthly_category_totals");
+        db.execSQL("INSERT INTO monthly_category_totals(userId, yearMonth, categoryId, total, `count`) "
+                + "SELECT userId, yearMonth, categoryId, SUM(amount), COUNT(*) "
+                + "FROM expenses GROUP BY userId, yearMonth, categoryId");
+    }
+
+    static void rebuildFromDate(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM monthly_category_totals");
+        db.execSQL("INSERT INTO monthly_category_totals(userId, yearMonth, categoryId, total, `count`) "
+                + "SELECT userId, " + yearMonthOf("date") + " AS ym, categoryId, SUM(amount), COUNT(*) "
+                + "FROM expenses GROUP BY userId, ym, categoryId");
+    }
+}
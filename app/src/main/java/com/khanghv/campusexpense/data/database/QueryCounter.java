@@ -0,0 +1,39 @@
+package com.khanghv.campusexpense.data.database;
+
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đếm số câu SQL Room gửi xuống SQLite (chỉ bật ở bản debug qua RoomDatabase.QueryCallback).
+ * MainActivity gọi logSince mỗi lần đổi tab để thấy một lần chuyển tab tốn bao nhiêu truy vấn.
+ */
+public final class QueryCounter {
+    private static final String TAG = "QueryCounter";
+
+    private static final AtomicInteger statements = new AtomicInteger();
+    private static final AtomicInteger selects = new AtomicInteger();
+    private static int markedStatements;
+    private static int markedSelects;
+
+    private QueryCounter() {}
+
+    // Chạy ngay trên luồng thực thi câu lệnh nên chỉ tăng bộ đếm
+    static void onQuery(String sql, List<Object> bindArgs) {
+        statements.incrementAndGet();
+        if (sql.regionMatches(true, 0, "SELECT", 0, 6)) {
+            selects.incrementAndGet();
+        }
+    }
+
+    /** Log số câu lệnh kể từ lần gọi trước rồi đặt mốc mới. Gọi trên main thread. */
+    public static void logSince(String label) {
+        int currentStatements = statements.get();
+        int currentSelects = selects.get();
+        Log.d(TAG, label + ": " + (currentStatements - markedStatements) + " statements, "
+                + (currentSelects - markedSelects) + " SELECT since last mark");
+        markedStatements = currentStatements;
+        markedSelects = currentSelects;
+    }
+}
@@ -0,0 +1,93 @@
+package com.khanghv.campusexpense.data.database;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Bộ thông số SQLite (journal mode, synchronous, cache, mmap, temp_store) chọn theo build type
+ * qua BuildConfig.SQLITE_PROFILE. Journal mode đặt qua builder Room, các PRAGMA còn lại đặt trong onOpen.
+ */
+public enum SqliteTuningProfile {
+    // Giữ nguyên mặc định của Room/SQLite, dùng làm mốc so sánh
+    DEFAULT(RoomDatabase.JournalMode.AUTOMATIC, null, 0, -1, null),
+    // WAL + NORMAL: không mất tính toàn vẹn, chỉ có thể mất giao dịch cuối nếu mất điện
+    BALANCED(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, "NORMAL", -8 * 1024, 32L * 1024 * 1024, "MEMORY"),
+    THROUGHPUT(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, "NORMAL", -32 * 1024, 128L * 1024 * 1024, "MEMORY");
+
+    private static final String TAG = "SqliteTuningProfile";
+
+    private final RoomDatabase.JournalMode journalMode;
+    private final String synchronous;
+    // Âm = KiB (quy ước của PRAGMA cache_size), 0 = không đổi
+    private final int cacheSize;
+    // -1 = không đổi
+    private final long mmapSize;
+    private final String tempStore;
+
+    SqliteTuningProfile(RoomDatabase.JournalMode journalMode, String synchronous, int cacheSize,
+                        long mmapSize, String tempStore) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+    }
+
+    public static SqliteTuningProfile fromName(String name) {
+        for (SqliteTuningProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        return DEFAULT;
+    }
+
+    public RoomDatabase.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    /**
+     * Đặt các PRAGMA theo kết nối. Gọi từ Callback.onOpen, ngoài transaction
+     * (synchronous không đổi được khi đang trong transaction).
+     */
+    void apply(SupportSQLiteDatabase db) {
+        if (synchronous != null) {
+            pragma(db, "synchronous = " + synchronous);
+        }
+        if (cacheSize != 0) {
+            pragma(db, "cache_size = " + cacheSize);
+        }
+        if (mmapSize >= 0) {
+            pragma(db, "mmap_size = " + mmapSize);
+        }
+        if (tempStore != null) {
+            pragma(db, "temp_store = " + tempStore);
+        }
+    }
+
+    /** Đọc lại giá trị thực tế để log, vì SQLite có thể bỏ qua giá trị không hỗ trợ (vd. mmap bị tắt). */
+    void logEffective(SupportSQLiteDatabase db) {
+        Log.d(TAG, name()
+                + " journal_mode=" + read(db, "journal_mode")
+                + " synchronous=" + read(db, "synchronous")
+                + " cache_size=" + read(db, "cache_size")
+                + " mmap_size=" + read(db, "mmap_size")
+                + " temp_store=" + read(db, "temp_store"));
+    }
+
+    // Một số PRAGMA trả về dòng kết quả nên phải chạy bằng query thay vì execSQL
+    private static void pragma(SupportSQLiteDatabase db, String statement) {
+        try (Cursor cursor = db.query("PRAGMA " + statement)) {
+            cursor.moveToFirst();
+        }
+    }
+
+    private static String read(SupportSQLiteDatabase db, String name) {
+        try (Cursor cursor = db.query("PRAGMA " + name)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : "?";
+        }
+    }
+}
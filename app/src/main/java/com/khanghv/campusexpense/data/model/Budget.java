@@ -1,20 +1,33 @@
 package com.khanghv.campusexpense.data.model;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "budgets")
+@Entity(tableName = "budgets",
+        foreignKeys = @ForeignKey(entity = Category.class, parentColumns = "id", childColumns = "categoryId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {
+                // Cho CASCADE tìm nhanh các budget của category bị xóa
+                @Index(value = {"categoryId"}),
+                // Budget của user (và của một category) mới nhất trước, đọc thẳng theo thứ tự index
+                @Index(value = {"userId", "createdAt"}),
+                @Index(value = {"userId", "categoryId", "createdAt"})
+        })
 public class Budget {
     @PrimaryKey(autoGenerate = true)
     private int id;
     private int userId;
     private int categoryId;
-    private double amount;
+    @NonNull
+    private Money amount = Money.ZERO;
     private String period;
     private long createdAt;
 
     public Budget() {}
-    public Budget(int userId, int categoryId, double amount, String period) {
+    public Budget(int userId, int categoryId, @NonNull Money amount, String period) {
         this.userId = userId;
         this.categoryId = categoryId;
         this.amount = amount;
@@ -40,10 +53,11 @@ public class Budget {
     public void setCategoryId(int categoryId) {
         this.categoryId = categoryId;
     }
-    public double getAmount() {
+    @NonNull
+    public Money getAmount() {
         return amount;
     }
-    public void setAmount(double amount) {
+    public void setAmount(@NonNull Money amount) {
         this.amount = amount;
     }
     public String getPeriod() {
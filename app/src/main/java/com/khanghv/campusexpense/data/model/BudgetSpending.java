@@ -0,0 +1,60 @@
+package com.khanghv.campusexpense.data.model;
+
+/**
+ * Ngân sách của một category kèm số tiền đã chi trong kỳ (kết quả JOIN, không phải entity).
+ */
+public class BudgetSpending {
+    // Một category có thể có nhiều budget, nên id của dòng là id budget
+    private int budgetId;
+    private int categoryId;
+    private String categoryName;
+    private Money budgetAmount;
+    private Money spentAmount;
+
+    public BudgetSpending() {}
+
+    public int getBudgetId() {
+        return budgetId;
+    }
+
+    public void setBudgetId(int budgetId) {
+        this.budgetId = budgetId;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public Money getBudgetAmount() {
+        return budgetAmount;
+    }
+
+    public void setBudgetAmount(Money budgetAmount) {
+        this.budgetAmount = budgetAmount;
+    }
+
+    public Money getSpentAmount() {
+        return spentAmount;
+    }
+
+    public void setSpentAmount(Money spentAmount) {
+        this.spentAmount = spentAmount;
+    }
+
+    // Phần trăm ngân sách đã dùng, 0 khi chưa đặt ngân sách
+    public int getPercentage() {
+        return budgetAmount != null && budgetAmount.isPositive() ? (int) spentAmount.percentOf(budgetAmount) : 0;
+    }
+}
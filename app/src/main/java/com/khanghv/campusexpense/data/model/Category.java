@@ -1,9 +1,11 @@
 package com.khanghv.campusexpense.data.model;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "categories")
+// Danh sách category của user đọc theo tên: index (userId, name) trả về đúng thứ tự, không cần sắp xếp
+@Entity(tableName = "categories", indices = @Index(value = {"userId", "name"}))
 public class Category {
     @PrimaryKey(autoGenerate = true)
     private int id;
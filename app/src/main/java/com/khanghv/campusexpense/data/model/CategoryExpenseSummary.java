@@ -0,0 +1,54 @@
+package com.khanghv.campusexpense.data.model;
+
+/**
+ * Kết quả tổng hợp chi tiêu theo từng category trong một khoảng thời gian (không phải entity).
+ */
+public class CategoryExpenseSummary {
+    private int categoryId;
+    private String categoryName;
+    private Money totalExpense;
+    private int expenseCount;
+    private Money budgetAmount;
+
+    public CategoryExpenseSummary() {}
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public Money getTotalExpense() {
+        return totalExpense;
+    }
+
+    public void setTotalExpense(Money totalExpense) {
+        this.totalExpense = totalExpense;
+    }
+
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(int expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public Money getBudgetAmount() {
+        return budgetAmount;
+    }
+
+    public void setBudgetAmount(Money budgetAmount) {
+        this.budgetAmount = budgetAmount;
+    }
+}
@@ -0,0 +1,77 @@
+package com.khanghv.campusexpense.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Ignore;
+
+import com.khanghv.campusexpense.util.CalendarBuckets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Toàn bộ số liệu màn Home của một tháng, đọc trong cùng một transaction (MonthlyTotalsDao.getDashboard)
+ * nên tổng chi, số giao dịch, ngân sách và breakdown luôn khớp nhau.
+ */
+public class DashboardSnapshot {
+    private int yearMonth;
+    @NonNull
+    private Money totalSpent = Money.ZERO;
+    private int transactionCount;
+    @NonNull
+    private Money totalBudget = Money.ZERO;
+    @Ignore
+    private List<BudgetSpending> breakdown = new ArrayList<>();
+
+    public DashboardSnapshot() {}
+
+    public int getYearMonth() {
+        return yearMonth;
+    }
+
+    public void setYearMonth(int yearMonth) {
+        this.yearMonth = yearMonth;
+    }
+
+    @NonNull
+    public Money getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(@NonNull Money totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(int transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    @NonNull
+    public Money getTotalBudget() {
+        return totalBudget;
+    }
+
+    public void setTotalBudget(@NonNull Money totalBudget) {
+        this.totalBudget = totalBudget;
+    }
+
+    public List<BudgetSpending> getBreakdown() {
+        return breakdown;
+    }
+
+    public void setBreakdown(List<BudgetSpending> breakdown) {
+        this.breakdown = breakdown;
+    }
+
+    public Money getRemaining() {
+        return totalBudget.minus(totalSpent);
+    }
+
+    // Chia cho số ngày của cả tháng, giống cách tính trước đây trên màn Home
+    public Money getAveragePerDay() {
+        return totalSpent.dividedBy(CalendarBuckets.daysInMonth(yearMonth));
+    }
+}
@@ -1,27 +1,46 @@
 package com.khanghv.campusexpense.data.model;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "expenses")
+import com.khanghv.campusexpense.util.CalendarBuckets;
+
+@Entity(tableName = "expenses",
+        foreignKeys = @ForeignKey(entity = Category.class, parentColumns = "id", childColumns = "categoryId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {
+                @Index(value = {"userId", "date", "createdAt"}),
+                @Index(value = {"userId", "categoryId", "date", "createdAt"}),
+                // Cho CASCADE tìm nhanh các expense của category bị xóa
+                @Index(value = {"categoryId"}),
+                @Index(value = {"userId", "yearMonth", "categoryId"}),
+                @Index(value = {"userId", "epochDay"})
+        })
 public class Expense {
     @PrimaryKey(autoGenerate = true)
     private int id;
     private int userId;
     private int categoryId;
-    private double amount;
+    @NonNull
+    private Money amount = Money.ZERO;
     private String description;
     private long date;
+    // Ngày/tháng địa phương của date, luôn được setDate tính lại để nhóm bằng so sánh số nguyên
+    private int epochDay;
+    private int yearMonth;
     private long createdAt;
 
     public Expense() {}
 
-    public Expense(int userId, int categoryId, double amount, String description, long date) {
+    public Expense(int userId, int categoryId, @NonNull Money amount, String description, long date) {
         this.userId = userId;
         this.categoryId = categoryId;
         this.amount = amount;
         this.description = description;
-        this.date = date;
+        setDate(date);
         this.createdAt = System.currentTimeMillis();
     }
 
@@ -49,11 +68,12 @@ public class Expense {
         this.categoryId = categoryId;
     }
 
-    public double getAmount() {
+    @NonNull
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(@NonNull Money amount) {
         this.amount = amount;
     }
 
@@ -71,6 +91,25 @@ public class Expense {
 
     public void setDate(long date) {
         this.date = date;
+        this.epochDay = CalendarBuckets.epochDayOf(date);
+        this.yearMonth = CalendarBuckets.yearMonthOf(date);
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    // Room gọi khi đọc từ DB; code khác nên đổi ngày qua setDate
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public int getYearMonth() {
+        return yearMonth;
+    }
+
+    public void setYearMonth(int yearMonth) {
+        this.yearMonth = yearMonth;
     }
 
     public long getCreatedAt() {
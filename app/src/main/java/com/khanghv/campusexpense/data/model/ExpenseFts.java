@@ -0,0 +1,36 @@
+package com.khanghv.campusexpense.data.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Bảng FTS4 trỏ vào expenses (external content): chỉ lưu index của description, rowid = expenses.id.
+ * Room tự tạo trigger đồng bộ với bảng expenses. unicode61 bỏ dấu nên "ca phe" khớp "cà phê".
+ */
+@Fts4(contentEntity = Expense.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "expenses_fts")
+public class ExpenseFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowid;
+    private String description;
+
+    public int getRowid() {
+        return rowid;
+    }
+
+    public void setRowid(int rowid) {
+        this.rowid = rowid;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
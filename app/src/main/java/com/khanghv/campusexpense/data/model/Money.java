@@ -0,0 +1,79 @@
+package com.khanghv.campusexpense.data.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Số tiền bất biến lưu bằng đơn vị nhỏ nhất của tiền gốc (VND không có phần lẻ nên 1 đơn vị = 1 đồng).
+ * Lưu trong DB dưới dạng INTEGER qua MoneyConverter nên mọi phép SUM đều là số nguyên chính xác.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /** Làm tròn về đơn vị gần nhất, chỉ dùng ở biên nhập liệu/quy đổi tỷ giá. */
+    public static Money fromDecimal(double amount) {
+        return ofMinorUnits(Math.round(amount));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money dividedBy(int divisor) {
+        return ofMinorUnits(Math.round((double) minorUnits / divisor));
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    // Tỷ lệ phần trăm so với whole, chỉ để hiển thị
+    public double percentOf(Money whole) {
+        return whole.minorUnits == 0 ? 0 : minorUnits * 100.0 / whole.minorUnits;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        return minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return Long.toString(minorUnits);
+    }
+}
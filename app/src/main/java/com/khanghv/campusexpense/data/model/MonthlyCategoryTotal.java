@@ -0,0 +1,65 @@
+package com.khanghv.campusexpense.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Bảng tổng hợp chi tiêu theo (user, tháng, category), được trigger trên bảng expenses cập nhật.
+ * yearMonth có dạng yyyyMM, ví dụ 202410.
+ */
+@Entity(tableName = "monthly_category_totals", primaryKeys = {"userId", "yearMonth", "categoryId"})
+public class MonthlyCategoryTotal {
+    private int userId;
+    private int yearMonth;
+    private int categoryId;
+    @NonNull
+    private Money total = Money.ZERO;
+    private int count;
+
+    public MonthlyCategoryTotal() {}
+
+    public static int toYearMonth(int year, int month) {
+        return year * 100 + month;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getYearMonth() {
+        return yearMonth;
+    }
+
+    public void setYearMonth(int yearMonth) {
+        this.yearMonth = yearMonth;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    @NonNull
+    public Money getTotal() {
+        return total;
+    }
+
+    public void setTotal(@NonNull Money total) {
+        this.total = total;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
@@ -1,7 +1,6 @@
 package com.khanghv.campusexpense.ui.auth;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.widget.Button;
 import android.widget.TextView;
@@ -12,9 +11,11 @@ import com.google.android.material.textfield.TextInputLayout;
 import com.khanghv.campusexpense.MainActivity;
 import com.khanghv.campusexpense.R;
 import com.khanghv.campusexpense.base.BaseActivity;
+import com.khanghv.campusexpense.data.DatabaseDispatcher;
 import com.khanghv.campusexpense.data.database.AppDatabase;
 import com.khanghv.campusexpense.data.database.UserDao;
 import com.khanghv.campusexpense.data.model.User;
+import com.khanghv.campusexpense.util.AppSettings;
 
 import java.security.MessageDigest;
 
@@ -26,7 +27,6 @@ public class LoginActivity extends BaseActivity {
     private TextInputEditText passwordInput;
     private Button btnLogin;
     private UserDao userDao;
-    private SharedPreferences sharedPreferences;
 
 
     @Override
@@ -44,7 +44,6 @@ public class LoginActivity extends BaseActivity {
         btnLogin = findViewById(R.id.btnLogin);
         AppDatabase database = AppDatabase.getInstance(this);
         userDao = database.userDao();
-        sharedPreferences = getSharedPreferences("user_prefs", MODE_PRIVATE);
 
         btnLogin.setOnClickListener(v -> login());
 
@@ -54,7 +53,7 @@ public class LoginActivity extends BaseActivity {
     }
 
     private boolean isLoggedIn(){
-        return sharedPreferences.getBoolean("isLoggedIn", false);
+        return AppSettings.get(this).isLoggedIn();
     }
 
     private void goToMainActivity(){
@@ -98,26 +97,18 @@ public class LoginActivity extends BaseActivity {
         btnLogin.setEnabled(false);
         btnLogin.setText(R.string.logging_in);
 
-        new Thread(() -> {
-            String hashedPassword = hashPassword(password);
-            User user = userDao.login(username, hashedPassword);
-
-            runOnUiThread(() -> {
-                btnLogin.setEnabled(true);
-                btnLogin.setText(R.string.login);
-
-                if (user != null) {
-                    SharedPreferences.Editor editor = sharedPreferences.edit();
-                    editor.putBoolean("isLoggedIn", true);
-                    editor.putInt("userId", user.getId());
-                    editor.putString("username", user.getUsername());
-                    editor.apply();
-                    Toast.makeText(LoginActivity.this, R.string.login_success, Toast.LENGTH_SHORT).show();
-                    goToMainActivity();
-                } else {
-                    usernameLayout.setError(getString(R.string.error_invalid_credentials));
-                }
-            });
-        }).start();
+        // Kết quả bị bỏ nếu Activity đã đóng trong lúc truy vấn
+        DatabaseDispatcher.read(this, () -> userDao.login(username, hashPassword(password)), user -> {
+            btnLogin.setEnabled(true);
+            btnLogin.setText(R.string.login);
+
+            if (user != null) {
+                AppSettings.setSession(this, user.getId(), user.getUsername());
+                Toast.makeText(LoginActivity.this, R.string.login_success, Toast.LENGTH_SHORT).show();
+                goToMainActivity();
+            } else {
+                usernameLayout.setError(getString(R.string.error_invalid_credentials));
+            }
+        });
     }
 }
@@ -10,13 +10,14 @@ import com.google.android.material.textfield.TextInputLayout;
 import com.khanghv.campusexpense.MainActivity;
 import com.khanghv.campusexpense.R;
 import com.khanghv.campusexpense.base.BaseActivity;
+import com.khanghv.campusexpense.data.DatabaseDispatcher;
 import com.khanghv.campusexpense.data.database.AppDatabase;
 import com.khanghv.campusexpense.data.database.UserDao;
 import com.khanghv.campusexpense.data.model.User;
+import com.khanghv.campusexpense.util.AppSettings;
 
 import java.security.MessageDigest;
 import android.content.Intent;
-import android.content.SharedPreferences;
 
 public class RegisterActivity extends BaseActivity {
 
@@ -32,7 +33,6 @@ public class RegisterActivity extends BaseActivity {
 
     private Button btnRegister;
     private UserDao userDao;
-    private SharedPreferences sharedPreferences;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -55,7 +55,6 @@ public class RegisterActivity extends BaseActivity {
 
         AppDatabase database = AppDatabase.getInstance(this);
         userDao = database.userDao();
-        sharedPreferences = getSharedPreferences("user_prefs", MODE_PRIVATE);
 
         btnRegister.setOnClickListener(v -> register());
     }
@@ -103,51 +102,46 @@ public class RegisterActivity extends BaseActivity {
         btnRegister.setEnabled(false);
         btnRegister.setText(R.string.registering);
 
-        new Thread(() -> {
-            int count = userDao.checkUsernameExists(username);
-            if (count > 0) {
-                runOnUiThread(() -> {
-                    btnRegister.setEnabled(true);
-                    btnRegister.setText(R.string.register);
-                    usernameLayout.setError(getString(R.string.error_username_exists));
-                });
-                return;
+        // Kiểm tra trùng tên và thêm user trên luồng ghi tuần tự nên hai lần đăng ký cùng tên không cùng lọt qua
+        DatabaseDispatcher.writeForResult(this, () -> registerUser(username, password), result -> {
+            btnRegister.setEnabled(true);
+            btnRegister.setText(R.string.register);
+            if (result.usernameTaken) {
+                usernameLayout.setError(getString(R.string.error_username_exists));
+            } else if (result.user != null) {
+                // Save session for the newly created user so app uses correct data
+                // (setSession clears any previous session data to avoid mixing users)
+                AppSettings.setSession(this, result.user.getId(), result.user.getUsername());
+
+                Toast.makeText(RegisterActivity.this, getString(R.string.register_success), Toast.LENGTH_SHORT).show();
+                // Navigate to MainActivity as the new user
+                Intent intent = new Intent(RegisterActivity.this, MainActivity.class);
+                intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+                startActivity(intent);
+                finish();
+            } else {
+                Toast.makeText(RegisterActivity.this, getString(R.string.register_failed), Toast.LENGTH_SHORT).show();
             }
+        });
+    }
 
-            String hashedPassword = hashPassword(password);
-            User user = new User(username, hashedPassword);
-            long result = userDao.insertUser(user);
-
-            // If inserted successfully, fetch the inserted user to get assigned id
-            User insertedUser = null;
-            if (result > 0) {
-                insertedUser = userDao.getUserByUsername(username);
-            }
+    // Chạy trên luồng ghi của DatabaseDispatcher
+    private RegisterResult registerUser(String username, String password) {
+        RegisterResult result = new RegisterResult();
+        if (userDao.checkUsernameExists(username) > 0) {
+            result.usernameTaken = true;
+            return result;
+        }
+        long id = userDao.insertUser(new User(username, hashPassword(password)));
+        // If inserted successfully, fetch the inserted user to get assigned id
+        if (id > 0) {
+            result.user = userDao.getUserByUsername(username);
+        }
+        return result;
+    }
 
-            User finalInsertedUser = insertedUser;
-            runOnUiThread(() -> {
-                btnRegister.setEnabled(true);
-                btnRegister.setText(R.string.register);
-                if (result > 0 && finalInsertedUser != null) {
-                    // Save session for the newly created user so app uses correct data
-                    SharedPreferences.Editor editor = sharedPreferences.edit();
-                    // Clear any previous session data to avoid mixing users
-                    editor.clear();
-                    editor.putBoolean("isLoggedIn", true);
-                    editor.putInt("userId", finalInsertedUser.getId());
-                    editor.putString("username", finalInsertedUser.getUsername());
-                    editor.apply();
-
-                    Toast.makeText(RegisterActivity.this, getString(R.string.register_success), Toast.LENGTH_SHORT).show();
-                    // Navigate to MainActivity as the new user
-                    Intent intent = new Intent(RegisterActivity.this, MainActivity.class);
-                    intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                    startActivity(intent);
-                    finish();
-                } else {
-                    Toast.makeText(RegisterActivity.this, getString(R.string.register_failed), Toast.LENGTH_SHORT).show();
-                }
-            });
-        }).start();
+    private static final class RegisterResult {
+        boolean usernameTaken;
+        User user;
     }
 }
@@ -9,17 +9,33 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.khanghv.campusexpense.R;
 import com.khanghv.campusexpense.data.model.Budget;
+import com.khanghv.campusexpense.data.model.Money;
 import com.khanghv.campusexpense.util.CurrencyManager;
 
-import java.util.List;
+import java.util.Objects;
+
+// Dòng là bản chụp giá trị của budget lúc tải, nên sửa đối tượng Budget sau đó không làm DiffUtil bỏ sót thay đổi
+public class BudgetRecyclerAdapter extends ListAdapter<BudgetRecyclerAdapter.Item, BudgetRecyclerAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<Item> DIFF = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return oldItem.budget.getId() == newItem.budget.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return oldItem.categoryName.equals(newItem.categoryName)
+                    && oldItem.amount.equals(newItem.amount)
+                    && Objects.equals(oldItem.period, newItem.period);
+        }
+    };
 
-public class BudgetRecyclerAdapter extends RecyclerView.Adapter<BudgetRecyclerAdapter.ViewHolder> {
-    private List<Budget> budgetsList;
-    private List<String> categoryNames;
     private onEditClickListener onEditClickListener;
     private onDeleteClickListener onDeleteClickListener;
     private Context context;
@@ -31,10 +47,20 @@ public class BudgetRecyclerAdapter extends RecyclerView.Adapter<BudgetRecyclerAd
         void onDeleteClick(Budget budget);
     }
 
-    @Override
-    public int getItemCount() {
-        return budgetsList.size();
+    public static class Item {
+        final Budget budget;
+        final String categoryName;
+        final Money amount;
+        final String period;
+
+        public Item(Budget budget, String categoryName) {
+            this.budget = budget;
+            this.categoryName = categoryName;
+            this.amount = budget.getAmount();
+            this.period = budget.getPeriod();
+        }
     }
+
     static class ViewHolder extends RecyclerView.ViewHolder {
         TextView categoryNameText;
         TextView periodText;
@@ -56,11 +82,11 @@ public class BudgetRecyclerAdapter extends RecyclerView.Adapter<BudgetRecyclerAd
         }
     }
 
-    public BudgetRecyclerAdapter(List<Budget> budgets, List<String> categoryNames, onEditClickListener onEditClickListener, onDeleteClickListener onDeleteClickListener) {
-        this.budgetsList = budgets;
-        this.categoryNames = categoryNames;
+    public BudgetRecyclerAdapter(onEditClickListener onEditClickListener, onDeleteClickListener onDeleteClickListener) {
+        super(DIFF);
         this.onEditClickListener = onEditClickListener;
         this.onDeleteClickListener = onDeleteClickListener;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -77,18 +103,22 @@ public class BudgetRecyclerAdapter extends RecyclerView.Adapter<BudgetRecyclerAd
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Budget budget = budgetsList.get(position);
-        String categoryName = (position < categoryNames.size()) ? categoryNames.get(position) : "Unknown Category";
-        holder.categoryNameText.setText(categoryName);
-        holder.amountText.setText(CurrencyManager.formatDisplayCurrency(context, budget.getAmount()));
-        holder.periodText.setText(budget.getPeriod());
-        double spent = 0.0;
-        double percentage = budget.getAmount() > 0 ? spent / budget.getAmount() * 100 : 0;
+        Item item = getItem(position);
+        Budget budget = item.budget;
+        holder.categoryNameText.setText(item.categoryName);
+        holder.amountText.setText(CurrencyManager.formatDisplayCurrency(context, item.amount));
+        holder.periodText.setText(item.period);
+        Money spent = Money.ZERO;
+        double percentage = item.amount.isPositive() ? spent.percentOf(item.amount) : 0;
         int progress = (int) Math.min(Math.max(percentage, 0), 100);
         holder.progressBar.setProgress(progress);
-        holder.periodText.setText(budget.getPeriod());
         holder.progressText.setText(context.getString(R.string.budget_percentage_used, percentage));
         holder.editButton.setOnClickListener(v -> onEditClickListener.onEditClick(budget));
         holder.deleteButton.setOnClickListener(v -> onDeleteClickListener.onDeleteClick(budget));
     }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).budget.getId();
+    }
 }
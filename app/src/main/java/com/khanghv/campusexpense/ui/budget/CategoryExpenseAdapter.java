@@ -7,18 +7,35 @@ import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import android.content.Context;
 import com.khanghv.campusexpense.R;
 import com.khanghv.campusexpense.data.model.Budget;
+import com.khanghv.campusexpense.data.model.Money;
 import java.text.NumberFormat;
-import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 
-public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpenseAdapter.ViewHolder> {
+public class CategoryExpenseAdapter extends ListAdapter<CategoryExpenseAdapter.CategoryExpenseItem, CategoryExpenseAdapter.ViewHolder> {
+
+    private static final DiffUtil.ItemCallback<CategoryExpenseItem> DIFF = new DiffUtil.ItemCallback<CategoryExpenseItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CategoryExpenseItem oldItem, @NonNull CategoryExpenseItem newItem) {
+            return oldItem.categoryId == newItem.categoryId;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CategoryExpenseItem oldItem, @NonNull CategoryExpenseItem newItem) {
+            return Objects.equals(oldItem.categoryName, newItem.categoryName)
+                    && Objects.equals(oldItem.totalExpense, newItem.totalExpense)
+                    && oldItem.expenseCount == newItem.expenseCount
+                    && oldItem.budget == newItem.budget;
+        }
+    };
 
-    private List<CategoryExpenseItem> categoryExpenseList;
     private OnCategoryClickListener onCategoryClickListener;
     private Context context;
 
@@ -29,11 +46,11 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
     public static class CategoryExpenseItem {
         public int categoryId;
         public String categoryName;
-        public double totalExpense;
+        public Money totalExpense;
         public int expenseCount;
         public Budget budget;
 
-        public CategoryExpenseItem(int categoryId, String categoryName, double totalExpense, int expenseCount, Budget budget) {
+        public CategoryExpenseItem(int categoryId, String categoryName, Money totalExpense, int expenseCount, Budget budget) {
             this.categoryId = categoryId;
             this.categoryName = categoryName;
             this.totalExpense = totalExpense;
@@ -42,9 +59,10 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
         }
     }
 
-    public CategoryExpenseAdapter(List<CategoryExpenseItem> categoryExpenseList, OnCategoryClickListener onCategoryClickListener) {
-        this.categoryExpenseList = categoryExpenseList;
+    public CategoryExpenseAdapter(OnCategoryClickListener onCategoryClickListener) {
+        super(DIFF);
         this.onCategoryClickListener = onCategoryClickListener;
+        setHasStableIds(true);
     }
 
     public void setContext(Context context) {
@@ -61,20 +79,20 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        CategoryExpenseItem item = categoryExpenseList.get(position);
+        CategoryExpenseItem item = getItem(position);
         NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.getDefault());
 
         holder.categoryNameText.setText(item.categoryName);
-        holder.expenseAmountText.setText(currencyFormat.format(item.totalExpense));
+        holder.expenseAmountText.setText(currencyFormat.format(item.totalExpense.getMinorUnits()));
         String transactionText = context != null ?
                 context.getString(R.string.transactions) : "transactions";
         holder.expenseCountText.setText(item.expenseCount + " " + transactionText);
 
         if (item.budget != null) {
             holder.budgetLayout.setVisibility(View.VISIBLE);
-            holder.budgetAmountText.setText(currencyFormat.format(item.budget.getAmount()));
+            holder.budgetAmountText.setText(currencyFormat.format(item.budget.getAmount().getMinorUnits()));
 
-            double percentage = (item.totalExpense / item.budget.getAmount()) * 100;
+            double percentage = item.totalExpense.percentOf(item.budget.getAmount());
             int progress = (int) Math.min(Math.max(percentage, 0), 100);
             holder.progressBar.setProgress(progress);
 
@@ -104,8 +122,8 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
     }
 
     @Override
-    public int getItemCount() {
-        return categoryExpenseList.size();
+    public long getItemId(int position) {
+        return getItem(position).categoryId;
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
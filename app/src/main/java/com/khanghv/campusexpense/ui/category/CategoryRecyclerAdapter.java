@@ -7,15 +7,29 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.khanghv.campusexpense.R;
 import com.khanghv.campusexpense.data.model.Category;
 
-import java.util.List;
+import java.util.Objects;
+
+// Danh sách mới được so với danh sách cũ trên luồng nền (ListAdapter); chỉ các dòng đổi tên mới bind lại
+public class CategoryRecyclerAdapter extends ListAdapter<Category, CategoryRecyclerAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<Category> DIFF = new DiffUtil.ItemCallback<Category>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName());
+        }
+    };
 
-public class CategoryRecyclerAdapter extends RecyclerView.Adapter<CategoryRecyclerAdapter.ViewHolder> {
-    private List<Category> categoriesList;
     private onEditClickListener editClick;
     private onDeleteClickListener deleteClick;
 
@@ -27,10 +41,11 @@ public class CategoryRecyclerAdapter extends RecyclerView.Adapter<CategoryRecycl
         void onDeleteClick(Category category);
     }
 
-    public CategoryRecyclerAdapter(List<Category> categories, onEditClickListener editClickListener, onDeleteClickListener deleteClickListener) {
-        this.categoriesList = categories;
+    public CategoryRecyclerAdapter(onEditClickListener editClickListener, onDeleteClickListener deleteClickListener) {
+        super(DIFF);
         this.editClick = editClickListener;
         this.deleteClick = deleteClickListener;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -42,15 +57,17 @@ public class CategoryRecyclerAdapter extends RecyclerView.Adapter<CategoryRecycl
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Category category = categoriesList.get(position);
+        Category category = getItem(position);
         holder.nameText.setText(category.getName());
         holder.editButton.setOnClickListener(v -> editClick.onEditClick(category));
         holder.deleteButton.setOnClickListener(v -> deleteClick.onDeleteClick(category));
     }
+
     @Override
-    public int getItemCount() {
-        return categoriesList.size();
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
+
     public static class ViewHolder extends RecyclerView.ViewHolder {
         TextView nameText;
         ImageButton editButton;
@@ -7,17 +7,34 @@ import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import android.content.Context;
 import com.khanghv.campusexpense.R;
-import com.khanghv.campusexpense.data.model.Budget;
+import com.khanghv.campusexpense.data.model.CategoryExpenseSummary;
+import com.khanghv.campusexpense.data.model.Money;
 import com.khanghv.campusexpense.util.CurrencyManager;
-import java.util.List;
+import java.util.Objects;
 
 
-public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpenseAdapter.ViewHolder> {
+public class CategoryExpenseAdapter extends ListAdapter<CategoryExpenseAdapter.CategoryExpenseItem, CategoryExpenseAdapter.ViewHolder> {
+
+    private static final DiffUtil.ItemCallback<CategoryExpenseItem> DIFF = new DiffUtil.ItemCallback<CategoryExpenseItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CategoryExpenseItem oldItem, @NonNull CategoryExpenseItem newItem) {
+            return oldItem.categoryId == newItem.categoryId;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CategoryExpenseItem oldItem, @NonNull CategoryExpenseItem newItem) {
+            return Objects.equals(oldItem.categoryName, newItem.categoryName)
+                    && Objects.equals(oldItem.totalExpense, newItem.totalExpense)
+                    && oldItem.expenseCount == newItem.expenseCount
+                    && Objects.equals(oldItem.budgetAmount, newItem.budgetAmount);
+        }
+    };
 
-    private List<CategoryExpenseItem> categoryExpenseList;
     private OnCategoryClickListener onCategoryClickListener;
 
     public interface OnCategoryClickListener {
@@ -27,22 +44,28 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
     public static class CategoryExpenseItem {
         public int categoryId;
         public String categoryName;
-        public double totalExpense;
+        public Money totalExpense;
         public int expenseCount;
-        public Budget budget;
+        public Money budgetAmount;
 
-        public CategoryExpenseItem(int categoryId, String categoryName, double totalExpense, int expenseCount, Budget budget) {
+        public CategoryExpenseItem(int categoryId, String categoryName, Money totalExpense, int expenseCount, Money budgetAmount) {
             this.categoryId = categoryId;
             this.categoryName = categoryName;
             this.totalExpense = totalExpense;
             this.expenseCount = expenseCount;
-            this.budget = budget;
+            this.budgetAmount = budgetAmount;
+        }
+
+        public CategoryExpenseItem(CategoryExpenseSummary summary) {
+            this(summary.getCategoryId(), summary.getCategoryName(), summary.getTotalExpense(),
+                    summary.getExpenseCount(), summary.getBudgetAmount());
         }
     }
 
-    public CategoryExpenseAdapter(List<CategoryExpenseItem> categoryExpenseList, OnCategoryClickListener onCategoryClickListener) {
-        this.categoryExpenseList = categoryExpenseList;
+    public CategoryExpenseAdapter(OnCategoryClickListener onCategoryClickListener) {
+        super(DIFF);
         this.onCategoryClickListener = onCategoryClickListener;
+        setHasStableIds(true);
     }
 
 
@@ -56,7 +79,7 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        CategoryExpenseItem item = categoryExpenseList.get(position);
+        CategoryExpenseItem item = getItem(position);
         Context holderContext = holder.itemView.getContext();
 
         holder.categoryNameText.setText(item.categoryName);
@@ -64,11 +87,11 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
         String transactionText = holderContext.getString(R.string.transactions);
         holder.expenseCountText.setText(item.expenseCount + " " + transactionText);
 
-        if (item.budget != null) {
+        if (item.budgetAmount != null) {
             holder.budgetLayout.setVisibility(View.VISIBLE);
-            holder.budgetAmountText.setText(CurrencyManager.formatDisplayCurrency(holderContext, item.budget.getAmount()));
+            holder.budgetAmountText.setText(CurrencyManager.formatDisplayCurrency(holderContext, item.budgetAmount));
 
-            double percentage = (item.totalExpense / item.budget.getAmount()) * 100;
+            double percentage = item.totalExpense.percentOf(item.budgetAmount);
             int progress = (int) Math.min(Math.max(percentage, 0), 100);
             holder.progressBar.setProgress(progress);
 
@@ -96,8 +119,8 @@ public class CategoryExpenseAdapter extends RecyclerView.Adapter<CategoryExpense
     }
 
     @Override
-    public int getItemCount() {
-        return categoryExpenseList.size();
+    public long getItemId(int position) {
+        return getItem(position).categoryId;
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
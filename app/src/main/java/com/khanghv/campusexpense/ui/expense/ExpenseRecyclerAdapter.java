@@ -5,24 +5,35 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.khanghv.campusexpense.R;
 import com.khanghv.campusexpense.data.model.Expense;
-import com.khanghv.campusexpense.data.model.Category;
-import com.khanghv.campusexpense.util.CurrencyManager;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 
-public class ExpenseRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+// Danh sách dòng (header + expense) được so khác biệt trên luồng nền bởi ListAdapter với id ổn định,
+// nên sửa một expense hoặc dịch cửa sổ của ExpensePager chỉ bind lại/chèn/xóa đúng các dòng thay đổi
+public class ExpenseRecyclerAdapter extends ListAdapter<ExpenseRecyclerAdapter.ExpenseItem, RecyclerView.ViewHolder> {
 
     private static final int TYPE_HEADER = 0;
     private static final int TYPE_ITEM = 1;
+    // id của header nằm ở nửa âm nên không trùng id expense
+    static final long HEADER_ID_BASE = Long.MIN_VALUE / 2;
+
+    private static final DiffUtil.ItemCallback<ExpenseItem> DIFF = new DiffUtil.ItemCallback<ExpenseItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ExpenseItem oldItem, @NonNull ExpenseItem newItem) {
+            return oldItem.getStableId() == newItem.getStableId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ExpenseItem oldItem, @NonNull ExpenseItem newItem) {
+            return oldItem.hasSameContent(newItem);
+        }
+    };
 
-    private List<ExpenseItem> expenseList;
-    private List<Category> categoryList;
     private OnExpenseClickListener onExpenseClickListener;
     private OnExpenseLongClickListener onExpenseLongClickListener;
 
@@ -34,78 +45,77 @@ public class ExpenseRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.Vi
         void onExpenseLongClick(Expense expense);
     }
 
+    /**
+     * Một dòng của danh sách, dựng sẵn bởi ExpenseRowBuilder trên luồng nền. Chuỗi hiển thị được chụp lại
+     * lúc tạo dòng: sửa đối tượng Expense trong dialog không làm đổi dòng cũ, nên DiffUtil vẫn thấy khác biệt.
+     */
     public static class ExpenseItem {
         public static final int TYPE_HEADER = 0;
         public static final int TYPE_EXPENSE = 1;
 
-        public int type;
-        public String headerText;
-        public Expense expense;
-
-        public ExpenseItem(String headerText) {
+        public final int type;
+        public final int epochDay;
+        public final String headerText;
+        public final Expense expense;
+        final String categoryName;
+        final String amountText;
+        final String timeText;
+        // null khi không có mô tả
+        final String description;
+
+        ExpenseItem(int epochDay, String headerText) {
             this.type = TYPE_HEADER;
+            this.epochDay = epochDay;
             this.headerText = headerText;
+            this.expense = null;
+            this.categoryName = null;
+            this.amountText = null;
+            this.timeText = null;
+            this.description = null;
         }
 
-        public ExpenseItem(Expense expense) {
+        ExpenseItem(Expense expense, String categoryName, String amountText, String timeText, String description) {
             this.type = TYPE_EXPENSE;
+            this.epochDay = expense.getEpochDay();
+            this.headerText = null;
             this.expense = expense;
+            this.categoryName = categoryName;
+            this.amountText = amountText;
+            this.timeText = timeText;
+            this.description = description;
         }
-    }
-
-    private android.content.Context context;
 
-    public ExpenseRecyclerAdapter(List<Expense> expenseList,
-                                  List<Category> categoryList,
-                                  OnExpenseClickListener onExpenseClickListener,
-                                  OnExpenseLongClickListener onExpenseLongClickListener) {
-        this.onExpenseClickListener = onExpenseClickListener;
-        this.onExpenseLongClickListener = onExpenseLongClickListener;
-        this.categoryList = categoryList != null ? categoryList : new ArrayList<>();
-        this.expenseList = new ArrayList<>();
-    }
-
-    public void setContext(android.content.Context context) {
-        this.context = context;
-    }
-
-    private List<ExpenseItem> groupExpensesByDate(List<Expense> expenses) {
-        List<ExpenseItem> items = new ArrayList<>();
-        if (expenses.isEmpty()) {
-            return items;
+        long getStableId() {
+            return type == TYPE_HEADER ? HEADER_ID_BASE + epochDay : expense.getId();
         }
 
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        SimpleDateFormat todayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-
-        String currentDateHeader = null;
-        String today = todayFormat.format(new Date());
-
-        for (Expense expense : expenses) {
-            String expenseDate = todayFormat.format(new Date(expense.getDate()));
-            String dateHeader;
-
-            if (expenseDate.equals(today)) {
-                dateHeader = context != null ? context.getString(R.string.today) : "Today";
-            } else {
-                dateHeader = dateFormat.format(new Date(expense.getDate()));
+        boolean hasSameContent(ExpenseItem other) {
+            if (type == TYPE_HEADER) {
+                return Objects.equals(headerText, other.headerText);
             }
-
-            if (!dateHeader.equals(currentDateHeader)) {
-                items.add(new ExpenseItem(dateHeader));
-                currentDateHeader = dateHeader;
-            }
-
-            items.add(new ExpenseItem(expense));
+            return Objects.equals(timeText, other.timeText)
+                    && Objects.equals(amountText, other.amountText)
+                    && Objects.equals(categoryName, other.categoryName)
+                    && Objects.equals(description, other.description);
         }
+    }
 
-        return items;
+    public ExpenseRecyclerAdapter(OnExpenseClickListener onExpenseClickListener,
+                                  OnExpenseLongClickListener onExpenseLongClickListener) {
+        super(DIFF);
+        this.onExpenseClickListener = onExpenseClickListener;
+        this.onExpenseLongClickListener = onExpenseLongClickListener;
+        setHasStableIds(true);
     }
 
     @Override
     public int getItemViewType(int position) {
-        return expenseList.get(position).type == ExpenseItem.TYPE_HEADER ? TYPE_HEADER : TYPE_ITEM;
+        return getItem(position).type == ExpenseItem.TYPE_HEADER ? TYPE_HEADER : TYPE_ITEM;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getStableId();
     }
 
     @NonNull
@@ -122,9 +132,10 @@ public class ExpenseRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.Vi
         }
     }
 
+    // Mọi chuỗi đã được dựng sẵn, ở đây chỉ gán vào view
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        ExpenseItem item = expenseList.get(position);
+        ExpenseItem item = getItem(position);
 
         if (item.type == ExpenseItem.TYPE_HEADER) {
             HeaderViewHolder headerHolder = (HeaderViewHolder) holder;
@@ -132,15 +143,13 @@ public class ExpenseRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.Vi
         } else {
             ExpenseViewHolder expenseHolder = (ExpenseViewHolder) holder;
             Expense expense = item.expense;
-            SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
 
-            String categoryName = getCategoryName(expense.getCategoryId());
-            expenseHolder.categoryNameText.setText(categoryName);
-            expenseHolder.amountText.setText(CurrencyManager.formatDisplayCurrency(context, expense.getAmount()));
-            expenseHolder.timeText.setText(timeFormat.format(new Date(expense.getDate())));
+            expenseHolder.categoryNameText.setText(item.categoryName);
+            expenseHolder.amountText.setText(item.amountText);
+            expenseHolder.timeText.setText(item.timeText);
 
-            if (expense.getDescription() != null && !expense.getDescription().trim().isEmpty()) {
-                expenseHolder.descriptionText.setText(expense.getDescription());
+            if (item.description != null) {
+                expenseHolder.descriptionText.setText(item.description);
                 expenseHolder.descriptionText.setVisibility(View.VISIBLE);
             } else {
                 expenseHolder.descriptionText.setVisibility(View.GONE);
@@ -161,28 +170,9 @@ public class ExpenseRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.Vi
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return expenseList.size();
-    }
-
-    public void updateExpenses(List<Expense> expenses) {
-        this.expenseList = groupExpensesByDate(expenses);
-        notifyDataSetChanged();
-    }
-
-    public void setCategoryList(List<Category> categoryList) {
-        this.categoryList = categoryList != null ? categoryList : new ArrayList<>();
-        notifyDataSetChanged();
-    }
-
-    private String getCategoryName(int categoryId) {
-        for (Category category : categoryList) {
-            if (category.getId() == categoryId) {
-                return category.getName();
-            }
-        }
-        return "Unknown";
+    // Các dòng của cả cửa sổ đang giữ (tối đa MAX_PAGES trang), thay cho danh sách trước
+    public void submitRows(List<ExpenseItem> items) {
+        submitList(items);
     }
 
     static class HeaderViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,59 @@
+package com.khanghv.campusexpense.ui.expense;
+
+import com.khanghv.campusexpense.data.CategoryCache;
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+import com.khanghv.campusexpense.util.CalendarBuckets;
+import com.khanghv.campusexpense.util.DateLabels;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dựng các dòng hiển thị (header ngày, giờ, số tiền, tên category) của tab By Date trong một lượt duyệt,
+ * chạy trên luồng nền để onBindViewHolder chỉ còn gán chuỗi.
+ * Mỗi builder dùng cho một lần tải; mỗi lần cửa sổ của ExpensePager đổi thì dựng lại cả cửa sổ (tối đa
+ * MAX_PAGES * PAGE_SIZE dòng) nên builder không giữ trạng thái giữa các lần gọi.
+ */
+public final class ExpenseRowBuilder {
+
+    public interface AmountFormatter {
+        String format(Money amount);
+    }
+
+    private final CategoryCache.Categories categories;
+    private final AmountFormatter amountFormatter;
+    private final String todayLabel;
+    private final String unknownCategory;
+    private final int today = CalendarBuckets.todayEpochDay();
+
+    // Chuỗi nhãn lấy từ resources trên main thread rồi truyền vào, builder không giữ Context
+    public ExpenseRowBuilder(CategoryCache.Categories categories, AmountFormatter amountFormatter,
+                             String todayLabel, String unknownCategory) {
+        this.categories = categories;
+        this.amountFormatter = amountFormatter;
+        this.todayLabel = todayLabel;
+        this.unknownCategory = unknownCategory;
+    }
+
+    // Danh sách đã sắp theo ngày giảm dần nên chỉ cần so epochDay với dòng trước
+    public List<ExpenseRecyclerAdapter.ExpenseItem> build(List<Expense> expenses) {
+        List<ExpenseRecyclerAdapter.ExpenseItem> rows = new ArrayList<>(expenses.size() + 8);
+        int lastHeaderDay = Integer.MIN_VALUE;
+        for (Expense expense : expenses) {
+            int expenseDay = expense.getEpochDay();
+            if (expenseDay != lastHeaderDay) {
+                String header = expenseDay == today ? todayLabel : DateLabels.day(expenseDay);
+                rows.add(new ExpenseRecyclerAdapter.ExpenseItem(expenseDay, header));
+                lastHeaderDay = expenseDay;
+            }
+            String description = expense.getDescription();
+            rows.add(new ExpenseRecyclerAdapter.ExpenseItem(expense,
+                    categories != null ? categories.nameOf(expense.getCategoryId(), unknownCategory) : unknownCategory,
+                    amountFormatter.format(expense.getAmount()),
+                    DateLabels.time(expense.getDate()),
+                    description != null && !description.trim().isEmpty() ? description : null));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,53 @@
+package com.khanghv.campusexpense.ui.expense;
+
+import androidx.lifecycle.ViewModel;
+
+/**
+ * Trạng thái lọc của tab Expense (tháng, category, tab con, tìm kiếm). Sống cùng fragment giữ lại
+ * trong MainActivity và qua cả recreate (đổi ngôn ngữ, xoay màn hình) nên quay lại tab vẫn đúng bộ lọc cũ.
+ */
+public class ExpenseViewModel extends ViewModel {
+
+    // Vị trí trong spinner tháng: 6 là tháng hiện tại, trước/sau 6 tháng
+    public static final int CURRENT_MONTH_POSITION = 6;
+    // Mục cuối của spinner: không lọc theo tháng
+    public static final int ALL_TIME_POSITION = 13;
+
+    private int monthPosition = CURRENT_MONTH_POSITION;
+    private int categoryId = -1;
+    private int tab = 0;
+    // Biểu thức MATCH của ô tìm kiếm, null khi ô trống
+    private String searchQuery;
+
+    public int getMonthPosition() {
+        return monthPosition;
+    }
+
+    public void setMonthPosition(int monthPosition) {
+        this.monthPosition = monthPosition;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public int getTab() {
+        return tab;
+    }
+
+    public void setTab(int tab) {
+        this.tab = tab;
+    }
+
+    public String getSearchQuery() {
+        return searchQuery;
+    }
+
+    public void setSearchQuery(String searchQuery) {
+        this.searchQuery = searchQuery;
+    }
+}
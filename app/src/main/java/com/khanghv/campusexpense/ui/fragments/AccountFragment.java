@@ -1,7 +1,8 @@
 package com.khanghv.campusexpense.ui.fragments;
 
+import android.app.AlertDialog;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -10,12 +11,17 @@ import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.khanghv.campusexpense.MainActivity;
 import com.khanghv.campusexpense.R;
+import com.khanghv.campusexpense.data.ExpenseCsvImporter;
+import com.khanghv.campusexpense.data.ExpenseExporter;
 import com.khanghv.campusexpense.ui.auth.LoginActivity;
+import com.khanghv.campusexpense.util.AppSettings;
 import com.khanghv.campusexpense.util.CurrencyManager;
 import com.khanghv.campusexpense.util.LocaleManager;
 
@@ -25,9 +31,20 @@ public class AccountFragment extends Fragment {
     private TextView usernameText;
     private TextView avatarText;
     private Button categoryButton;
+    private Button importButton;
+    private Button exportButton;
     private Button logoutButton;
     private Button languageButton;
-    private SharedPreferences sharedPreferences;
+    private AlertDialog progressDialog;
+
+    private final ActivityResultLauncher<String[]> importFileLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::startImport);
+    private final ActivityResultLauncher<String> exportCsvLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(ExpenseExporter.Format.CSV.mimeType),
+            uri -> startExport(uri, ExpenseExporter.Format.CSV));
+    private final ActivityResultLauncher<String> exportJsonLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(ExpenseExporter.Format.NDJSON.mimeType),
+            uri -> startExport(uri, ExpenseExporter.Format.NDJSON));
 
     @Nullable
     @Override
@@ -39,11 +56,11 @@ public class AccountFragment extends Fragment {
         usernameText = view.findViewById(R.id.usernameText);
         avatarText = view.findViewById(R.id.avatarText);
         categoryButton = view.findViewById(R.id.categoryButton);
+        importButton = view.findViewById(R.id.importButton);
+        exportButton = view.findViewById(R.id.exportButton);
         languageButton = view.findViewById(R.id.languageButton);
         logoutButton = view.findViewById(R.id.logoutButton);
-        sharedPreferences = getActivity().getSharedPreferences("user_prefs", 0);
-
-        String username = sharedPreferences.getString("username", "");
+        String username = AppSettings.get(requireContext()).getUsername();
         welcomeText.setText(R.string.welcome);
         usernameText.setText(username);
 
@@ -58,15 +75,140 @@ public class AccountFragment extends Fragment {
             }
         });
 
+        importButton.setOnClickListener(v -> importFileLauncher.launch(
+                new String[]{"text/csv", "text/comma-separated-values", "text/plain", "application/vnd.ms-excel"}));
+        exportButton.setOnClickListener(v -> showExportFormatDialog());
         logoutButton.setOnClickListener(v -> logout());
         setupLanguageButton();
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        // Lần nhập/xuất vẫn chạy tiếp ở nền, chỉ đóng dialog gắn với view cũ
+        if (progressDialog != null) {
+            progressDialog.dismiss();
+            progressDialog = null;
+        }
+        super.onDestroyView();
+    }
+
+    private void startImport(@Nullable Uri uri) {
+        int userId = AppSettings.get(requireContext()).getUserId();
+        if (uri == null || userId == -1) {
+            return;
+        }
+        ExpenseCsvImporter importer = new ExpenseCsvImporter(requireContext());
+        progressDialog = new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.import_csv)
+                .setMessage(getString(R.string.import_progress, 0))
+                .setCancelable(false)
+                .setNegativeButton(R.string.cancel, (dialog, which) -> importer.cancel())
+                .show();
+        setBackgroundButtonsEnabled(false);
+
+        importer.start(uri, userId, new ExpenseCsvImporter.Listener() {
+            @Override
+            public void onProgress(int imported, int skipped) {
+                if (progressDialog != null) {
+                    progressDialog.setMessage(getString(R.string.import_progress, imported));
+                }
+            }
+
+            @Override
+            public void onFinished(ExpenseCsvImporter.Result result) {
+                if (!finishBackgroundTask()) {
+                    return;
+                }
+                String message = result.cancelled ?
+                        getString(R.string.import_cancelled, result.imported) :
+                        getString(R.string.import_done, result.imported, result.skipped);
+                Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                if (finishBackgroundTask()) {
+                    Toast.makeText(requireContext(), R.string.import_failed, Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    // false nếu view đã bị hủy trong lúc nhập/xuất
+    private boolean finishBackgroundTask() {
+        if (progressDialog != null) {
+            progressDialog.dismiss();
+            progressDialog = null;
+        }
+        if (getView() == null) {
+            return false;
+        }
+        setBackgroundButtonsEnabled(true);
+        return true;
+    }
+
+    private void setBackgroundButtonsEnabled(boolean enabled) {
+        importButton.setEnabled(enabled);
+        exportButton.setEnabled(enabled);
+    }
+
+    private void showExportFormatDialog() {
+        String[] formats = {getString(R.string.export_format_csv), getString(R.string.export_format_json)};
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.export_data)
+                .setItems(formats, (dialog, which) -> {
+                    if (which == 0) {
+                        exportCsvLauncher.launch("campus-expenses." + ExpenseExporter.Format.CSV.extension);
+                    } else {
+                        exportJsonLauncher.launch("campus-expenses." + ExpenseExporter.Format.NDJSON.extension);
+                    }
+                })
+                .show();
+    }
+
+    private void startExport(@Nullable Uri uri, ExpenseExporter.Format format) {
+        int userId = AppSettings.get(requireContext()).getUserId();
+        if (uri == null || userId == -1) {
+            return;
+        }
+        ExpenseExporter exporter = new ExpenseExporter(requireContext());
+        progressDialog = new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.export_data)
+                .setMessage(getString(R.string.export_progress, 0))
+                .setCancelable(false)
+                .setNegativeButton(R.string.cancel, (dialog, which) -> exporter.cancel())
+                .show();
+        setBackgroundButtonsEnabled(false);
+
+        exporter.start(uri, userId, format, new ExpenseExporter.Listener() {
+            @Override
+            public void onProgress(int exported) {
+                if (progressDialog != null) {
+                    progressDialog.setMessage(getString(R.string.export_progress, exported));
+                }
+            }
+
+            @Override
+            public void onFinished(int exported, boolean cancelled) {
+                if (finishBackgroundTask()) {
+                    Toast.makeText(requireContext(), cancelled ?
+                            getString(R.string.export_cancelled) :
+                            getString(R.string.export_done, exported), Toast.LENGTH_LONG).show();
+                }
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                if (finishBackgroundTask()) {
+                    Toast.makeText(requireContext(), R.string.export_failed, Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
     private void logout() {
-    SharedPreferences.Editor editor = sharedPreferences.edit();
-    editor.clear();
-    editor.apply();
+        AppSettings.clearSession(requireContext());
         Intent intent = new Intent(getActivity(), LoginActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
         startActivity(intent);
@@ -86,8 +228,7 @@ public class AccountFragment extends Fragment {
                             CurrencyManager.CurrencyType.VND;
             CurrencyManager.setDisplayCurrency(requireContext(), nextCurrency);
             // Đánh dấu để MainActivity biết cần reset về Home sau khi recreate
-            SharedPreferences settingsPrefs = requireContext().getSharedPreferences("settings_prefs", 0);
-            settingsPrefs.edit().putBoolean("reset_to_home_after_recreate", true).apply();
+            AppSettings.setResetToHomeAfterRecreate(requireContext(), true);
             Toast.makeText(requireContext(), R.string.currency_rate_updating, Toast.LENGTH_SHORT).show();
             CurrencyManager.refreshRateIfNeeded(requireContext(), true, new CurrencyManager.RateUpdateListener() {
                 @Override
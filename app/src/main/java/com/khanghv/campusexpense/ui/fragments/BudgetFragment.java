@@ -1,8 +1,6 @@
 package com.khanghv.campusexpense.ui.fragments;
 
 import android.app.AlertDialog;
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -23,12 +21,18 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.khanghv.campusexpense.R;
+import com.khanghv.campusexpense.data.CategoryCache;
+import com.khanghv.campusexpense.data.ChangeBus;
+import com.khanghv.campusexpense.data.DatabaseDispatcher;
+import com.khanghv.campusexpense.data.TableLiveData;
 import com.khanghv.campusexpense.data.database.AppDatabase;
 import com.khanghv.campusexpense.data.database.BudgetDao;
 import com.khanghv.campusexpense.data.database.CategoryDao;
 import com.khanghv.campusexpense.data.model.Budget;
 import com.khanghv.campusexpense.data.model.Category;
+import com.khanghv.campusexpense.data.model.Money;
 import com.khanghv.campusexpense.ui.budget.BudgetRecyclerAdapter;
+import com.khanghv.campusexpense.util.AppSettings;
 import com.khanghv.campusexpense.util.CurrencyManager;
 
 import java.util.ArrayList;
@@ -38,13 +42,10 @@ public class BudgetFragment extends Fragment {
     private RecyclerView recyclerView;
     private FloatingActionButton fabAdd;
     private BudgetRecyclerAdapter adapter;
-    private List<Budget> budgetList;
     private List<Category> categoryList;
-    private List<String> categoryNames;
     private BudgetDao budgetDao;
     private CategoryDao categoryDao;
     private TextView emptyView;
-    private SharedPreferences sharedPreferences;
     private int currentUserId;
 
 
@@ -56,33 +57,36 @@ public class BudgetFragment extends Fragment {
         recyclerView = view.findViewById(R.id.recyclerView);
         fabAdd = view.findViewById(R.id.fabAdd);
         emptyView = view.findViewById(R.id.emptyView);
-        sharedPreferences = requireContext().getSharedPreferences("user_prefs", Context.MODE_PRIVATE);
-        currentUserId = sharedPreferences.getInt("userId", -1);
+        currentUserId = AppSettings.get(requireContext()).getUserId();
         AppDatabase db = AppDatabase.getInstance(requireContext());
         budgetDao = db.budgetDao();
         categoryDao = db.categoryDao();
-        budgetList = new ArrayList<>();
         categoryList = new ArrayList<>();
-        categoryNames = new ArrayList<>();
-        adapter = new BudgetRecyclerAdapter(budgetList, categoryNames, this::showEditDialog, this::showDeleteDialog);
+        adapter = new BudgetRecyclerAdapter(this::showEditDialog, this::showDeleteDialog);
         recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         recyclerView.setAdapter(adapter);
         fabAdd.setOnClickListener(v -> showAddBudgetDialog());
         CurrencyManager.refreshRateIfNeeded(requireContext(), false, null);
-        refreshBudgetList();
+        // Tải lại khi budgets hoặc categories (tên hiển thị) thay đổi, không tải lại mỗi lần quay lại màn hình
+        new TableLiveData<>(db, new String[]{"budgets", "categories"}, this::loadBudgetList)
+                .observe(getViewLifecycleOwner(), this::showBudgetList);
         return view;
     }
 
-    private void refreshBudgetList() {
-        budgetList.clear();
-        budgetList.addAll(budgetDao.getAllBudgetsByUser(currentUserId));
-        categoryNames.clear();
-        for (Budget budget : budgetList) {
-            Category category = categoryDao.getById(budget.getCategoryId());
-            categoryNames.add(category == null ? "Unknown Category" : category.getName());
+    // Chạy trên luồng đọc của DatabaseDispatcher; tên category tra trong CategoryCache, không truy vấn theo từng budget
+    private List<BudgetRecyclerAdapter.Item> loadBudgetList() {
+        List<Budget> budgets = budgetDao.getAllBudgetsByUser(currentUserId);
+        CategoryCache.Categories categories = CategoryCache.get(categoryDao, currentUserId);
+        List<BudgetRecyclerAdapter.Item> items = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            items.add(new BudgetRecyclerAdapter.Item(budget, categories.nameOf(budget.getCategoryId(), "Unknown Category")));
         }
-        adapter.notifyDataSetChanged();
-        if (budgetList.isEmpty()) {
+        return items;
+    }
+
+    private void showBudgetList(List<BudgetRecyclerAdapter.Item> items) {
+        adapter.submitList(items);
+        if (items.isEmpty()) {
             emptyView.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
         } else {
@@ -95,19 +99,24 @@ public class BudgetFragment extends Fragment {
         new AlertDialog.Builder(requireContext())
                 .setTitle(getString(R.string.delete_budget))
                 .setMessage(getString(R.string.confirm_delete_budget))
-                .setPositiveButton(getString(R.string.delete), (dialog, which) -> {
-                    budgetDao.delete(budget);
-                    refreshBudgetList();
-                    Toast.makeText(requireContext(), getString(R.string.budget_deleted), Toast.LENGTH_SHORT).show();
-                })
+                .setPositiveButton(getString(R.string.delete), (dialog, which) ->
+                        DatabaseDispatcher.write(getViewLifecycleOwner(), () -> {
+                                    budgetDao.delete(budget);
+                                    ChangeBus.publish(ChangeBus.Scope.budgets(currentUserId, budget.getCategoryId()));
+                                }, () -> Toast.makeText(requireContext(), getString(R.string.budget_deleted), Toast.LENGTH_SHORT).show()))
                 .setNegativeButton(getString(R.string.cancel), null)
                 .show();
     }
 
     private void showAddBudgetDialog() {
-        categoryList.clear();
-        categoryList.addAll(categoryDao.getAllByUser(currentUserId));
+        DatabaseDispatcher.read(getViewLifecycleOwner(), () -> CategoryCache.get(categoryDao, currentUserId).all(), categories -> {
+            categoryList.clear();
+            categoryList.addAll(categories);
+            showAddBudgetDialogWithCategories();
+        });
+    }
 
+    private void showAddBudgetDialogWithCategories() {
         if (categoryList.isEmpty()) {
             Toast.makeText(requireContext(), "Please add categories first", Toast.LENGTH_SHORT).show();
             return;
@@ -148,28 +157,42 @@ public class BudgetFragment extends Fragment {
             String amountStr = amountInput.getText().toString().trim();
             int periodPosition = periodSpinner.getSelectedItemPosition();
             double displayAmount = CurrencyManager.parseDisplayAmount(amountStr);
-            double amount = CurrencyManager.toBaseCurrency(requireContext(), displayAmount);
+            Money amount = CurrencyManager.toBaseCurrency(requireContext(), displayAmount);
             Category selectedCategory = categoryList.get(categoryPosition);
             String period = periods[periodPosition];
-            Budget existingBudget = budgetDao.getBudgetByCategoryAndUser(currentUserId, selectedCategory.getId());
-            if (existingBudget != null) {
-                Toast.makeText(requireContext(), "Budget for this category already exists", Toast.LENGTH_SHORT).show();
-                return;
-            }
-            Budget budget = new Budget(currentUserId, selectedCategory.getId(), amount, period);
-            budgetDao.insert(budget);
-            refreshBudgetList();
-            dialog.dismiss();
-            Toast.makeText(requireContext(), "Budget added successfully", Toast.LENGTH_SHORT).show();
+            saveButton.setEnabled(false);
+            // Kiểm tra trùng và thêm mới trên cùng luồng ghi để không chen ngang giữa hai bước
+            DatabaseDispatcher.writeForResult(getViewLifecycleOwner(), () -> {
+                Budget existingBudget = budgetDao.getBudgetByCategoryAndUser(currentUserId, selectedCategory.getId());
+                if (existingBudget != null) {
+                    return false;
+                }
+                budgetDao.insert(new Budget(currentUserId, selectedCategory.getId(), amount, period));
+                ChangeBus.publish(ChangeBus.Scope.budgets(currentUserId, selectedCategory.getId()));
+                return true;
+            }, inserted -> {
+                saveButton.setEnabled(true);
+                if (!inserted) {
+                    Toast.makeText(requireContext(), "Budget for this category already exists", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                dialog.dismiss();
+                Toast.makeText(requireContext(), "Budget added successfully", Toast.LENGTH_SHORT).show();
+            });
         });
         cancelButton.setOnClickListener(v -> dialog.dismiss());
         dialog.show();
     }
 
     private void showEditDialog(Budget budget) {
-        categoryList.clear();
-        categoryList.addAll(categoryDao.getAllByUser(currentUserId));
+        DatabaseDispatcher.read(getViewLifecycleOwner(), () -> CategoryCache.get(categoryDao, currentUserId).all(), categories -> {
+            categoryList.clear();
+            categoryList.addAll(categories);
+            showEditDialogWithCategories(budget);
+        });
+    }
 
+    private void showEditDialogWithCategories(Budget budget) {
         AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
         View dialogView = LayoutInflater.from(requireContext()).inflate(R.layout.dialog_budget, null);
 
@@ -195,19 +218,16 @@ public class BudgetFragment extends Fragment {
         categoryAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         categorySpinner.setAdapter(categoryAdapter);
 
-        Category category = categoryDao.getById(budget.getCategoryId());
-        if (category != null) {
-            int categoryIndex = -1;
-            for (int i = 0; i < categoryList.size(); i++) {
-                if (categoryList.get(i).getId() == budget.getCategoryId()) {
-                    categoryIndex = i;
-                    break;
-                }
-            }
-            if (categoryIndex >= 0) {
-                categorySpinner.setSelection(categoryIndex);
+        int categoryIndex = -1;
+        for (int i = 0; i < categoryList.size(); i++) {
+            if (categoryList.get(i).getId() == budget.getCategoryId()) {
+                categoryIndex = i;
+                break;
             }
         }
+        if (categoryIndex >= 0) {
+            categorySpinner.setSelection(categoryIndex);
+        }
         categorySpinner.setEnabled(false);
 
         amountInput.setText(CurrencyManager.formatEditableValue(requireContext(), budget.getAmount()));
@@ -246,11 +266,11 @@ public class BudgetFragment extends Fragment {
                 return;
             }
 
-            double amount;
+            Money amount;
             try {
                 double displayAmount = CurrencyManager.parseDisplayAmount(amountStr);
                 amount = CurrencyManager.toBaseCurrency(requireContext(), displayAmount);
-                if (amount <= 0) {
+                if (!amount.isPositive()) {
                     Toast.makeText(requireContext(), "Amount must be greater than 0", Toast.LENGTH_SHORT).show();
                     return;
                 }
@@ -261,10 +281,14 @@ public class BudgetFragment extends Fragment {
 
             budget.setAmount(amount);
             budget.setPeriod(periods[periodPosition]);
-            budgetDao.update(budget);
-            refreshBudgetList();
-            dialog.dismiss();
-            Toast.makeText(requireContext(), "Budget updated successfully", Toast.LENGTH_SHORT).show();
+            saveButton.setEnabled(false);
+            DatabaseDispatcher.write(getViewLifecycleOwner(), () -> {
+                budgetDao.update(budget);
+                ChangeBus.publish(ChangeBus.Scope.budgets(currentUserId, budget.getCategoryId()));
+            }, () -> {
+                dialog.dismiss();
+                Toast.makeText(requireContext(), "Budget updated successfully", Toast.LENGTH_SHORT).show();
+            });
         });
 
         cancelButton.setOnClickListener(v -> dialog.dismiss());
@@ -18,26 +18,23 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.khanghv.campusexpense.R;
+import com.khanghv.campusexpense.data.CategoryCache;
+import com.khanghv.campusexpense.data.ChangeBus;
+import com.khanghv.campusexpense.data.DatabaseDispatcher;
 import com.khanghv.campusexpense.data.database.AppDatabase;
 import com.khanghv.campusexpense.data.model.Category;
 import com.khanghv.campusexpense.ui.category.CategoryRecyclerAdapter;
 import com.khanghv.campusexpense.data.database.CategoryDao;
-import com.khanghv.campusexpense.data.database.ExpenseDao;
-import com.khanghv.campusexpense.data.database.BudgetDao;
+import com.khanghv.campusexpense.util.AppSettings;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class CategoryFragment extends Fragment {
     private RecyclerView recyclerView;
     private FloatingActionButton fabAdd;
     private CategoryRecyclerAdapter adapter;
-    private List<Category> categoriesList;
     private CategoryDao categoryDao;
-    private ExpenseDao expenseDao;
-    private BudgetDao budgetDao;
     private TextView emptyView;
-    private android.content.SharedPreferences sharedPreferences;
     private int currentUserId;
 
     @Nullable
@@ -50,14 +47,9 @@ public class CategoryFragment extends Fragment {
         emptyView = view.findViewById(R.id.emptyView);
         AppDatabase db = AppDatabase.getInstance(requireContext());
         categoryDao = db.categoryDao();
-        expenseDao = db.expenseDao();
-        budgetDao = db.budgetDao();
-        sharedPreferences = requireContext().getSharedPreferences("user_prefs", android.content.Context.MODE_PRIVATE);
-        currentUserId = sharedPreferences.getInt("userId", -1);
+        currentUserId = AppSettings.get(requireContext()).getUserId();
 
-        categoriesList = new ArrayList<>();
         adapter = new CategoryRecyclerAdapter(
-                categoriesList,
                 this::showEditDialog,
                 this::showDeleteDialog);
 
@@ -65,7 +57,8 @@ public class CategoryFragment extends Fragment {
         recyclerView.setAdapter(adapter);
 
         fabAdd.setOnClickListener(v -> showAddDialog());
-        refreshList();
+        // Room chạy lại truy vấn khi bảng categories thay đổi, kể cả thay đổi từ màn hình khác
+        categoryDao.getAllByUserLiveData(currentUserId).observe(getViewLifecycleOwner(), this::showList);
         return view;
     }
 
@@ -87,21 +80,23 @@ public class CategoryFragment extends Fragment {
                 return;
             }
             Category category = new Category(currentUserId, name);
-            categoryDao.insert(category);
-            refreshList();
-            dialog.dismiss();
-            Toast.makeText(requireContext(), getString(R.string.category_added), Toast.LENGTH_SHORT).show();
+            saveButton.setEnabled(false);
+            DatabaseDispatcher.write(getViewLifecycleOwner(), () -> {
+                CategoryCache.write(currentUserId, () -> category.setId((int) categoryDao.insert(category)));
+                ChangeBus.publish(ChangeBus.Scope.categories(currentUserId, category.getId()));
+            }, () -> {
+                dialog.dismiss();
+                Toast.makeText(requireContext(), getString(R.string.category_added), Toast.LENGTH_SHORT).show();
+            });
         });
         cancelButton.setOnClickListener(v -> dialog.dismiss());
         dialog.show();
     }
 
-    private void refreshList(){
-        categoriesList.clear();
-        categoriesList.addAll(categoryDao.getAllByUser(currentUserId));
-        adapter.notifyDataSetChanged();
+    private void showList(List<Category> categories) {
+        adapter.submitList(categories);
 
-        if (categoriesList.isEmpty()){
+        if (categories.isEmpty()){
             recyclerView.setVisibility(View.GONE);
             emptyView.setVisibility(View.VISIBLE);
         } else {
@@ -114,16 +109,16 @@ public class CategoryFragment extends Fragment {
         new AlertDialog.Builder(requireContext())
                 .setTitle(getString(R.string.delete_category))
                 .setMessage(getString(R.string.confirm_delete_category))
-                .setPositiveButton(getString(R.string.delete), (dialog, which) -> {
-                    // Xóa tất cả expenses và budgets liên quan đến category này trước
-                    expenseDao.deleteExpensesByCategoryId(category.getId());
-                    budgetDao.deleteBudgetsByCategoryId(category.getId());
-                    // Sau đó mới xóa category
-                    categoryDao.delete(category);
-                    refreshList();
-                    Toast.makeText(requireContext(), getString(R.string.category_deleted),
-                            Toast.LENGTH_SHORT).show();
-                })
+                .setPositiveButton(getString(R.string.delete), (dialog, which) ->
+                        // Expenses và budgets của category bị xóa theo khóa ngoại CASCADE
+                        DatabaseDispatcher.write(getViewLifecycleOwner(),
+                                () -> {
+                                    CategoryCache.write(currentUserId,
+                                            () -> categoryDao.deleteCategoryForUser(category.getId(), currentUserId));
+                                    ChangeBus.publish(ChangeBus.Scope.categoryCascade(currentUserId, category.getId()));
+                                },
+                                () -> Toast.makeText(requireContext(), getString(R.string.category_deleted),
+                                        Toast.LENGTH_SHORT).show()))
                 .setNegativeButton(getString(R.string.cancel), null)
                 .show();
 
@@ -144,11 +139,17 @@ public class CategoryFragment extends Fragment {
                 Toast.makeText(requireContext(), getString(R.string.error_empty_category_name), Toast.LENGTH_SHORT).show();
                 return;
             }
-            category.setName(name);
-            categoryDao.update(category);
-            refreshList();
-            dialog.dismiss();
-            Toast.makeText(requireContext(), getString(R.string.category_updated), Toast.LENGTH_SHORT).show();
+            // Sửa trên bản sao: đối tượng đang hiển thị phải giữ tên cũ để DiffUtil thấy dòng này đổi
+            Category updated = new Category(category.getUserId(), name);
+            updated.setId(category.getId());
+            saveButton.setEnabled(false);
+            DatabaseDispatcher.write(getViewLifecycleOwner(), () -> {
+                CategoryCache.write(currentUserId, () -> categoryDao.update(updated));
+                ChangeBus.publish(ChangeBus.Scope.categories(currentUserId, updated.getId()));
+            }, () -> {
+                dialog.dismiss();
+                Toast.makeText(requireContext(), getString(R.string.category_updated), Toast.LENGTH_SHORT).show();
+            });
         });
         cancelButton.setOnClickListener(v -> dialog.dismiss());
         dialog.show();
@@ -3,9 +3,10 @@ package com.khanghv.campusexpense.ui.fragments;
 import android.app.AlertDialog;
 import android.app.DatePickerDialog;
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -17,33 +18,53 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.khanghv.campusexpense.R;
+import com.khanghv.campusexpense.data.CategoryCache;
+import com.khanghv.campusexpense.data.ChangeBus;
+import com.khanghv.campusexpense.data.DatabaseDispatcher;
+import com.khanghv.campusexpense.data.ExpensePager;
+import com.khanghv.campusexpense.data.TableLiveData;
 import com.khanghv.campusexpense.data.database.AppDatabase;
-import com.khanghv.campusexpense.data.database.BudgetDao;
 import com.khanghv.campusexpense.data.database.CategoryDao;
 import com.khanghv.campusexpense.data.database.ExpenseDao;
-import com.khanghv.campusexpense.data.model.Budget;
+import com.khanghv.campusexpense.data.database.ExpenseSearchDao;
+import com.khanghv.campusexpense.data.database.FtsQuery;
+import com.khanghv.campusexpense.data.database.MonthlyTotalsDao;
 import com.khanghv.campusexpense.data.model.Category;
+import com.khanghv.campusexpense.data.model.CategoryExpenseSummary;
 import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
 import com.khanghv.campusexpense.ui.expense.CategoryExpenseAdapter;
 import com.khanghv.campusexpense.ui.expense.ExpenseRecyclerAdapter;
+import com.khanghv.campusexpense.ui.expense.ExpenseRowBuilder;
+import com.khanghv.campusexpense.ui.expense.ExpenseViewModel;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 
+import com.khanghv.campusexpense.util.AppSettings;
+import com.khanghv.campusexpense.util.CalendarBuckets;
 import com.khanghv.campusexpense.util.CurrencyManager;
+import com.khanghv.campusexpense.util.DateLabels;
 
 public class ExpenseFragment extends Fragment {
 
+    private static final int PREFETCH_DISTANCE = 15;
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    // yearMonth của bộ lọc "Tất cả thời gian" (không phải tháng hợp lệ)
+    private static final int ALL_TIME = 0;
+
     private RecyclerView recyclerView;
     private FloatingActionButton fabAdd;
     private TabLayout tabLayout;
@@ -52,24 +73,32 @@ public class ExpenseFragment extends Fragment {
     private TextView totalExpenseText;
     private TextView expenseCountText;
     private TextView emptyView;
+    private TextInputEditText searchInput;
 
     private ExpenseDao expenseDao;
     private CategoryDao categoryDao;
-    private BudgetDao budgetDao;
-    private SharedPreferences sharedPreferences;
+    private MonthlyTotalsDao monthlyTotalsDao;
+    private ExpenseSearchDao searchDao;
     private int currentUserId;
 
     private CategoryExpenseAdapter categoryAdapter;
     private ExpenseRecyclerAdapter expenseAdapter;
 
     private List<Category> categoryList;
-    private List<CategoryExpenseAdapter.CategoryExpenseItem> categoryExpenseList;
-    private List<Expense> expenseList;
-
-    private int currentMonth;
-    private int currentYear;
-    private int selectedCategoryId = -1;
-    private int currentTab = 0;
+    // Lần tải tab By Date đang hiển thị (pager, builder dựng lại cửa sổ khi cuộn, bộ lọc).
+    // load() đọc trên luồng nền để tải lại đúng cửa sổ đã hiển thị khi bộ lọc không đổi.
+    private volatile TabData dateData;
+    // Có một trang đang tải cho dateData; đặt lại khi đổi dữ liệu hoặc hủy view vì callback khi đó không chạy
+    private boolean pageLoading;
+    // Dùng trên luồng nền khi dựng dòng, nên lấy sẵn thay vì gọi requireContext() ở đó
+    private Context appContext;
+    private String todayLabel;
+    // Bộ lọc hiện tại; mỗi giá trị mới đổi nguồn LiveData đang theo dõi
+    private final MutableLiveData<Filter> filter = new MutableLiveData<>();
+
+    // Tháng, category, tab con và tìm kiếm đang chọn; giữ trong ViewModel để quay lại tab không mất bộ lọc
+    private ExpenseViewModel state;
+    private final Runnable applySearch = this::applySearchText;
 
     @Nullable
     @Override
@@ -84,52 +113,48 @@ public class ExpenseFragment extends Fragment {
         totalExpenseText = view.findViewById(R.id.totalExpenseText);
         expenseCountText = view.findViewById(R.id.expenseCountText);
         emptyView = view.findViewById(R.id.emptyView);
+        searchInput = view.findViewById(R.id.searchInput);
 
-        sharedPreferences = requireContext().getSharedPreferences("user_prefs", Context.MODE_PRIVATE);
-        currentUserId = sharedPreferences.getInt("userId", -1);
+        currentUserId = AppSettings.get(requireContext()).getUserId();
+        appContext = requireContext().getApplicationContext();
+        todayLabel = getString(R.string.today);
 
         AppDatabase database = AppDatabase.getInstance(requireContext());
         expenseDao = database.expenseDao();
         categoryDao = database.categoryDao();
-        budgetDao = database.budgetDao();
+        monthlyTotalsDao = database.monthlyTotalsDao();
+        searchDao = database.expenseSearchDao();
 
         categoryList = new ArrayList<>();
-        categoryExpenseList = new ArrayList<>();
-        expenseList = new ArrayList<>();
 
-        Calendar calendar = Calendar.getInstance();
-        currentMonth = calendar.get(Calendar.MONTH);
-        currentYear = calendar.get(Calendar.YEAR);
+        state = new ViewModelProvider(this).get(ExpenseViewModel.class);
 
         setupTabs();
         setupSpinners();
         setupRecyclerView();
+        setupSearch();
 
         fabAdd.setOnClickListener(v -> showAddDialog());
         CurrencyManager.refreshRateIfNeeded(requireContext(), false, null);
-        refreshData();
 
-        return view;
-    }
+        // Chỉ tải lại khi bộ lọc đổi hoặc InvalidationTracker báo bảng liên quan thay đổi.
+        // Thay đổi xảy ra lúc fragment đang dừng được gộp lại và tải một lần khi quay lại
+        Transformations.switchMap(filter, f -> new TableLiveData<>(database, f.tables(), () -> load(f)))
+                .observe(getViewLifecycleOwner(), this::showData);
+        updateFilter();
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        // Refresh data khi quay lại fragment
-        if (currentUserId != -1) {
-            refreshData();
-        }
+        return view;
     }
 
     private void setupTabs() {
-        tabLayout.addTab(tabLayout.newTab().setText(R.string.tab_by_category));
-        tabLayout.addTab(tabLayout.newTab().setText(R.string.tab_by_date));
+        tabLayout.addTab(tabLayout.newTab().setText(R.string.tab_by_category), state.getTab() == 0);
+        tabLayout.addTab(tabLayout.newTab().setText(R.string.tab_by_date), state.getTab() == 1);
 
         tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
             public void onTabSelected(TabLayout.Tab tab) {
-                currentTab = tab.getPosition();
-                refreshData();
+                state.setTab(tab.getPosition());
+                updateFilter();
             }
 
             @Override
@@ -141,38 +166,55 @@ public class ExpenseFragment extends Fragment {
     }
 
     private void setupSpinners() {
-        Calendar calendar = Calendar.getInstance();
         List<String> months = new ArrayList<>();
-        int currentMonthIndex = calendar.get(Calendar.MONTH);
-        int currentYearValue = calendar.get(Calendar.YEAR);
-
+        int currentYearMonth = CalendarBuckets.currentYearMonth();
         for (int i = -6; i <= 6; i++) {
-            calendar.set(currentYearValue, currentMonthIndex + i, 1);
-            months.add(new SimpleDateFormat("MMMM yyyy", Locale.getDefault()).format(calendar.getTime()));
+            months.add(DateLabels.month(CalendarBuckets.plusMonths(currentYearMonth, i)));
         }
+        months.add(getString(R.string.all_time));
 
         ArrayAdapter<String> monthAdapter = new ArrayAdapter<>(requireContext(),
                 android.R.layout.simple_spinner_item, months);
         monthAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         monthSpinner.setAdapter(monthAdapter);
-        monthSpinner.setSelection(6);
+        monthSpinner.setSelection(state.getMonthPosition());
         monthSpinner.setOnItemSelectedListener(new android.widget.AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(android.widget.AdapterView<?> parent, View view, int position, long id) {
-                calendar.set(currentYearValue, currentMonthIndex + (position - 6), 1);
-                currentMonth = calendar.get(Calendar.MONTH);
-                currentYear = calendar.get(Calendar.YEAR);
-                refreshData();
+                state.setMonthPosition(position);
+                updateFilter();
             }
 
             @Override
             public void onNothingSelected(android.widget.AdapterView<?> parent) {}
         });
 
+        // View được giữ lại khi đổi tab nên theo dõi bảng categories để spinner thấy category thêm/sửa ở màn khác;
+        // lần tải đầu và các lần không có thay đổi lấy từ CategoryCache
+        new TableLiveData<>(AppDatabase.getInstance(requireContext()), new String[]{"categories"},
+                () -> CategoryCache.get(categoryDao, currentUserId).all())
+                .observe(getViewLifecycleOwner(), this::showCategoryFilter);
+        categoryFilterSpinner.setOnItemSelectedListener(new android.widget.AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(android.widget.AdapterView<?> parent, View view, int position, long id) {
+                if (position == 0) {
+                    state.setCategoryId(-1);
+                } else {
+                    state.setCategoryId(categoryList.get(position - 1).getId());
+                }
+                updateFilter();
+            }
+
+            @Override
+            public void onNothingSelected(android.widget.AdapterView<?> parent) {}
+        });
+    }
+
+    private void showCategoryFilter(List<Category> categories) {
         List<String> categoryNames = new ArrayList<>();
         categoryNames.add(getString(R.string.all_categories));
         categoryList.clear();
-        categoryList.addAll(categoryDao.getAllByUser(currentUserId));
+        categoryList.addAll(categories);
         for (Category cat : categoryList) {
             categoryNames.add(cat.getName());
         }
@@ -181,142 +223,288 @@ public class ExpenseFragment extends Fragment {
                 android.R.layout.simple_spinner_item, categoryNames);
         categoryAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         categoryFilterSpinner.setAdapter(categoryAdapter);
-        categoryFilterSpinner.setOnItemSelectedListener(new android.widget.AdapterView.OnItemSelectedListener() {
-            @Override
-            public void onItemSelected(android.widget.AdapterView<?> parent, View view, int position, long id) {
-                if (position == 0) {
-                    selectedCategoryId = -1;
-                } else {
-                    selectedCategoryId = categoryList.get(position - 1).getId();
-                }
-                refreshData();
+        // Khôi phục category đã chọn; category đã bị xóa thì quay về "Tất cả"
+        int selectedPosition = 0;
+        for (int i = 0; i < categoryList.size(); i++) {
+            if (categoryList.get(i).getId() == state.getCategoryId()) {
+                selectedPosition = i + 1;
+                break;
             }
+        }
+        categoryFilterSpinner.setSelection(selectedPosition);
+    }
 
+    // Gõ phím được gom lại SEARCH_DEBOUNCE_MS rồi mới truy vấn một lần
+    private void setupSearch() {
+        searchInput.addTextChangedListener(new TextWatcher() {
             @Override
-            public void onNothingSelected(android.widget.AdapterView<?> parent) {}
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchInput.removeCallbacks(applySearch);
+                searchInput.postDelayed(applySearch, SEARCH_DEBOUNCE_MS);
+            }
         });
     }
 
+    private void applySearchText() {
+        Editable text = searchInput.getText();
+        String query = FtsQuery.toMatchQuery(text != null ? text.toString() : null);
+        if (TextUtils.equals(query, state.getSearchQuery())) {
+            return;
+        }
+        state.setSearchQuery(query);
+        // Kết quả tìm kiếm là danh sách expense nên hiển thị ở tab By Date
+        if (query != null && state.getTab() != 1) {
+            TabLayout.Tab dateTab = tabLayout.getTabAt(1);
+            if (dateTab != null) {
+                dateTab.select();
+                return;
+            }
+        }
+        updateFilter();
+    }
+
+    @Override
+    public void onDestroyView() {
+        searchInput.removeCallbacks(applySearch);
+        dateData = null;
+        pageLoading = false;
+        super.onDestroyView();
+    }
+
     private void setupRecyclerView() {
         recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
 
-        categoryAdapter = new CategoryExpenseAdapter(categoryExpenseList, (categoryId, categoryName) -> {
+        categoryAdapter = new CategoryExpenseAdapter((categoryId, categoryName) -> {
             showCategoryExpensesDialog(categoryId, categoryName);
         });
 
-        expenseAdapter = new ExpenseRecyclerAdapter(expenseList, categoryList,
+        expenseAdapter = new ExpenseRecyclerAdapter(
                 expense -> showEditDialog(expense),
                 expense -> showDeleteDialog(expense));
-        expenseAdapter.setContext(requireContext());
+
+        // Tab By Date: cuộn gần cuối cửa sổ thì tải trang sau, gần đầu cửa sổ thì đọc lại trang trước đã bị bỏ
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                TabData shown = dateData;
+                LinearLayoutManager layoutManager = (LinearLayoutManager) rv.getLayoutManager();
+                if (state.getTab() != 1 || dy == 0 || shown == null || layoutManager == null) {
+                    return;
+                }
+                if (dy > 0 && shown.pager.hasMore()
+                        && layoutManager.findLastVisibleItemPosition() >= expenseAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadExpensePage(false);
+                } else if (dy < 0 && shown.pager.hasPrevious()
+                        && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    loadExpensePage(true);
+                }
+            }
+        });
     }
 
-    private void refreshData() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(currentYear, currentMonth, 1, 0, 0, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long startDate = calendar.getTimeInMillis();
+    private void updateFilter() {
+        Filter next = new Filter(currentUserId, selectedYearMonth(),
+                state.getCategoryId(), state.getTab(), state.getSearchQuery());
+        // Listener của spinner/tab báo lại cả khi giá trị không đổi, bỏ qua để không truy vấn lại
+        if (!next.equals(filter.getValue())) {
+            filter.setValue(next);
+        }
+    }
 
-        calendar.add(Calendar.MONTH, 1);
-        calendar.add(Calendar.MILLISECOND, -1);
-        long endDate = calendar.getTimeInMillis();
+    private int selectedYearMonth() {
+        if (state.getMonthPosition() == ExpenseViewModel.ALL_TIME_POSITION) {
+            return ALL_TIME;
+        }
+        return CalendarBuckets.plusMonths(CalendarBuckets.currentYearMonth(),
+                state.getMonthPosition() - ExpenseViewModel.CURRENT_MONTH_POSITION);
+    }
 
-        if (currentTab == 0) {
-            refreshCategoryData(startDate, endDate);
+    // Chạy trên luồng đọc của DatabaseDispatcher
+    private TabData load(Filter f) {
+        if (f.tab == 0) {
+            return loadCategoryData(f.userId, f.categoryId, f.yearMonth);
+        }
+        long startDate = startMillis(f.yearMonth);
+        long endDate = endMillis(f.yearMonth);
+        // Cùng bộ lọc (dữ liệu vừa đổi) thì đọc lại cửa sổ đang hiển thị, chỉ về trang đầu khi đổi bộ lọc
+        TabData shown = dateData;
+        ExpensePager pager;
+        if (shown != null && f.equals(shown.filter)) {
+            pager = shown.pager.reload();
         } else {
-            refreshDateData(startDate, endDate);
+            pager = f.searchQuery == null ?
+                    new ExpensePager(expenseDao, f.userId, f.categoryId, startDate, endDate) :
+                    ExpensePager.forSearch(searchDao, f.searchQuery, f.userId, f.categoryId, startDate, endDate);
         }
+        TabData data = f.searchQuery == null ?
+                loadDateData(pager, f.userId, f.categoryId, f.yearMonth) :
+                loadSearchData(pager, f.searchQuery, f.userId, f.categoryId, startDate, endDate);
+        data.pager = pager;
+        data.filter = f;
+        return data;
     }
 
-    private void refreshCategoryData(long startDate, long endDate) {
-        categoryList.clear();
-        categoryList.addAll(categoryDao.getAllByUser(currentUserId));
+    private static long startMillis(int yearMonth) {
+        return yearMonth == ALL_TIME ? Long.MIN_VALUE : CalendarBuckets.monthStartMillis(yearMonth);
+    }
+
+    private static long endMillis(int yearMonth) {
+        return yearMonth == ALL_TIME ? Long.MAX_VALUE : CalendarBuckets.monthEndMillis(yearMonth);
+    }
 
-        categoryExpenseList.clear();
+    // Chạy trên luồng đọc; tải cửa sổ đầu tiên của pager (cửa sổ tải lại rỗng vì các dòng bị xóa thì lùi một trang)
+    private List<ExpenseRecyclerAdapter.ExpenseItem> loadWindow(ExpensePager pager, ExpenseRowBuilder rowBuilder) {
+        pager.loadNextPage();
+        List<Expense> window = pager.window();
+        if (window.isEmpty() && pager.hasPrevious()) {
+            pager.loadPreviousPage();
+            window = pager.window();
+        }
+        return rowBuilder.build(window);
+    }
 
-        List<Category> categories = new ArrayList<>();
-        if (selectedCategoryId == -1) {
-            categories.addAll(categoryList);
+    private void showData(TabData data) {
+        if (data.pager == null) {
+            showCategoryData(data);
         } else {
-            for (Category cat : categoryList) {
-                if (cat.getId() == selectedCategoryId) {
-                    categories.add(cat);
-                    break;
-                }
-            }
+            dateData = data;
+            pageLoading = false;
+            showDateData(data);
         }
+    }
 
-        for (Category category : categories) {
-            List<Expense> expenses = expenseDao.getExpensesByCategoryAndDateRange(currentUserId, category.getId(), startDate, endDate);
-
-            Double total = expenseDao.getTotalExpensesByCategoryAndDateRange(currentUserId, category.getId(), startDate, endDate);
-            double totalExpense = total != null ? total : 0.0;
-
-            if (totalExpense > 0 || selectedCategoryId != -1) {
-                Budget budget = budgetDao.getBudgetByCategoryAndUser(currentUserId, category.getId());
-                categoryExpenseList.add(new CategoryExpenseAdapter.CategoryExpenseItem(
-                        category.getId(),
-                        category.getName(),
-                        totalExpense,
-                        expenses.size(),
-                        budget
-                ));
+    // Chạy trên luồng đọc của DatabaseDispatcher
+    private TabData loadCategoryData(int userId, int categoryId, int yearMonth) {
+        TabData data = new TabData();
+        List<CategoryExpenseSummary> summaries = yearMonth == ALL_TIME ?
+                monthlyTotalsDao.getCategorySummariesAllTime(userId) :
+                monthlyTotalsDao.getCategorySummariesForMonth(userId, yearMonth);
+        for (CategoryExpenseSummary summary : summaries) {
+            if (categoryId != -1 && summary.getCategoryId() != categoryId) {
+                continue;
+            }
+            if (summary.getTotalExpense().isPositive() || categoryId != -1) {
+                data.categoryItems.add(new CategoryExpenseAdapter.CategoryExpenseItem(summary));
+                // Tab By Category - đếm tổng số transactions từ các category hiển thị
+                data.count += summary.getExpenseCount();
             }
         }
-
-        recyclerView.setAdapter(categoryAdapter);
-        categoryAdapter.notifyDataSetChanged();
-
-        // Cập nhật statistics cho tab By Category
-        updateStatistics(startDate, endDate);
-        updateEmptyView();
+        data.total = loadTotal(userId, categoryId, yearMonth);
+        return data;
     }
 
-    private void refreshDateData(long startDate, long endDate) {
-        if (selectedCategoryId == -1) {
-            expenseList.clear();
-            expenseList.addAll(expenseDao.getExpensesByDateRange(currentUserId, startDate, endDate));
+    // Chạy trên luồng đọc của DatabaseDispatcher
+    private TabData loadDateData(ExpensePager pager, int userId, int categoryId, int yearMonth) {
+        TabData data = new TabData();
+        data.rowBuilder = newRowBuilder(userId);
+        data.rows = loadWindow(pager, data.rowBuilder);
+        data.total = loadTotal(userId, categoryId, yearMonth);
+        // Tab By Date - danh sách chỉ tải từng trang nên đếm từ bảng tổng hợp
+        if (yearMonth == ALL_TIME) {
+            data.count = categoryId == -1 ?
+                    monthlyTotalsDao.getCountAllTime(userId) :
+                    monthlyTotalsDao.getCategoryCountAllTime(userId, categoryId);
         } else {
-            expenseList.clear();
-            expenseList.addAll(expenseDao.getExpensesByCategoryAndDateRange(currentUserId, selectedCategoryId, startDate, endDate));
+            data.count = categoryId == -1 ?
+                    monthlyTotalsDao.getCountForMonth(userId, yearMonth) :
+                    monthlyTotalsDao.getCategoryCountForMonth(userId, yearMonth, categoryId);
         }
+        return data;
+    }
 
-        categoryList.clear();
-        categoryList.addAll(categoryDao.getAllByUser(currentUserId));
-        expenseAdapter.setCategoryList(categoryList);
+    // Chạy trên luồng đọc của DatabaseDispatcher
+    private Money loadTotal(int userId, int categoryId, int yearMonth) {
+        if (yearMonth == ALL_TIME) {
+            return categoryId == -1 ?
+                    monthlyTotalsDao.getTotalAllTime(userId) :
+                    monthlyTotalsDao.getCategoryTotalAllTime(userId, categoryId);
+        }
+        return categoryId == -1 ?
+                monthlyTotalsDao.getTotalForMonth(userId, yearMonth) :
+                monthlyTotalsDao.getCategoryTotalForMonth(userId, yearMonth, categoryId);
+    }
 
-        recyclerView.setAdapter(expenseAdapter);
-        expenseAdapter.updateExpenses(expenseList);
+    // Chạy trên luồng đọc của DatabaseDispatcher; tổng và số giao dịch chỉ tính trên các dòng khớp
+    private TabData loadSearchData(ExpensePager pager, String match, int userId, int categoryId,
+                                   long startDate, long endDate) {
+        TabData data = new TabData();
+        data.rowBuilder = newRowBuilder(userId);
+        data.rows = loadWindow(pager, data.rowBuilder);
+        data.total = searchDao.sumMatches(match, userId, categoryId, startDate, endDate);
+        data.count = searchDao.countMatches(match, userId, categoryId, startDate, endDate);
+        return data;
+    }
 
-        updateStatistics(startDate, endDate);
-        updateEmptyView();
+    // Chạy trên luồng đọc của DatabaseDispatcher
+    private ExpenseRowBuilder newRowBuilder(int userId) {
+        return new ExpenseRowBuilder(CategoryCache.get(categoryDao, userId),
+                CurrencyManager.getFormatter(appContext)::format, todayLabel, "Unknown");
     }
 
-    private void updateStatistics(long startDate, long endDate) {
-        Double total = selectedCategoryId == -1 ?
-                expenseDao.getTotalExpensesByDateRange(currentUserId, startDate, endDate) :
-                expenseDao.getTotalExpensesByCategoryAndDateRange(currentUserId, selectedCategoryId, startDate, endDate);
+    private void showCategoryData(TabData data) {
+        showAdapter(categoryAdapter);
+        categoryAdapter.submitList(data.categoryItems);
 
-        double totalExpense = total != null ? total : 0.0;
-        int count;
-        if (currentTab == 0) {
-            // Tab By Category - đếm tổng số transactions từ categoryExpenseList
-            count = 0;
-            for (CategoryExpenseAdapter.CategoryExpenseItem item : categoryExpenseList) {
-                count += item.expenseCount;
-            }
-        } else {
-            // Tab By Date - đếm từ expenseList
-            count = expenseList.size();
+        updateStatistics(data);
+        updateEmptyView(data.categoryItems.isEmpty());
+    }
+
+    private void showDateData(TabData data) {
+        showAdapter(expenseAdapter);
+        expenseAdapter.submitRows(data.rows);
+
+        updateStatistics(data);
+        updateEmptyView(data.rows.isEmpty());
+    }
+
+    // Dịch cửa sổ một trang (trang sau, hoặc trang trước khi cuộn lên) rồi dựng lại các dòng của cả cửa sổ
+    private void loadExpensePage(boolean previous) {
+        TabData shown = dateData;
+        if (state.getTab() != 1 || shown == null || pageLoading) {
+            return;
         }
+        pageLoading = true;
+        DatabaseDispatcher.read(getViewLifecycleOwner(), () -> {
+            if (previous) {
+                shown.pager.loadPreviousPage();
+            } else {
+                shown.pager.loadNextPage();
+            }
+            return shown.rowBuilder.build(shown.pager.window());
+        }, rows -> {
+            // Dữ liệu đã bị thay thì cờ đã được đặt lại cho lần tải mới, không được xóa hộ
+            if (shown == dateData) {
+                pageLoading = false;
+                shown.rows = rows;
+                expenseAdapter.submitRows(rows);
+            }
+        }, error -> {
+            // Trang lỗi: cho phép cuộn tiếp để thử lại
+            if (shown == dateData) {
+                pageLoading = false;
+            }
+        });
+    }
 
-        totalExpenseText.setText(CurrencyManager.formatDisplayCurrency(requireContext(), totalExpense));
-        expenseCountText.setText(String.valueOf(count));
+    private void updateStatistics(TabData data) {
+        totalExpenseText.setText(CurrencyManager.formatDisplayCurrency(requireContext(), data.total));
+        expenseCountText.setText(String.valueOf(data.count));
     }
 
-    private void updateEmptyView() {
-        boolean isEmpty = (currentTab == 0 && categoryExpenseList.isEmpty()) ||
-                (currentTab == 1 && expenseList.isEmpty());
+    // Chỉ gắn lại adapter khi đổi tab con; gắn lại cùng adapter sẽ bỏ hết view và bind lại toàn bộ
+    private void showAdapter(RecyclerView.Adapter<?> adapter) {
+        if (recyclerView.getAdapter() != adapter) {
+            recyclerView.setAdapter(adapter);
+        }
+    }
 
+    private void updateEmptyView(boolean isEmpty) {
         if (isEmpty) {
             emptyView.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
@@ -327,9 +515,14 @@ public class ExpenseFragment extends Fragment {
     }
 
     private void showAddDialog() {
-        categoryList.clear();
-        categoryList.addAll(categoryDao.getAllByUser(currentUserId));
+        DatabaseDispatcher.read(getViewLifecycleOwner(), () -> CategoryCache.get(categoryDao, currentUserId).all(), categories -> {
+            categoryList.clear();
+            categoryList.addAll(categories);
+            showAddDialogWithCategories();
+        });
+    }
 
+    private void showAddDialogWithCategories() {
         if (categoryList.isEmpty()) {
             Toast.makeText(requireContext(), "Please add categories first", Toast.LENGTH_SHORT).show();
             return;
@@ -362,7 +555,6 @@ public class ExpenseFragment extends Fragment {
         categorySpinner.setAdapter(categoryAdapter);
 
         Calendar calendar = Calendar.getInstance();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
         dateButton.setText(getString(R.string.select_date));
         long[] selectedDate = {calendar.getTimeInMillis()};
 
@@ -371,7 +563,7 @@ public class ExpenseFragment extends Fragment {
                     (view, year, month, dayOfMonth) -> {
                         calendar.set(year, month, dayOfMonth);
                         selectedDate[0] = calendar.getTimeInMillis();
-                        dateButton.setText(dateFormat.format(calendar.getTime()));
+                        dateButton.setText(DateLabels.dayOf(selectedDate[0]));
                     },
                     calendar.get(Calendar.YEAR),
                     calendar.get(Calendar.MONTH),
@@ -392,11 +584,11 @@ public class ExpenseFragment extends Fragment {
                 return;
             }
 
-            double amount;
+            Money amount;
             try {
                 double displayAmount = CurrencyManager.parseDisplayAmount(amountStr);
                 amount = CurrencyManager.toBaseCurrency(requireContext(), displayAmount);
-                if (amount <= 0) {
+                if (!amount.isPositive()) {
                     Toast.makeText(requireContext(), "Amount must be greater than 0", Toast.LENGTH_SHORT).show();
                     return;
                 }
@@ -407,11 +599,14 @@ public class ExpenseFragment extends Fragment {
 
             Category selectedCategory = categoryList.get(categoryPosition);
             Expense expense = new Expense(currentUserId, selectedCategory.getId(), amount, description, selectedDate[0]);
-            expenseDao.insert(expense);
-
-            refreshData();
-            dialog.dismiss();
-            Toast.makeText(requireContext(), R.string.expense_added, Toast.LENGTH_SHORT).show();
+            saveButton.setEnabled(false);
+            DatabaseDispatcher.write(getViewLifecycleOwner(), () -> {
+                expenseDao.insert(expense);
+                ChangeBus.publish(ChangeBus.Scope.expense(expense));
+            }, () -> {
+                dialog.dismiss();
+                Toast.makeText(requireContext(), R.string.expense_added, Toast.LENGTH_SHORT).show();
+            });
         });
 
         cancelButton.setOnClickListener(v -> dialog.dismiss());
@@ -419,9 +614,14 @@ public class ExpenseFragment extends Fragment {
     }
 
     private void showEditDialog(Expense expense) {
-        categoryList.clear();
-        categoryList.addAll(categoryDao.getAllByUser(currentUserId));
+        DatabaseDispatcher.read(getViewLifecycleOwner(), () -> CategoryCache.get(categoryDao, currentUserId).all(), categories -> {
+            categoryList.clear();
+            categoryList.addAll(categories);
+            showEditDialogWithCategories(expense);
+        });
+    }
 
+    private void showEditDialogWithCategories(Expense expense) {
         AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
         View dialogView = LayoutInflater.from(requireContext()).inflate(R.layout.dialog_expense, null);
 
@@ -465,8 +665,7 @@ public class ExpenseFragment extends Fragment {
 
         Calendar calendar = Calendar.getInstance();
         calendar.setTimeInMillis(expense.getDate());
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-        dateButton.setText(dateFormat.format(calendar.getTime()));
+        dateButton.setText(DateLabels.dayOf(expense.getDate()));
         long[] selectedDate = {expense.getDate()};
 
         dateButton.setOnClickListener(v -> {
@@ -474,7 +673,7 @@ public class ExpenseFragment extends Fragment {
                     (view, year, month, dayOfMonth) -> {
                         calendar.set(year, month, dayOfMonth);
                         selectedDate[0] = calendar.getTimeInMillis();
-                        dateButton.setText(dateFormat.format(calendar.getTime()));
+                        dateButton.setText(DateLabels.dayOf(selectedDate[0]));
                     },
                     calendar.get(Calendar.YEAR),
                     calendar.get(Calendar.MONTH),
@@ -494,11 +693,11 @@ public class ExpenseFragment extends Fragment {
                 return;
             }
 
-            double amount;
+            Money amount;
             try {
                 double displayAmount = CurrencyManager.parseDisplayAmount(amountStr);
                 amount = CurrencyManager.toBaseCurrency(requireContext(), displayAmount);
-                if (amount <= 0) {
+                if (!amount.isPositive()) {
                     Toast.makeText(requireContext(), "Amount must be greater than 0", Toast.LENGTH_SHORT).show();
                     return;
                 }
@@ -507,14 +706,19 @@ public class ExpenseFragment extends Fragment {
                 return;
             }
 
+            // Đổi ngày có thể chuyển expense sang tháng khác: báo cả tháng cũ và tháng mới
+            ChangeBus.Scope before = ChangeBus.Scope.expense(expense);
             expense.setAmount(amount);
             expense.setDescription(description);
             expense.setDate(selectedDate[0]);
-            expenseDao.update(expense);
-
-            refreshData();
-            dialog.dismiss();
-            Toast.makeText(requireContext(), R.string.expense_updated, Toast.LENGTH_SHORT).show();
+            saveButton.setEnabled(false);
+            DatabaseDispatcher.write(getViewLifecycleOwner(), () -> {
+                expenseDao.update(expense);
+                ChangeBus.publish(Arrays.asList(before, ChangeBus.Scope.expense(expense)));
+            }, () -> {
+                dialog.dismiss();
+                Toast.makeText(requireContext(), R.string.expense_updated, Toast.LENGTH_SHORT).show();
+            });
         });
 
         cancelButton.setOnClickListener(v -> dialog.dismiss());
@@ -525,11 +729,11 @@ public class ExpenseFragment extends Fragment {
         new AlertDialog.Builder(requireContext())
                 .setTitle(R.string.delete_expense)
                 .setMessage(R.string.confirm_delete_expense)
-                .setPositiveButton(R.string.delete, (dialog, which) -> {
-                    expenseDao.delete(expense);
-                    refreshData();
-                    Toast.makeText(requireContext(), R.string.expense_deleted, Toast.LENGTH_SHORT).show();
-                })
+                .setPositiveButton(R.string.delete, (dialog, which) ->
+                        DatabaseDispatcher.write(getViewLifecycleOwner(), () -> {
+                                    expenseDao.delete(expense);
+                                    ChangeBus.publish(ChangeBus.Scope.expense(expense));
+                                }, () -> Toast.makeText(requireContext(), R.string.expense_deleted, Toast.LENGTH_SHORT).show()))
                 .setNegativeButton(R.string.cancel, null)
                 .show();
     }
@@ -538,17 +742,16 @@ public class ExpenseFragment extends Fragment {
         AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
         builder.setTitle(getString(R.string.expense_title, categoryName));
 
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(currentYear, currentMonth, 1, 0, 0, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long startDate = calendar.getTimeInMillis();
-
-        calendar.add(Calendar.MONTH, 1);
-        calendar.add(Calendar.MILLISECOND, -1);
-        long endDate = calendar.getTimeInMillis();
-
-        List<Expense> expenses = expenseDao.getExpensesByCategoryAndDateRange(currentUserId, categoryId, startDate, endDate);
+        // Lọc theo biên tháng để đi theo index (userId, categoryId, date, createdAt), không phải sắp xếp lại
+        int yearMonth = selectedYearMonth();
+        long startDate = startMillis(yearMonth);
+        long endDate = endMillis(yearMonth);
+        DatabaseDispatcher.read(getViewLifecycleOwner(),
+                () -> expenseDao.getExpensesByCategoryAndDateRange(currentUserId, categoryId, startDate, endDate),
+                expenses -> showCategoryExpenses(builder, expenses));
+    }
 
+    private void showCategoryExpenses(AlertDialog.Builder builder, List<Expense> expenses) {
         if (expenses.isEmpty()) {
             builder.setMessage(R.string.no_transactions);
             builder.setPositiveButton(android.R.string.ok, null);
@@ -557,10 +760,9 @@ public class ExpenseFragment extends Fragment {
         }
 
         StringBuilder message = new StringBuilder();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
 
         for (Expense expense : expenses) {
-            message.append(dateFormat.format(new Date(expense.getDate())));
+            message.append(DateLabels.dateTime(expense.getDate()));
             message.append(" - ");
             message.append(CurrencyManager.formatDisplayCurrency(requireContext(), expense.getAmount()));
             if (expense.getDescription() != null && !expense.getDescription().trim().isEmpty()) {
@@ -574,5 +776,60 @@ public class ExpenseFragment extends Fragment {
         builder.setPositiveButton(android.R.string.ok, null);
         builder.show();
     }
-}
 
+    // Dữ liệu của một lần refresh, được chuẩn bị trọn vẹn trên luồng nền rồi mới đưa lên UI
+    private static class TabData {
+        final List<CategoryExpenseAdapter.CategoryExpenseItem> categoryItems = new ArrayList<>();
+        // Các dòng của cửa sổ đang hiển thị, đã dựng sẵn trên luồng nền
+        List<ExpenseRecyclerAdapter.ExpenseItem> rows = new ArrayList<>();
+        // null ở tab By Category
+        ExpensePager pager;
+        ExpenseRowBuilder rowBuilder;
+        Filter filter;
+        Money total = Money.ZERO;
+        int count;
+    }
+
+    // Đầu vào của một lần tải; bằng nhau thì kết quả giống nhau nên không cần truy vấn lại
+    private static final class Filter {
+        private static final String[] CATEGORY_TABLES = {"categories", "monthly_category_totals", "budgets"};
+        private static final String[] DATE_TABLES = {"expenses", "categories", "monthly_category_totals"};
+        private static final String[] SEARCH_TABLES = {"expenses", "categories"};
+
+        final int userId;
+        final int yearMonth;
+        final int categoryId;
+        final int tab;
+        final String searchQuery;
+
+        Filter(int userId, int yearMonth, int categoryId, int tab, String searchQuery) {
+            this.userId = userId;
+            this.yearMonth = yearMonth;
+            this.categoryId = categoryId;
+            this.tab = tab;
+            // Tìm kiếm chỉ áp dụng cho tab By Date
+            this.searchQuery = tab == 0 ? null : searchQuery;
+        }
+
+        String[] tables() {
+            if (tab == 0) {
+                return CATEGORY_TABLES;
+            }
+            return searchQuery == null ? DATE_TABLES : SEARCH_TABLES;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Filter)) return false;
+            Filter other = (Filter) o;
+            return userId == other.userId && yearMonth == other.yearMonth && categoryId == other.categoryId
+                    && tab == other.tab && TextUtils.equals(searchQuery, other.searchQuery);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, yearMonth, categoryId, tab, searchQuery);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.khanghv.campusexpense.ui.fragments;
 
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -13,20 +11,20 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat; // Đảm bảo đã import
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.khanghv.campusexpense.R;
-import com.khanghv.campusexpense.data.ExpenseRepository;
+import com.khanghv.campusexpense.data.model.DashboardSnapshot;
+import com.khanghv.campusexpense.data.model.Money;
 import com.khanghv.campusexpense.data.model.User;
 import com.khanghv.campusexpense.ui.home.BudgetBreakdownAdapter;
+import com.khanghv.campusexpense.ui.home.HomeViewModel;
+import com.khanghv.campusexpense.util.AppSettings;
+import com.khanghv.campusexpense.util.CalendarBuckets;
 import com.khanghv.campusexpense.util.CurrencyManager;
-
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.List;
-import java.util.Locale;
+import com.khanghv.campusexpense.util.MoneyFormatter;
 
 public class HomeFragment extends Fragment {
     private static final String TAG = "HomeFragment";
@@ -34,9 +32,16 @@ public class HomeFragment extends Fragment {
             tvTotalBudget, tvSpent, tvRemaining;
     private RecyclerView recyclerViewBreakdown;
     private BudgetBreakdownAdapter breakdownAdapter;
-    private ExpenseRepository repository;
-    private int currentUserId;
-    private String currentMonthYear;
+    private HomeViewModel viewModel;
+    // Formatter đã dùng cho lần render gần nhất; tỷ giá làm tươi ở nền xong thì render lại bằng formatter mới
+    private MoneyFormatter renderedFormatter;
+    private final AppSettings.Listener settingsListener = settings -> {
+        DashboardSnapshot snapshot = viewModel.getDashboard().getValue();
+        if (snapshot != null && CurrencyManager.getFormatter(requireContext()) != renderedFormatter) {
+            renderDashboard(snapshot);
+            breakdownAdapter.notifyItemRangeChanged(0, breakdownAdapter.getItemCount());
+        }
+    };
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -54,127 +59,74 @@ public class HomeFragment extends Fragment {
         tvRemaining = view.findViewById(R.id.tvRemaining);
 
         // Setup breakdown RecyclerView
-        breakdownAdapter = new BudgetBreakdownAdapter(new ArrayList<>());
+        breakdownAdapter = new BudgetBreakdownAdapter();
         recyclerViewBreakdown.setLayoutManager(new LinearLayoutManager(requireContext()));
         recyclerViewBreakdown.setAdapter(breakdownAdapter);
 
-        // Init repo
-        repository = new ExpenseRepository((android.app.Application) requireContext().getApplicationContext());
+        // Observer chỉ đăng ký một lần cho mỗi view; onResume chỉ cập nhật khóa (userId, tháng) của ViewModel
+        viewModel = new ViewModelProvider(this, HomeViewModel.FACTORY).get(HomeViewModel.class);
+        viewModel.getUser().observe(getViewLifecycleOwner(), this::renderGreeting);
+        viewModel.getDashboard().observe(getViewLifecycleOwner(), this::renderDashboard);
+        AppSettings.addListener(settingsListener);
 
         return view;
     }
 
     @Override
-    public void onResume() {
-        super.onResume();
-        // Tải lại toàn bộ dữ liệu để đảm bảo tính nhất quán
-        refreshData();
+    public void onDestroyView() {
+        AppSettings.removeListener(settingsListener);
+        super.onDestroyView();
     }
 
-    private void refreshData() {
-        // Lấy thông tin mới nhất mỗi khi refresh
-        currentUserId = getCurrentUserId();
-        currentMonthYear = getCurrentMonthYear();
-
+    @Override
+    public void onResume() {
+        super.onResume();
         // Làm tươi tỷ giá nếu cần (không ép buộc, dùng cache nếu còn hạn)
         CurrencyManager.refreshRateIfNeeded(requireContext(), false, null);
 
         // Kiểm tra userId hợp lệ
-        if (currentUserId == -1) {
+        int userId = getCurrentUserId();
+        if (userId == -1) {
             tvGreeting.setText(getString(R.string.greeting, "User"));
             return;
         }
-
-        // Load user cho greeting
-        repository.getUserById(currentUserId).observe(getViewLifecycleOwner(), user -> {
-            if (user != null) {
-                tvGreeting.setText(String.format(getString(R.string.greeting), user.getUsername()));
-            } else {
-                tvGreeting.setText(getString(R.string.greeting, "User")); // Giá trị mặc định
-            }
-        });
-
-        // Load dữ liệu tài chính
-        loadDataForMonth(currentMonthYear, currentUserId);
-    }
-
-
-    private void loadDataForMonth(String monthYear, int userId) {
-        final Double[] totalSpentValue = {0.0};
-        final Double[] budgetValue = {0.0};
-
-        // Observe total spent
-        repository.getTotalSpentForMonth(monthYear, userId).observe(getViewLifecycleOwner(), totalSpent -> {
-            if (totalSpent == null) totalSpent = 0.0;
-            totalSpentValue[0] = totalSpent;
-            String formatted = CurrencyManager.formatDisplayCurrency(requireContext(), totalSpent);
-            tvTotalSpent.setText(formatted);
-            tvSpent.setText(formatted);
-            // Cập nhật với budget hiện tại
-            updateSummaryAndBreakdown(budgetValue[0], totalSpent);
-            updateAvgPerDay(totalSpent);
-        });
-
-        // Observe count
-        repository.getTransactionCountForMonth(monthYear, userId).observe(getViewLifecycleOwner(), count -> {
-            if (count == null) count = 0;
-            tvTransactionCount.setText(String.valueOf(count));
-        });
-
-        // Observe budget - đảm bảo observer được add đúng cách
-        repository.getCurrentBudget(userId).observe(getViewLifecycleOwner(), totalBudget -> {
-            if (totalBudget == null) {
-                totalBudget = 0.0;
-            }
-            budgetValue[0] = totalBudget;
-            String formatted = CurrencyManager.formatDisplayCurrency(requireContext(), totalBudget);
-            tvBudget.setText(formatted);
-            tvTotalBudget.setText(formatted);
-            // Cập nhật với spent hiện tại
-            updateSummaryAndBreakdown(totalBudget, totalSpentValue[0]);
-        });
-
-        // Observe budget breakdown
-        repository.getBudgetBreakdown(monthYear, userId).observe(getViewLifecycleOwner(), breakdownList -> {
-            if (breakdownList != null) {
-                breakdownAdapter.updateBreakdownList(breakdownList);
-            }
-        });
-    }
-
-    private void updateSummaryAndBreakdown(double budget, double spent) {
-        double remaining = budget - spent;
-        String remainingText = CurrencyManager.formatDisplayCurrency(requireContext(), remaining);
-        tvRemaining.setText(remainingText);
-
-        int colorRes = remaining < 0 ? android.R.color.holo_red_dark : android.R.color.holo_green_dark;
-        tvRemaining.setTextColor(ContextCompat.getColor(requireContext(), colorRes));
+        // Cùng user và cùng tháng thì ViewModel bỏ qua, không tạo nguồn mới
+        viewModel.setKey(userId, CalendarBuckets.currentYearMonth());
     }
 
-    private void updateAvgPerDay(double totalSpent) {
-        int daysInMonth = getDaysInMonth(currentMonthYear);
-        if (daysInMonth > 0) {
-            double avgDaily = totalSpent / daysInMonth;
-            tvAvgPerDay.setText(CurrencyManager.formatDisplayCurrency(requireContext(), avgDaily));
+    private void renderGreeting(User user) {
+        if (user != null) {
+            tvGreeting.setText(String.format(getString(R.string.greeting), user.getUsername()));
+        } else {
+            tvGreeting.setText(getString(R.string.greeting, "User")); // Giá trị mặc định
         }
     }
 
-    private String getCurrentMonthYear() {
-        Calendar cal = Calendar.getInstance();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
-        return sdf.format(cal.getTime());
-    }
+    private void renderDashboard(DashboardSnapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        MoneyFormatter formatter = CurrencyManager.getFormatter(requireContext());
+        renderedFormatter = formatter;
+        String spentText = formatter.format(snapshot.getTotalSpent());
+        tvTotalSpent.setText(spentText);
+        tvSpent.setText(spentText);
+        tvTransactionCount.setText(String.valueOf(snapshot.getTransactionCount()));
+        tvAvgPerDay.setText(formatter.format(snapshot.getAveragePerDay()));
+
+        String budgetText = formatter.format(snapshot.getTotalBudget());
+        tvBudget.setText(budgetText);
+        tvTotalBudget.setText(budgetText);
+
+        Money remaining = snapshot.getRemaining();
+        tvRemaining.setText(formatter.format(remaining));
+        int colorRes = remaining.isNegative() ? android.R.color.holo_red_dark : android.R.color.holo_green_dark;
+        tvRemaining.setTextColor(ContextCompat.getColor(requireContext(), colorRes));
 
-    private int getDaysInMonth(String monthYear) {
-        String[] parts = monthYear.split("-");
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.YEAR, Integer.parseInt(parts[0]));
-        cal.set(Calendar.MONTH, Integer.parseInt(parts[1]) - 1);
-        return cal.getActualMaximum(Calendar.DAY_OF_MONTH);
+        breakdownAdapter.submitList(snapshot.getBreakdown());
     }
 
     private int getCurrentUserId() {
-        SharedPreferences prefs = requireContext().getSharedPreferences("user_prefs", Context.MODE_PRIVATE);
-        return prefs.getInt("userId", -1);
+        return AppSettings.get(requireContext()).getUserId();
     }
 }
@@ -7,24 +7,35 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.khanghv.campusexpense.R;
-import com.khanghv.campusexpense.data.ExpenseRepository;
+import com.khanghv.campusexpense.data.model.BudgetSpending;
 import com.khanghv.campusexpense.util.CurrencyManager;
 
-import java.util.List;
+import java.util.Objects;
 
-public class BudgetBreakdownAdapter extends RecyclerView.Adapter<BudgetBreakdownAdapter.ViewHolder> {
-    private List<ExpenseRepository.BudgetBreakdownItem> breakdownList;
+// Mỗi snapshot dashboard là một danh sách mới; DiffUtil chỉ bind lại category có số liệu đổi
+public class BudgetBreakdownAdapter extends ListAdapter<BudgetSpending, BudgetBreakdownAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<BudgetSpending> DIFF = new DiffUtil.ItemCallback<BudgetSpending>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull BudgetSpending oldItem, @NonNull BudgetSpending newItem) {
+            return oldItem.getBudgetId() == newItem.getBudgetId();
+        }
 
-    public BudgetBreakdownAdapter(List<ExpenseRepository.BudgetBreakdownItem> breakdownList) {
-        this.breakdownList = breakdownList;
-    }
+        @Override
+        public boolean areContentsTheSame(@NonNull BudgetSpending oldItem, @NonNull BudgetSpending newItem) {
+            return Objects.equals(oldItem.getCategoryName(), newItem.getCategoryName())
+                    && Objects.equals(oldItem.getBudgetAmount(), newItem.getBudgetAmount())
+                    && Objects.equals(oldItem.getSpentAmount(), newItem.getSpentAmount());
+        }
+    };
 
-    public void updateBreakdownList(List<ExpenseRepository.BudgetBreakdownItem> newList) {
-        this.breakdownList = newList;
-        notifyDataSetChanged();
+    public BudgetBreakdownAdapter() {
+        super(DIFF);
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -37,20 +48,21 @@ public class BudgetBreakdownAdapter extends RecyclerView.Adapter<BudgetBreakdown
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        ExpenseRepository.BudgetBreakdownItem item = breakdownList.get(position);
-        
-        holder.tvCategoryName.setText(item.categoryName);
-        String percentText = holder.itemView.getContext().getString(R.string.percentage_format, item.percentage);
+        BudgetSpending item = getItem(position);
+        int percentage = item.getPercentage();
+
+        holder.tvCategoryName.setText(item.getCategoryName());
+        String percentText = holder.itemView.getContext().getString(R.string.percentage_format, percentage);
         holder.tvPercentage.setText(percentText);
-        holder.progressBar.setProgress(Math.min(item.percentage, 100));
-        
-        holder.tvSpent.setText(CurrencyManager.formatDisplayCurrency(holder.itemView.getContext(), item.spentAmount));
-        holder.tvBudget.setText(CurrencyManager.formatDisplayCurrency(holder.itemView.getContext(), item.budgetAmount));
+        holder.progressBar.setProgress(Math.min(percentage, 100));
+
+        holder.tvSpent.setText(CurrencyManager.formatDisplayCurrency(holder.itemView.getContext(), item.getSpentAmount()));
+        holder.tvBudget.setText(CurrencyManager.formatDisplayCurrency(holder.itemView.getContext(), item.getBudgetAmount()));
     }
 
     @Override
-    public int getItemCount() {
-        return breakdownList == null ? 0 : breakdownList.size();
+    public long getItemId(int position) {
+        return getItem(position).getBudgetId();
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,111 @@
+package com.khanghv.campusexpense.ui.home;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.viewmodel.CreationExtras;
+
+import com.khanghv.campusexpense.data.ExpenseRepository;
+import com.khanghv.campusexpense.data.model.DashboardSnapshot;
+import com.khanghv.campusexpense.data.model.User;
+
+import java.util.Objects;
+
+/**
+ * Giữ nguồn dữ liệu của màn Home theo khóa (userId, yearMonth). Nguồn chỉ được tạo lại khi khóa đổi,
+ * nên gọi setKey bao nhiêu lần (mỗi onResume) cũng không thêm observer hay query nào.
+ * Tạo qua FACTORY; nguồn dữ liệu truyền vào constructor để unit test thay được.
+ */
+public class HomeViewModel extends ViewModel {
+
+    public static final ViewModelProvider.Factory FACTORY = new ViewModelProvider.Factory() {
+        @NonNull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends ViewModel> T create(@NonNull Class<T> modelClass, @NonNull CreationExtras extras) {
+            Application application = extras.get(ViewModelProvider.AndroidViewModelFactory.APPLICATION_KEY);
+            return (T) new HomeViewModel(new RepositorySources(new ExpenseRepository(application)));
+        }
+    };
+
+    // Mỗi lần gọi là một query (một LiveData mới)
+    interface Sources {
+        LiveData<User> getUserById(int userId);
+
+        LiveData<DashboardSnapshot> getDashboard(int userId, int yearMonth);
+    }
+
+    private final MutableLiveData<Key> key = new MutableLiveData<>();
+    private final LiveData<User> user;
+    private final LiveData<DashboardSnapshot> dashboard;
+
+    HomeViewModel(Sources sources) {
+        // distinctUntilChanged để đổi tháng không làm query lại user
+        user = Transformations.switchMap(
+                Transformations.distinctUntilChanged(Transformations.map(key, k -> k.userId)),
+                sources::getUserById);
+        dashboard = Transformations.switchMap(key, k -> sources.getDashboard(k.userId, k.yearMonth));
+    }
+
+    public LiveData<User> getUser() {
+        return user;
+    }
+
+    public LiveData<DashboardSnapshot> getDashboard() {
+        return dashboard;
+    }
+
+    // Gọi trên main thread; cùng khóa thì bỏ qua
+    public void setKey(int userId, int yearMonth) {
+        Key next = new Key(userId, yearMonth);
+        if (!next.equals(key.getValue())) {
+            key.setValue(next);
+        }
+    }
+
+    private static final class RepositorySources implements Sources {
+        private final ExpenseRepository repository;
+
+        RepositorySources(ExpenseRepository repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public LiveData<User> getUserById(int userId) {
+            return repository.getUserById(userId);
+        }
+
+        @Override
+        public LiveData<DashboardSnapshot> getDashboard(int userId, int yearMonth) {
+            return repository.getDashboard(userId, yearMonth);
+        }
+    }
+
+    private static final class Key {
+        final int userId;
+        final int yearMonth;
+
+        Key(int userId, int yearMonth) {
+            this.userId = userId;
+            this.yearMonth = yearMonth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return userId == other.userId && yearMonth == other.yearMonth;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, yearMonth);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.khanghv.campusexpense.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Các executor dùng chung của ứng dụng, thay cho new Thread rải rác:
+ * io() cho mạng, file và việc DB chạy lâu ở nền (nhập/xuất CSV, kiểm tra bảng tổng hợp);
+ * truy vấn phục vụ màn hình đi qua DatabaseDispatcher, cũng tạo luồng bằng newPool ở đây.
+ * Số luồng luôn bị giới hạn, luồng có tên và độ ưu tiên riêng, luồng rảnh tự kết thúc.
+ */
+public final class AppExecutors {
+
+    private static final int IO_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ExecutorService IO_EXECUTOR =
+            newPool("io", IO_THREADS, Process.THREAD_PRIORITY_BACKGROUND);
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN_EXECUTOR = MAIN_HANDLER::post;
+
+    private AppExecutors() {}
+
+    // Độ ưu tiên nền để không tranh CPU với main thread và các truy vấn màn hình đang chờ
+    public static Executor io() {
+        return IO_EXECUTOR;
+    }
+
+    public static Executor mainThread() {
+        return MAIN_EXECUTOR;
+    }
+
+    /**
+     * Pool cố định tối đa threads luồng "name-N" chạy với độ ưu tiên priority (Process.THREAD_PRIORITY_*).
+     * Việc vượt quá số luồng xếp hàng chờ thay vì tạo thêm luồng.
+     */
+    public static ExecutorService newPool(String name, int threads, int priority) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                threadFactory(name, priority));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory threadFactory(String name, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(priority);
+                runnable.run();
+            }, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,215 @@
+package com.khanghv.campusexpense.util;
+
+import static android.content.Context.MODE_PRIVATE;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
+
+/**
+ * Toàn bộ thiết lập của ứng dụng (phiên đăng nhập trong user_prefs, ngôn ngữ/tiền tệ/tỷ giá trong settings_prefs)
+ * dưới dạng một bản chụp bất biến. SharedPreferences chỉ được đọc một lần; sau đó mọi lần đọc chỉ là
+ * đọc một tham chiếu volatile. Các hàm set ghi xuống SharedPreferences (apply), thay bản chụp rồi báo listener.
+ * Listener được gọi trên luồng vừa ghi; các hàm set nên gọi trên main thread.
+ */
+public final class AppSettings {
+
+    private static final String USER_PREFS = "user_prefs";
+    private static final String SETTINGS_PREFS = "settings_prefs";
+    private static final String KEY_LOGGED_IN = "isLoggedIn";
+    private static final String KEY_USER_ID = "userId";
+    private static final String KEY_USERNAME = "username";
+    private static final String KEY_LANGUAGE = "app_language";
+    private static final String KEY_DISPLAY_CURRENCY = "display_currency";
+    private static final String KEY_RATE_BITS = "usd_vnd_rate_bits";
+    private static final String KEY_RATE_UPDATED_AT = "usd_vnd_rate_updated_at";
+    private static final String KEY_RESET_HOME_AFTER_RECREATE = "reset_to_home_after_recreate";
+    private static final double DEFAULT_USD_TO_VND = 24500d;
+
+    public static final int NO_USER = -1;
+
+    private static final Object lock = new Object();
+    private static volatile AppSettings current;
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public interface Listener {
+        void onSettingsChanged(AppSettings settings);
+    }
+
+    private final boolean loggedIn;
+    private final int userId;
+    private final String username;
+    private final LocaleManager.Language language;
+    private final CurrencyManager.CurrencyType displayCurrency;
+    private final double usdToVndRate;
+    private final long rateUpdatedAt;
+    private final boolean resetToHomeAfterRecreate;
+
+    private AppSettings(boolean loggedIn, int userId, String username, LocaleManager.Language language,
+                        CurrencyManager.CurrencyType displayCurrency, double usdToVndRate, long rateUpdatedAt,
+                        boolean resetToHomeAfterRecreate) {
+        this.loggedIn = loggedIn;
+        this.userId = userId;
+        this.username = username;
+        this.language = language;
+        this.displayCurrency = displayCurrency;
+        this.usdToVndRate = usdToVndRate;
+        this.rateUpdatedAt = rateUpdatedAt;
+        this.resetToHomeAfterRecreate = resetToHomeAfterRecreate;
+    }
+
+    public boolean isLoggedIn() {
+        return loggedIn;
+    }
+
+    // NO_USER khi chưa đăng nhập
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LocaleManager.Language getLanguage() {
+        return language;
+    }
+
+    public CurrencyManager.CurrencyType getDisplayCurrency() {
+        return displayCurrency;
+    }
+
+    public double getUsdToVndRate() {
+        return usdToVndRate;
+    }
+
+    public long getRateUpdatedAt() {
+        return rateUpdatedAt;
+    }
+
+    public boolean shouldResetToHomeAfterRecreate() {
+        return resetToHomeAfterRecreate;
+    }
+
+    /**
+     * Bản chụp hiện tại. Lần gọi đầu tiên (Application.attachBaseContext) đọc SharedPreferences;
+     * mọi lần sau chỉ đọc tham chiếu, gọi được trên mọi luồng.
+     */
+    public static AppSettings get(Context context) {
+        AppSettings settings = current;
+        if (settings != null) {
+            return settings;
+        }
+        synchronized (lock) {
+            if (current == null) {
+                current = load(context);
+            }
+            return current;
+        }
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Phiên mới thay hoàn toàn phiên cũ để không lẫn dữ liệu giữa các user
+    public static void setSession(Context context, int userId, String username) {
+        userPrefs(context).edit()
+                .clear()
+                .putBoolean(KEY_LOGGED_IN, true)
+                .putInt(KEY_USER_ID, userId)
+                .putString(KEY_USERNAME, username)
+                .apply();
+        update(context, s -> new AppSettings(true, userId, username, s.language, s.displayCurrency,
+                s.usdToVndRate, s.rateUpdatedAt, s.resetToHomeAfterRecreate));
+    }
+
+    public static void clearSession(Context context) {
+        userPrefs(context).edit().clear().apply();
+        update(context, s -> new AppSettings(false, NO_USER, "", s.language, s.displayCurrency,
+                s.usdToVndRate, s.rateUpdatedAt, s.resetToHomeAfterRecreate));
+    }
+
+    public static void setLanguage(Context context, LocaleManager.Language language) {
+        settingsPrefs(context).edit().putString(KEY_LANGUAGE, language.getCode()).apply();
+        update(context, s -> new AppSettings(s.loggedIn, s.userId, s.username, language, s.displayCurrency,
+                s.usdToVndRate, s.rateUpdatedAt, s.resetToHomeAfterRecreate));
+    }
+
+    public static void setDisplayCurrency(Context context, CurrencyManager.CurrencyType currency) {
+        settingsPrefs(context).edit().putString(KEY_DISPLAY_CURRENCY, currency.name()).apply();
+        update(context, s -> new AppSettings(s.loggedIn, s.userId, s.username, s.language, currency,
+                s.usdToVndRate, s.rateUpdatedAt, s.resetToHomeAfterRecreate));
+    }
+
+    public static void setUsdToVndRate(Context context, double rate, long updatedAt) {
+        settingsPrefs(context).edit()
+                .putLong(KEY_RATE_BITS, Double.doubleToRawLongBits(rate))
+                .putLong(KEY_RATE_UPDATED_AT, updatedAt)
+                .apply();
+        update(context, s -> new AppSettings(s.loggedIn, s.userId, s.username, s.language, s.displayCurrency,
+                rate, updatedAt, s.resetToHomeAfterRecreate));
+    }
+
+    public static void setResetToHomeAfterRecreate(Context context, boolean reset) {
+        settingsPrefs(context).edit().putBoolean(KEY_RESET_HOME_AFTER_RECREATE, reset).apply();
+        update(context, s -> new AppSettings(s.loggedIn, s.userId, s.username, s.language, s.displayCurrency,
+                s.usdToVndRate, s.rateUpdatedAt, reset));
+    }
+
+    // Bản chụp mới được dựng từ bản hiện tại trong lock nên hai lần ghi liên tiếp không làm mất thay đổi của nhau
+    private static void update(Context context, UnaryOperator<AppSettings> change) {
+        AppSettings next;
+        synchronized (lock) {
+            next = change.apply(get(context));
+            current = next;
+        }
+        for (Listener listener : listeners) {
+            listener.onSettingsChanged(next);
+        }
+    }
+
+    private static AppSettings load(Context context) {
+        SharedPreferences user = userPrefs(context);
+        SharedPreferences settings = settingsPrefs(context);
+        // Chưa chọn ngôn ngữ thì theo ngôn ngữ hệ thống lúc khởi động
+        LocaleManager.Language language = LocaleManager.Language.fromCode(
+                settings.getString(KEY_LANGUAGE, Locale.getDefault().getLanguage()));
+        CurrencyManager.CurrencyType currency;
+        try {
+            currency = CurrencyManager.CurrencyType.valueOf(
+                    settings.getString(KEY_DISPLAY_CURRENCY, CurrencyManager.CurrencyType.VND.name()));
+        } catch (IllegalArgumentException exception) {
+            currency = CurrencyManager.CurrencyType.VND;
+        }
+        double rate = Double.longBitsToDouble(
+                settings.getLong(KEY_RATE_BITS, Double.doubleToRawLongBits(DEFAULT_USD_TO_VND)));
+        return new AppSettings(user.getBoolean(KEY_LOGGED_IN, false),
+                user.getInt(KEY_USER_ID, NO_USER),
+                user.getString(KEY_USERNAME, ""),
+                language, currency, rate,
+                settings.getLong(KEY_RATE_UPDATED_AT, 0),
+                settings.getBoolean(KEY_RESET_HOME_AFTER_RECREATE, false));
+    }
+
+    private static SharedPreferences userPrefs(Context context) {
+        return appContext(context).getSharedPreferences(USER_PREFS, MODE_PRIVATE);
+    }
+
+    private static SharedPreferences settingsPrefs(Context context) {
+        return appContext(context).getSharedPreferences(SETTINGS_PREFS, MODE_PRIVATE);
+    }
+
+    // Trong Application.attachBaseContext chưa có application context, dùng thẳng base context
+    private static Context appContext(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        return applicationContext != null ? applicationContext : context;
+    }
+}
@@ -0,0 +1,97 @@
+package com.khanghv.campusexpense.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+/**
+ * Quy đổi thời điểm (epoch millis) sang ngày/tháng theo giờ địa phương dưới dạng số nguyên:
+ * epochDay là số ngày kể từ 1970-01-01, yearMonth có dạng yyyyMM (ví dụ 202410).
+ * Cùng quy ước 'localtime' với SQL trong MonthlyTotalsSchema.
+ */
+public final class CalendarBuckets {
+
+    // Ngày tra gần nhất. Dữ liệu đọc/nhập thường theo thứ tự ngày nên phần lớn lần gọi chỉ là hai phép so sánh
+    private static volatile Day lastDay = new Day(Long.MAX_VALUE, Long.MIN_VALUE, 0, 0);
+
+    private CalendarBuckets() {}
+
+    public static LocalDate toLocalDate(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    public static int epochDayOf(long millis) {
+        return dayOf(millis).epochDay;
+    }
+
+    public static int yearMonthOf(long millis) {
+        return dayOf(millis).yearMonth;
+    }
+
+    private static Day dayOf(long millis) {
+        Day day = lastDay;
+        if (millis < day.start || millis >= day.end) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            day = new Day(date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(),
+                    (int) date.toEpochDay(), toYearMonth(date.getYear(), date.getMonthValue()));
+            lastDay = day;
+        }
+        return day;
+    }
+
+    public static int toYearMonth(int year, int month) {
+        return year * 100 + month;
+    }
+
+    public static int todayEpochDay() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    public static int currentYearMonth() {
+        LocalDate today = LocalDate.now();
+        return toYearMonth(today.getYear(), today.getMonthValue());
+    }
+
+    public static int plusMonths(int yearMonth, int months) {
+        YearMonth value = toYearMonthValue(yearMonth).plusMonths(months);
+        return toYearMonth(value.getYear(), value.getMonthValue());
+    }
+
+    public static int daysInMonth(int yearMonth) {
+        return toYearMonthValue(yearMonth).lengthOfMonth();
+    }
+
+    // Mốc đầu tháng (bao gồm) theo giờ địa phương
+    public static long monthStartMillis(int yearMonth) {
+        return toYearMonthValue(yearMonth).atDay(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Mili giây cuối cùng của tháng, khớp với điều kiện date <= :endDate của các truy vấn
+    public static long monthEndMillis(int yearMonth) {
+        return toYearMonthValue(yearMonth).plusMonths(1).atDay(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() - 1;
+    }
+
+    private static YearMonth toYearMonthValue(int yearMonth) {
+        return YearMonth.of(yearMonth / 100, yearMonth % 100);
+    }
+
+    // Bất biến nên đọc/ghi qua một tham chiếu volatile là đủ an toàn giữa các luồng
+    private static final class Day {
+        final long start;
+        final long end;
+        final int epochDay;
+        final int yearMonth;
+
+        Day(long start, long end, int epochDay, int yearMonth) {
+            this.start = start;
+            this.end = end;
+            this.epochDay = epochDay;
+            this.yearMonth = yearMonth;
+        }
+    }
+}
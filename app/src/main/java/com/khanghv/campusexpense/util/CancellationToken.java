@@ -0,0 +1,61 @@
+package com.khanghv.campusexpense.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * Cờ hủy dùng chung giữa nơi gọi và việc chạy nền. Việc nền kiểm tra isCancelled() trước khi bắt đầu
+ * và giữa các bước dài; kết quả của việc đã bị hủy không được gửi về UI.
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+    private Lifecycle lifecycle;
+    private DefaultLifecycleObserver observer;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Token tự hủy khi owner bị hủy (ON_DESTROY). owner null thì không bao giờ tự hủy.
+     * Gọi trên main thread; gọi release() khi việc đã xong để gỡ observer khỏi lifecycle.
+     */
+    public static CancellationToken bindTo(@Nullable LifecycleOwner owner) {
+        CancellationToken token = new CancellationToken();
+        if (owner == null) {
+            return token;
+        }
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            token.cancel();
+            return token;
+        }
+        token.lifecycle = lifecycle;
+        token.observer = new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                token.cancel();
+                token.release();
+            }
+        };
+        lifecycle.addObserver(token.observer);
+        return token;
+    }
+
+    // Gọi trên main thread
+    public void release() {
+        if (lifecycle != null) {
+            lifecycle.removeObserver(observer);
+            lifecycle = null;
+            observer = null;
+        }
+    }
+}
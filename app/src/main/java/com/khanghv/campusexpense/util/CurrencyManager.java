@@ -1,10 +1,10 @@
 package com.khanghv.campusexpense.util;
 
 import android.content.Context;
-import android.content.SharedPreferences;
+
+import com.khanghv.campusexpense.data.model.Money;
 
 import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.util.Locale;
 
 /**
@@ -12,12 +12,10 @@ import java.util.Locale;
  */
 public final class CurrencyManager {
 
-    private static final String PREF_NAME = "settings_prefs";
-    private static final String KEY_DISPLAY_CURRENCY = "display_currency";
-    private static final String KEY_RATE_BITS = "usd_vnd_rate_bits";
-    private static final String KEY_RATE_UPDATED_AT = "usd_vnd_rate_updated_at";
     private static final long CACHE_DURATION_MS = 12 * 60 * 60 * 1000L; // 12 giờ
-    private static final double DEFAULT_USD_TO_VND = 24500d;
+
+    // Formatter của (đơn vị, tỷ giá) hiện tại; chỉ được thay nguyên khối nên người đọc luôn thấy một cấu hình nhất quán
+    private static volatile MoneyFormatter formatter;
 
     private CurrencyManager() {}
 
@@ -30,42 +28,24 @@ public final class CurrencyManager {
         void onError(Exception exception);
     }
 
-    private static SharedPreferences getPrefs(Context context) {
-        return context.getApplicationContext()
-                .getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-    }
-
     public static CurrencyType getDisplayCurrency(Context context) {
-        String stored = getPrefs(context).getString(KEY_DISPLAY_CURRENCY, CurrencyType.VND.name());
-        try {
-            return CurrencyType.valueOf(stored);
-        } catch (IllegalArgumentException exception) {
-            return CurrencyType.VND;
-        }
+        return AppSettings.get(context).getDisplayCurrency();
     }
 
     public static void setDisplayCurrency(Context context, CurrencyType currencyType) {
-        getPrefs(context).edit()
-                .putString(KEY_DISPLAY_CURRENCY, currencyType.name())
-                .apply();
+        AppSettings.setDisplayCurrency(context, currencyType);
     }
 
     public static double getStoredUsdToVndRate(Context context) {
-        long bits = getPrefs(context)
-                .getLong(KEY_RATE_BITS, Double.doubleToRawLongBits(DEFAULT_USD_TO_VND));
-        return Double.longBitsToDouble(bits);
+        return AppSettings.get(context).getUsdToVndRate();
     }
 
     public static void saveUsdToVndRate(Context context, double rate) {
-        getPrefs(context).edit()
-                .putLong(KEY_RATE_BITS, Double.doubleToRawLongBits(rate))
-                .putLong(KEY_RATE_UPDATED_AT, System.currentTimeMillis())
-                .apply();
+        AppSettings.setUsdToVndRate(context, rate, System.currentTimeMillis());
     }
 
     public static void refreshRateIfNeeded(Context context, boolean force, RateUpdateListener listener) {
-        SharedPreferences prefs = getPrefs(context);
-        long lastUpdated = prefs.getLong(KEY_RATE_UPDATED_AT, 0);
+        long lastUpdated = AppSettings.get(context).getRateUpdatedAt();
         long now = System.currentTimeMillis();
 
         if (!force && (now - lastUpdated) < CACHE_DURATION_MS) {
@@ -93,22 +73,25 @@ public final class CurrencyManager {
         });
     }
 
-    public static double toBaseCurrency(Context context, double displayAmount) {
-        if (getDisplayCurrency(context) == CurrencyType.VND) {
-            return displayAmount;
+    // Làm tròn về đồng đúng một lần ở đây, sau đó mọi phép cộng đều là số nguyên
+    public static Money toBaseCurrency(Context context, double displayAmount) {
+        AppSettings settings = AppSettings.get(context);
+        if (settings.getDisplayCurrency() == CurrencyType.VND) {
+            return Money.fromDecimal(displayAmount);
         }
-        return displayAmount * getStoredUsdToVndRate(context);
+        return Money.fromDecimal(displayAmount * settings.getUsdToVndRate());
     }
 
-    public static double fromBaseCurrency(Context context, double baseAmount) {
-        if (getDisplayCurrency(context) == CurrencyType.VND) {
-            return baseAmount;
+    public static double fromBaseCurrency(Context context, Money baseAmount) {
+        AppSettings settings = AppSettings.get(context);
+        if (settings.getDisplayCurrency() == CurrencyType.VND) {
+            return baseAmount.getMinorUnits();
         }
-        double rate = getStoredUsdToVndRate(context);
+        double rate = settings.getUsdToVndRate();
         if (rate == 0) {
-            return baseAmount;
+            return baseAmount.getMinorUnits();
         }
-        return baseAmount / rate;
+        return baseAmount.getMinorUnits() / rate;
     }
 
     public static double parseDisplayAmount(String raw) throws NumberFormatException {
@@ -127,24 +110,32 @@ public final class CurrencyManager {
         return Double.parseDouble(normalized);
     }
 
-    public static String formatDisplayCurrency(Context context, double baseAmount) {
-        double displayAmount = fromBaseCurrency(context, baseAmount);
-        NumberFormat format = NumberFormat.getCurrencyInstance(getCurrencyLocale(context));
-        if (getDisplayCurrency(context) == CurrencyType.VND) {
-            format.setMaximumFractionDigits(0);
-        } else {
-            format.setMaximumFractionDigits(2);
+    public static String formatDisplayCurrency(Context context, Money baseAmount) {
+        return getFormatter(context).format(baseAmount);
+    }
+
+    /**
+     * Formatter của cấu hình hiện tại, dùng chung mọi luồng; chỉ dựng lại khi bản chụp AppSettings
+     * có đơn vị hoặc tỷ giá khác. Nơi định dạng cả danh sách nên lấy một lần rồi dùng cho mọi dòng.
+     */
+    public static MoneyFormatter getFormatter(Context context) {
+        AppSettings settings = AppSettings.get(context);
+        MoneyFormatter current = formatter;
+        if (current == null || current.getCurrency() != settings.getDisplayCurrency()
+                || current.getUsdToVndRate() != settings.getUsdToVndRate()) {
+            current = MoneyFormatter.create(settings.getDisplayCurrency(), settings.getUsdToVndRate());
+            formatter = current;
         }
-        return format.format(displayAmount);
+        return current;
     }
 
-    public static String formatEditableValue(Context context, double baseAmount) {
-        double displayAmount = fromBaseCurrency(context, baseAmount);
-        DecimalFormat decimalFormat = new DecimalFormat(
-                getDisplayCurrency(context) == CurrencyType.VND ? "###,###" : "###,###.##"
-        );
+    public static String formatEditableValue(Context context, Money baseAmount) {
+        if (getDisplayCurrency(context) == CurrencyType.VND) {
+            return Long.toString(baseAmount.getMinorUnits());
+        }
+        DecimalFormat decimalFormat = new DecimalFormat("###,###.##");
         decimalFormat.setGroupingUsed(false);
-        return decimalFormat.format(displayAmount);
+        return decimalFormat.format(fromBaseCurrency(context, baseAmount));
     }
 
     public static Locale getCurrencyLocale(Context context) {
@@ -154,8 +145,7 @@ public final class CurrencyManager {
     }
 
     public static String getCurrencySymbol(Context context) {
-        NumberFormat format = NumberFormat.getCurrencyInstance(getCurrencyLocale(context));
-        return format.getCurrency().getSymbol(getCurrencyLocale(context));
+        return getFormatter(context).getSymbol();
     }
 }
 
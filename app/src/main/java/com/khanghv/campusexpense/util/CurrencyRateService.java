@@ -1,8 +1,5 @@
 package com.khanghv.campusexpense.util;
 
-import android.os.Handler;
-import android.os.Looper;
-
 import org.json.JSONObject;
 
 import java.io.BufferedReader;
@@ -11,8 +8,6 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Gọi API tỷ giá ngoại tệ đơn giản bằng HttpURLConnection.
@@ -20,8 +15,6 @@ import java.util.concurrent.Executors;
 public final class CurrencyRateService {
 
     private static final String RATE_URL = "https://open.er-api.com/v6/latest/USD";
-    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
-    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
 
     private CurrencyRateService() {}
 
@@ -31,7 +24,7 @@ public final class CurrencyRateService {
     }
 
     public static void fetchUsdToVndRate(RateCallback callback) {
-        EXECUTOR.execute(() -> {
+        AppExecutors.io().execute(() -> {
             HttpURLConnection connection = null;
             try {
                 URL url = new URL(RATE_URL);
@@ -66,14 +59,14 @@ public final class CurrencyRateService {
         if (callback == null) {
             return;
         }
-        MAIN_HANDLER.post(() -> callback.onSuccess(rate));
+        AppExecutors.mainThread().execute(() -> callback.onSuccess(rate));
     }
 
     private static void postError(RateCallback callback, Exception exception) {
         if (callback == null) {
             return;
         }
-        MAIN_HANDLER.post(() -> callback.onError(exception));
+        AppExecutors.mainThread().execute(() -> callback.onError(exception));
     }
 
     private static String readStream(InputStream inputStream) throws Exception {
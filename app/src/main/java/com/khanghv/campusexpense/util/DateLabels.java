@@ -0,0 +1,99 @@
+package com.khanghv.campusexpense.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chuỗi ngày/tháng/giờ hiển thị trên UI, dùng chung mọi luồng. DateTimeFormatter bất biến nên không cần
+ * tạo mới mỗi lần; nhãn ngày (theo epochDay) và nhãn tháng (theo yearMonth) được nhớ trong cache LRU có giới hạn,
+ * nên một danh sách dài chỉ định dạng mỗi ngày khác nhau một lần. Đổi ngôn ngữ (Locale.setDefault trong
+ * LocaleManager) thì bộ formatter và cache được dựng lại ở lần gọi kế tiếp.
+ */
+public final class DateLabels {
+
+    private static final int MAX_DAYS = 512;
+    private static final int MAX_MONTHS = 64;
+
+    private static volatile Labels labels;
+
+    private DateLabels() {}
+
+    private static final class Labels {
+        final Locale locale;
+        final DateTimeFormatter dayFormat;
+        final DateTimeFormatter monthFormat;
+        final DateTimeFormatter timeFormat;
+        final Map<Integer, String> days = lru(MAX_DAYS);
+        final Map<Integer, String> months = lru(MAX_MONTHS);
+
+        Labels(Locale locale) {
+            this.locale = locale;
+            dayFormat = DateTimeFormatter.ofPattern("dd/MM/yyyy", locale);
+            monthFormat = DateTimeFormatter.ofPattern("MMMM yyyy", locale);
+            timeFormat = DateTimeFormatter.ofPattern("HH:mm", locale);
+        }
+    }
+
+    // LinkedHashMap theo thứ tự truy cập; không dùng android.util.LruCache để chạy được trong unit test JVM
+    private static <K, V> Map<K, V> lru(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static Labels labels() {
+        Locale locale = Locale.getDefault();
+        Labels current = labels;
+        if (current == null || !current.locale.equals(locale)) {
+            current = new Labels(locale);
+            labels = current;
+        }
+        return current;
+    }
+
+    // "dd/MM/yyyy"
+    public static String day(int epochDay) {
+        Labels current = labels();
+        String label = current.days.get(epochDay);
+        if (label == null) {
+            label = current.dayFormat.format(LocalDate.ofEpochDay(epochDay));
+            current.days.put(epochDay, label);
+        }
+        return label;
+    }
+
+    public static String dayOf(long millis) {
+        return day(CalendarBuckets.epochDayOf(millis));
+    }
+
+    // "MMMM yyyy", yearMonth dạng yyyyMM
+    public static String month(int yearMonth) {
+        Labels current = labels();
+        String label = current.months.get(yearMonth);
+        if (label == null) {
+            label = current.monthFormat.format(YearMonth.of(yearMonth / 100, yearMonth % 100));
+            current.months.put(yearMonth, label);
+        }
+        return label;
+    }
+
+    // "HH:mm" theo giờ địa phương; giờ khác nhau ở mỗi dòng nên không nhớ lại
+    public static String time(long millis) {
+        return labels().timeFormat.format(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()));
+    }
+
+    // "dd/MM/yyyy HH:mm", phần ngày lấy từ cache
+    public static String dateTime(long millis) {
+        return dayOf(millis) + " " + time(millis);
+    }
+}
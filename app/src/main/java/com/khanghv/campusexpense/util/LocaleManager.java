@@ -1,9 +1,6 @@
 package com.khanghv.campusexpense.util;
 
-import static android.content.Context.MODE_PRIVATE;
-
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Build;
@@ -15,9 +12,6 @@ import java.util.Locale;
  */
 public final class LocaleManager {
 
-    private static final String PREF_NAME = "settings_prefs";
-    private static final String KEY_LANGUAGE = "app_language";
-    private static SharedPreferences sharedPreferences;
     private LocaleManager() {}
 
     public enum Language {
@@ -44,24 +38,12 @@ public final class LocaleManager {
         }
     }
 
-    private static SharedPreferences getPrefs(Context context) {
-
-        return context.getApplicationContext()
-                .getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-    }
-
     public static Language getLanguage(Context context) {
-        sharedPreferences = context.getSharedPreferences("settings_prefs",MODE_PRIVATE);
-        String stored =
-                sharedPreferences.getString("app_language",Locale.getDefault().getLanguage());
-
-        return Language.fromCode(stored);
+        return AppSettings.get(context).getLanguage();
     }
 
     public static void setLanguage(Context context, Language language) {
-        getPrefs(context).edit()
-                .putString(KEY_LANGUAGE, language.getCode())
-                .apply();
+        AppSettings.setLanguage(context, language);
     }
 
     public static Language toggleLanguage(Context context) {
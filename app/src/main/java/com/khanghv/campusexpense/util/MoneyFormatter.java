@@ -0,0 +1,112 @@
+package com.khanghv.campusexpense.util;
+
+import com.khanghv.campusexpense.data.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Định dạng số tiền theo một bản chụp (đơn vị hiển thị, locale, tỷ giá) cố định, dựng một lần trong CurrencyManager.
+ * Nhóm hàng nghìn và 2 chữ số lẻ của USD được ghi tay vào StringBuilder dùng lại theo luồng,
+ * không tạo NumberFormat hay đọc SharedPreferences ở mỗi lần gọi. Kết quả giống NumberFormat.getCurrencyInstance:
+ * "1.234.567 ₫" cho VND, "$1,234.57" cho USD, số âm có dấu "-" ở đầu.
+ */
+public final class MoneyFormatter {
+
+    private static final long[] POW10 = new long[19];
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final CurrencyManager.CurrencyType currency;
+    private final double usdToVndRate;
+    private final String symbol;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+
+    private MoneyFormatter(CurrencyManager.CurrencyType currency, double usdToVndRate, Locale locale) {
+        this.currency = currency;
+        this.usdToVndRate = usdToVndRate;
+        this.symbol = Currency.getInstance(locale).getSymbol(locale);
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.decimalSeparator = symbols.getDecimalSeparator();
+    }
+
+    static MoneyFormatter create(CurrencyManager.CurrencyType currency, double usdToVndRate) {
+        Locale locale = currency == CurrencyManager.CurrencyType.USD ? Locale.US : new Locale("vi", "VN");
+        return new MoneyFormatter(currency, usdToVndRate, locale);
+    }
+
+    public CurrencyManager.CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public double getUsdToVndRate() {
+        return usdToVndRate;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String format(Money baseAmount) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return formatTo(baseAmount, buffer).toString();
+    }
+
+    // Ghi nối vào out, không cấp phát thêm nếu out còn đủ chỗ
+    public StringBuilder formatTo(Money baseAmount, StringBuilder out) {
+        long minorUnits = baseAmount.getMinorUnits();
+        if (currency == CurrencyManager.CurrencyType.VND) {
+            // VND hiển thị thẳng số nguyên, không qua double
+            if (minorUnits < 0) {
+                out.append('-');
+            }
+            appendGrouped(out, Math.abs(minorUnits));
+            return out.append('\u00A0').append(symbol);
+        }
+        // Giống CurrencyManager.fromBaseCurrency: tỷ giá 0 thì giữ nguyên giá trị
+        double amount = usdToVndRate == 0 ? minorUnits : minorUnits / usdToVndRate;
+        // Làm tròn nửa về số chẵn như NumberFormat
+        double scaled = Math.abs(amount) * 100;
+        long cents = (long) Math.rint(scaled);
+        // Sát nửa cent thì phép nhân có thể đã làm tròn mất phần lẻ thật (0.015 là 0.01499... nhưng *100 ra 1.5);
+        // NumberFormat làm tròn trên giá trị đúng của double nên tính lại bằng BigDecimal
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) <= Math.ulp(scaled)) {
+            cents = new BigDecimal(Math.abs(amount)).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+        }
+        if (amount < 0) {
+            out.append('-');
+        }
+        out.append(symbol);
+        appendGrouped(out, cents / 100);
+        int fraction = (int) (cents % 100);
+        return out.append(decimalSeparator)
+                .append((char) ('0' + fraction / 10))
+                .append((char) ('0' + fraction % 10));
+    }
+
+    // value >= 0; ghi từng chữ số từ hàng cao nhất nên không cần mảng tạm
+    private void appendGrouped(StringBuilder out, long value) {
+        int digits = 1;
+        while (digits < POW10.length && value >= POW10[digits]) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            out.append((char) ('0' + (value / POW10[i]) % 10));
+            if (i > 0 && i % 3 == 0) {
+                out.append(groupingSeparator);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.khanghv.campusexpense.data;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExpenseCsvImporterTest {
+
+    private static BufferedReader reader(String csv) {
+        return new BufferedReader(new StringReader(csv));
+    }
+
+    private static List<String> next(BufferedReader reader) throws IOException {
+        return ExpenseCsvImporter.splitLine(reader.readLine(), reader, ',');
+    }
+
+    @Test
+    public void quotedFieldsKeepDelimitersEscapedQuotesAndNewlines() throws IOException {
+        BufferedReader reader = reader("2024-03-05, \"Cafe, tea\",\"say \"\"hi\"\"\nnext\"\n2024-03-06,7\n");
+        assertEquals(Arrays.asList("2024-03-05", "Cafe, tea", "say \"hi\"\nnext"), next(reader));
+        assertEquals(Arrays.asList("2024-03-06", "7"), next(reader));
+        assertNull(reader.readLine());
+    }
+
+    // Ngoặc kép giữa trường là ký tự thường: không được nuốt các dòng sau
+    @Test
+    public void quoteInsideFieldIsLiteral() throws IOException {
+        BufferedReader reader = reader("2024-03-05,100,Tech,5\" screen\n2024-03-06,7,Food,ok\n");
+        assertEquals(Arrays.asList("2024-03-05", "100", "Tech", "5\" screen"), next(reader));
+        assertEquals(Arrays.asList("2024-03-06", "7", "Food", "ok"), next(reader));
+    }
+
+    // Ngoặc mở không đóng tới hết file: bản ghi hỏng, các dòng sau vẫn được đọc lại
+    @Test
+    public void unterminatedQuoteAtEndOfFileIsMalformed() throws IOException {
+        BufferedReader reader = reader("2024-03-05,\"broken\n2024-03-06,7\n2024-03-07,8\n");
+        assertNull(next(reader));
+        assertEquals(Arrays.asList("2024-03-06", "7"), next(reader));
+        assertEquals(Arrays.asList("2024-03-07", "8"), next(reader));
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    public void recordOverLineCapIsMalformed() throws IOException {
+        StringBuilder csv = new StringBuilder("2024-03-05,\"open\n");
+        for (int i = 0; i <= ExpenseCsvImporter.MAX_RECORD_LINES; i++) {
+            csv.append("row ").append(i).append('\n');
+        }
+        csv.append("end\"\n");
+        BufferedReader reader = reader(csv.toString());
+        assertNull(next(reader));
+        assertEquals(Collections.singletonList("row 0"), next(reader));
+    }
+
+    @Test
+    public void recordAtLineCapIsKept() throws IOException {
+        StringBuilder csv = new StringBuilder("1,\"a");
+        for (int i = 0; i < ExpenseCsvImporter.MAX_RECORD_LINES; i++) {
+            csv.append("\nb");
+        }
+        csv.append("\"\n2,c\n");
+        BufferedReader reader = reader(csv.toString());
+        List<String> fields = next(reader);
+        assertNotNull(fields);
+        assertEquals(ExpenseCsvImporter.MAX_RECORD_LINES + 1, fields.get(1).split("\n").length);
+        assertEquals(Arrays.asList("2", "c"), next(reader));
+    }
+
+    @Test
+    public void recordOverCharCapIsMalformed() throws IOException {
+        char[] chunk = new char[ExpenseCsvImporter.MAX_RECORD_CHARS / 4];
+        Arrays.fill(chunk, 'x');
+        String longLine = new String(chunk);
+        String csv = "1,\"" + longLine + "\n" + longLine + "\n" + longLine + "\n" + longLine + "\n2,ok\n";
+        BufferedReader reader = reader(csv);
+        assertNull(next(reader));
+        assertEquals(Collections.singletonList(longLine), next(reader));
+    }
+}
@@ -0,0 +1,266 @@
+package com.khanghv.campusexpense.data;
+
+import android.database.Cursor;
+
+import com.khanghv.campusexpense.data.database.ExpenseDao;
+import com.khanghv.campusexpense.data.database.ExpenseSearchDao;
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ExpensePagerTest {
+
+    private static final int USER_ID = 1;
+    private static final int EXPENSES = 1_000;
+    private static final int WINDOW = ExpensePager.MAX_PAGES * ExpensePager.PAGE_SIZE;
+
+    // Thứ tự hiển thị: (date, createdAt, id) giảm dần
+    private static final Comparator<Expense> NEWEST_FIRST = Comparator.comparingLong(Expense::getDate)
+            .thenComparingLong(Expense::getCreatedAt)
+            .thenComparingInt(Expense::getId)
+            .reversed();
+
+    private FakeExpenseDao expenseDao;
+    private List<Expense> sorted;
+
+    // Nhiều dòng trùng date và createdAt để keyset phải phân biệt bằng id
+    @Before
+    public void setUp() {
+        Random random = new Random(7);
+        expenseDao = new FakeExpenseDao();
+        for (int i = 0; i < EXPENSES; i++) {
+            Expense expense = new Expense(USER_ID, random.nextInt(3), Money.ofMinorUnits(1000 + i), "",
+                    1_700_000_000_000L + random.nextInt(200) * 3_600_000L);
+            expense.setCreatedAt(random.nextInt(3));
+            expense.setId(i + 1);
+            expenseDao.rows.add(expense);
+        }
+        Expense otherUser = new Expense(2, 0, Money.ofMinorUnits(1), "", 1_700_000_000_000L);
+        otherUser.setId(EXPENSES + 1);
+        expenseDao.rows.add(otherUser);
+        sorted = new ArrayList<>(expenseDao.rows.subList(0, EXPENSES));
+        sorted.sort(NEWEST_FIRST);
+    }
+
+    @Test
+    public void scrollingDownKeepsBoundedContiguousWindow() {
+        ExpensePager pager = newPager();
+        pager.loadNextPage();
+        assertFalse(pager.hasPrevious());
+        int pages = 1;
+        while (pager.hasMore()) {
+            pager.loadNextPage();
+            pages++;
+            List<Expense> window = pager.window();
+            assertTrue(window.size() <= WINDOW);
+            assertContiguous(window);
+        }
+        assertEquals((EXPENSES + ExpensePager.PAGE_SIZE - 1) / ExpensePager.PAGE_SIZE + 1, pages);
+        List<Expense> window = pager.window();
+        assertEquals(WINDOW, window.size());
+        assertSame(sorted.get(EXPENSES - 1), window.get(window.size() - 1));
+        assertTrue(pager.hasPrevious());
+    }
+
+    @Test
+    public void scrollingBackUpRestoresEvictedPages() {
+        ExpensePager pager = newPager();
+        while (pager.hasMore()) {
+            pager.loadNextPage();
+        }
+        while (pager.hasPrevious()) {
+            assertEquals(ExpensePager.PAGE_SIZE, pager.loadPreviousPage().size());
+            List<Expense> window = pager.window();
+            assertTrue(window.size() <= WINDOW);
+            assertContiguous(window);
+        }
+        List<Expense> window = pager.window();
+        assertSame(sorted.get(0), window.get(0));
+        assertEquals(WINDOW, window.size());
+        // Trang cuối đã bị bỏ nên cuộn xuống lại đọc tiếp ngay sau cửa sổ
+        assertTrue(pager.hasMore());
+        pager.loadNextPage();
+        assertContiguous(pager.window());
+        assertSame(sorted.get(WINDOW + ExpensePager.PAGE_SIZE - 1), pager.window().get(WINDOW - 1));
+    }
+
+    @Test
+    public void reloadReadsOnlyTheWindow() {
+        ExpensePager pager = newPager();
+        for (int i = 0; i < 12; i++) {
+            pager.loadNextPage();
+        }
+        List<Expense> before = pager.window();
+
+        expenseDao.rowsRead = 0;
+        ExpensePager reloaded = pager.reload();
+        reloaded.loadNextPage();
+        assertTrue(expenseDao.rowsRead <= WINDOW);
+        assertEquals(before, reloaded.window());
+        assertTrue(reloaded.hasPrevious());
+
+        reloaded.loadPreviousPage();
+        assertContiguous(reloaded.window());
+    }
+
+    // Các dòng của cửa sổ tải lại bị xóa hết: đọc trang trước bắt đầu từ chính dòng ngay trước cửa sổ
+    @Test
+    public void previousPageAfterWindowRowsDeletedIncludesHeadRow() {
+        ExpensePager pager = newPager();
+        for (int i = 0; i < 6; i++) {
+            pager.loadNextPage();
+        }
+        expenseDao.rows.removeIf(e -> e.getId() <= EXPENSES);
+        List<Expense> remaining = new ArrayList<>(sorted.subList(0, 2 * ExpensePager.PAGE_SIZE));
+        expenseDao.rows.addAll(remaining);
+
+        ExpensePager reloaded = pager.reload();
+        assertTrue(reloaded.loadNextPage().isEmpty());
+        reloaded.loadPreviousPage();
+        List<Expense> window = reloaded.window();
+        assertEquals(ExpensePager.PAGE_SIZE, window.size());
+        assertSame(remaining.get(remaining.size() - 1), window.get(window.size() - 1));
+    }
+
+    @Test
+    public void searchWindowMovesByOffset() {
+        ExpensePager pager = ExpensePager.forSearch(new FakeSearchDao(), "x", USER_ID,
+                ExpensePager.ALL_CATEGORIES, Long.MIN_VALUE, Long.MAX_VALUE);
+        while (pager.hasMore()) {
+            pager.loadNextPage();
+            assertTrue(pager.window().size() <= WINDOW);
+            assertContiguous(pager.window());
+        }
+        while (pager.hasPrevious()) {
+            pager.loadPreviousPage();
+            assertContiguous(pager.window());
+        }
+        assertSame(sorted.get(0), pager.window().get(0));
+    }
+
+    private ExpensePager newPager() {
+        return new ExpensePager(expenseDao, USER_ID, ExpensePager.ALL_CATEGORIES, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private void assertContiguous(List<Expense> window) {
+        int start = sorted.indexOf(window.get(0));
+        assertTrue(start >= 0);
+        assertEquals(sorted.subList(start, start + window.size()), window);
+    }
+
+    // Cùng điều kiện với các câu keyset của ExpenseDao, lọc trên danh sách trong bộ nhớ
+    private static final class FakeExpenseDao implements ExpenseDao {
+        final List<Expense> rows = new ArrayList<>();
+        int rowsRead;
+
+        @Override
+        public List<Expense> getPageByDateRange(int userId, long startDate, long endDate,
+                                                long afterDate, long afterCreatedAt, int afterId, int limit) {
+            return page(userId, -1, startDate, endDate, afterDate, afterCreatedAt, afterId, limit, false);
+        }
+
+        @Override
+        public List<Expense> getPageByCategoryAndDateRange(int userId, int categoryId, long startDate, long endDate,
+                                                           long afterDate, long afterCreatedAt, int afterId, int limit) {
+            return page(userId, categoryId, startDate, endDate, afterDate, afterCreatedAt, afterId, limit, false);
+        }
+
+        @Override
+        public List<Expense> getPreviousPageByDateRange(int userId, long startDate, long endDate,
+                                                        long firstDate, long firstCreatedAt, int firstId, int limit) {
+            return page(userId, -1, startDate, endDate, firstDate, firstCreatedAt, firstId, limit, true);
+        }
+
+        @Override
+        public List<Expense> getPreviousPageByCategoryAndDateRange(int userId, int categoryId, long startDate,
+                                                                   long endDate, long firstDate, long firstCreatedAt,
+                                                                   int firstId, int limit) {
+            return page(userId, categoryId, startDate, endDate, firstDate, firstCreatedAt, firstId, limit, true);
+        }
+
+        private List<Expense> page(int userId, int categoryId, long startDate, long endDate,
+                                   long date, long createdAt, int id, int limit, boolean before) {
+            List<Expense> result = new ArrayList<>();
+            for (Expense e : rows) {
+                if (e.getUserId() != userId || (categoryId != -1 && e.getCategoryId() != categoryId)
+                        || e.getDate() < startDate || e.getDate() > endDate) {
+                    continue;
+                }
+                // So (date, createdAt, id) với khóa: âm khi dòng mới hơn khóa
+                int order = Long.compare(date, e.getDate());
+                if (order == 0) {
+                    order = Long.compare(createdAt, e.getCreatedAt());
+                }
+                if (order == 0) {
+                    order = Integer.compare(id, e.getId());
+                }
+                if (before ? order < 0 : order > 0) {
+                    result.add(e);
+                }
+            }
+            result.sort(before ? NEWEST_FIRST.reversed() : NEWEST_FIRST);
+            List<Expense> page = new ArrayList<>(result.subList(0, Math.min(limit, result.size())));
+            rowsRead += page.size();
+            return page;
+        }
+
+        @Override
+        public long insert(Expense expense) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void insertAll(List<Expense> expenses) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void update(Expense expense) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(Expense expense) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Expense> getExpensesByCategoryAndDateRange(int userId, int categoryId, long startDate, long endDate) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Cursor getExportCursor(int userId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Kết quả tìm kiếm: thứ tự cố định, đọc theo LIMIT/OFFSET
+    private final class FakeSearchDao implements ExpenseSearchDao {
+        @Override
+        public List<Expense> search(String match, int userId, int categoryId, long startDate, long endDate,
+                                    int limit, int offset) {
+            int from = Math.min(offset, sorted.size());
+            return new ArrayList<>(sorted.subList(from, Math.min(from + limit, sorted.size())));
+        }
+
+        @Override
+        public int countMatches(String match, int userId, int categoryId, long startDate, long endDate) {
+            return sorted.size();
+        }
+
+        @Override
+        public Money sumMatches(String match, int userId, int categoryId, long startDate, long endDate) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.khanghv.campusexpense.data;
+
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Đo ExportLineWriter giống vòng lặp của ExpenseExporter.export: nguồn dòng tổng hợp sinh từng dòng (không dựng List),
+ * một StringBuilder dùng lại, ghi qua BufferedWriter 64 KB vào stream bỏ đi.
+ * In rows/giây và heap đỉnh cho mỗi định dạng; heap đỉnh là tổng peak của từng memory pool heap nên là cận trên.
+ * Chạy: ./gradlew testDebugUnitTest --tests '*ExportLineWriterBenchmarkTest' -i
+ */
+public class ExportLineWriterBenchmarkTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int WARM_UP_ROWS = 200_000;
+    private static final long START = 1672531200000L;
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final String[] CATEGORIES = {"Food", "Transport", "Cafe, tea", "Books", "Rent"};
+    private static final String[] DESCRIPTIONS = {"", "Lunch", "say \"hi\"", "bus\nticket", "coffee with friends"};
+
+    @Test
+    public void csvVnd() throws IOException {
+        run("CSV VND", true, false);
+    }
+
+    @Test
+    public void csvUsd() throws IOException {
+        run("CSV USD", false, false);
+    }
+
+    @Test
+    public void ndjsonVnd() throws IOException {
+        run("NDJSON VND", true, true);
+    }
+
+    private static void run(String name, boolean vnd, boolean json) throws IOException {
+        export(vnd, json, WARM_UP_ROWS);
+        System.gc();
+        long baseline = resetPeakHeap();
+
+        long started = System.nanoTime();
+        long chars = export(vnd, json, ROWS);
+        long elapsed = System.nanoTime() - started;
+        long peak = peakHeap();
+
+        System.out.println(String.format(Locale.US, "%-10s %,d rows: %,.0f rows/s, %.1f MB written, peak heap %.1f MB"
+                        + " (%.1f MB above baseline)", name, ROWS, ROWS * 1e9 / elapsed, chars / 1e6,
+                peak / 1e6, (peak - baseline) / 1e6));
+        assertTrue(chars > (long) ROWS * "2024-01-01,1,,\n".length());
+    }
+
+    // Trả về số ký tự đã ghi
+    private static long export(boolean vnd, boolean json, int rows) throws IOException {
+        ExportLineWriter lineWriter = new ExportLineWriter(vnd, 24500, ZONE);
+        StringBuilder line = new StringBuilder(256);
+        long chars = 0;
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 64 * 1024)) {
+            if (!json) {
+                writer.write(ExportLineWriter.CSV_HEADER);
+            }
+            for (int i = 0; i < rows; i++) {
+                line.setLength(0);
+                // Mười dòng mỗi giờ, sắp theo ngày như getExportCursor
+                long date = START + i * 6L * 60 * 1000;
+                long amount = 1_000 + (i * 7919L) % 1_000_000;
+                String category = CATEGORIES[i % CATEGORIES.length];
+                String description = DESCRIPTIONS[(i / 3) % DESCRIPTIONS.length];
+                if (json) {
+                    lineWriter.appendJson(line, date, amount, category, description);
+                } else {
+                    lineWriter.appendCsv(line, date, amount, category, description);
+                }
+                writer.append(line);
+                chars += line.length();
+            }
+        }
+        return chars;
+    }
+
+    private static long resetPeakHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
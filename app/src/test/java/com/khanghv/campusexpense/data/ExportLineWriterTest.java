@@ -0,0 +1,98 @@
+package com.khanghv.campusexpense.data;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExportLineWriterTest {
+
+    private static final ZoneId HO_CHI_MINH = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(HO_CHI_MINH).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void csvLeavesPlainFieldsUnquoted() {
+        ExportLineWriter writer = new ExportLineWriter(true, 24500, HO_CHI_MINH);
+        StringBuilder line = new StringBuilder();
+        writer.appendCsv(line, millis(2024, 3, 5, 12, 0), 45000, "Food", "Lunch");
+        assertEquals("2024-03-05,45000,Food,Lunch\n", line.toString());
+    }
+
+    // \r và \r\n được ghi thành \n: importer đọc theo dòng nên không giữ được \r
+    @Test
+    public void csvQuotesCommasQuotesAndNewlines() {
+        ExportLineWriter writer = new ExportLineWriter(true, 24500, HO_CHI_MINH);
+        StringBuilder line = new StringBuilder();
+        writer.appendCsv(line, millis(2024, 3, 5, 12, 0), -1, "Cafe, tea", "say \"hi\"\nnext\rline\r\nend");
+        assertEquals("2024-03-05,-1,\"Cafe, tea\",\"say \"\"hi\"\"\nnext\nline\nend\"\n", line.toString());
+    }
+
+    // File xuất ra phải nhập lại được: tách bằng đúng hàm của ExpenseCsvImporter cho ra các trường ban đầu
+    @Test
+    public void csvRoundTripsThroughImporterSplitter() throws IOException {
+        ExportLineWriter writer = new ExportLineWriter(true, 24500, HO_CHI_MINH);
+        StringBuilder csv = new StringBuilder();
+        writer.appendCsv(csv, millis(2024, 3, 5, 12, 0), 45000, "Cafe, tea", "say \"hi\"\nsecond line");
+        writer.appendCsv(csv, millis(2024, 3, 6, 8, 0), 7, "", "");
+        writer.appendCsv(csv, millis(2024, 3, 7, 8, 0), 9, "Mac\rnote", "windows\r\nline");
+
+        BufferedReader reader = new BufferedReader(new StringReader(csv.toString()));
+        List<String> first = ExpenseCsvImporter.splitLine(reader.readLine(), reader, ',');
+        assertEquals(Arrays.asList("2024-03-05", "45000", "Cafe, tea", "say \"hi\"\nsecond line"), first);
+        List<String> second = ExpenseCsvImporter.splitLine(reader.readLine(), reader, ',');
+        assertEquals(Arrays.asList("2024-03-06", "7", "", ""), second);
+        List<String> third = ExpenseCsvImporter.splitLine(reader.readLine(), reader, ',');
+        assertEquals(Arrays.asList("2024-03-07", "9", "Mac\nnote", "windows\nline"), third);
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    public void jsonEscapesQuotesBackslashesAndControlCharacters() {
+        ExportLineWriter writer = new ExportLineWriter(true, 24500, HO_CHI_MINH);
+        StringBuilder line = new StringBuilder();
+        writer.appendJson(line, millis(2024, 3, 5, 12, 0), 45000, "Ăn \"uống\"", "a\\b\n\t\r\u0001");
+        assertEquals("{\"date\":\"2024-03-05\",\"amount\":45000,\"category\":\"Ăn \\\"uống\\\"\","
+                + "\"description\":\"a\\\\b\\n\\t\\r\\u0001\"}\n", line.toString());
+    }
+
+    // USD: chia theo tỷ giá, tối đa 2 chữ số lẻ, không nhóm hàng nghìn; tỷ giá 0 thì giữ nguyên giá trị
+    @Test
+    public void usdAmountsUseRateAndTwoDecimals() {
+        StringBuilder line = new StringBuilder();
+        new ExportLineWriter(false, 24500, HO_CHI_MINH).appendJson(line, 0, 36_750_000, "", "");
+        assertTrue(line.toString(), line.toString().contains("\"amount\":1500,"));
+
+        line.setLength(0);
+        new ExportLineWriter(false, 24500, HO_CHI_MINH).appendCsv(line, 0, 30_000, "", "");
+        assertEquals("1970-01-01,1.22,,\n", line.toString());
+
+        line.setLength(0);
+        new ExportLineWriter(false, 0, HO_CHI_MINH).appendCsv(line, 0, 1234, "", "");
+        assertEquals("1970-01-01,1234,,\n", line.toString());
+    }
+
+    // Ngày cache theo khoảng [đầu ngày, đầu ngày hôm sau) của múi giờ, kể cả khi thứ tự ngày đảo ngược
+    @Test
+    public void dateFollowsLocalDayBoundaries() {
+        ExportLineWriter writer = new ExportLineWriter(true, 24500, HO_CHI_MINH);
+        long[] dates = {
+                millis(2024, 1, 31, 0, 0), millis(2024, 1, 31, 23, 59),
+                millis(2024, 2, 1, 0, 0), millis(2024, 1, 31, 12, 0), millis(2024, 2, 1, 23, 59)};
+        String[] expected = {"2024-01-31", "2024-01-31", "2024-02-01", "2024-01-31", "2024-02-01"};
+        for (int i = 0; i < dates.length; i++) {
+            StringBuilder line = new StringBuilder();
+            writer.appendCsv(line, dates[i], 0, "", "");
+            assertEquals(expected[i] + ",0,,\n", line.toString());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.khanghv.campusexpense.data.database;
+
+import com.khanghv.campusexpense.data.model.Money;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoneyConverterTest {
+
+    @Test
+    public void roundTripKeepsMinorUnits() {
+        long[] values = {0, 1, -1, 24_500, 9_007_199_254_740_993L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            Money money = Money.ofMinorUnits(value);
+            Long stored = MoneyConverter.fromMoney(money);
+            assertEquals(Long.valueOf(value), stored);
+            assertEquals(money, MoneyConverter.toMoney(stored));
+        }
+    }
+
+    @Test
+    public void zeroReadsAsSharedZero() {
+        assertSame(Money.ZERO, MoneyConverter.toMoney(0L));
+    }
+
+    @Test
+    public void nullStaysNull() {
+        assertNull(MoneyConverter.fromMoney(null));
+        assertNull(MoneyConverter.toMoney(null));
+    }
+}
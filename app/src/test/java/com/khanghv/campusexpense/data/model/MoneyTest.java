@@ -0,0 +1,80 @@
+package com.khanghv.campusexpense.data.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoneyTest {
+
+    @Test
+    public void zeroIsShared() {
+        assertSame(Money.ZERO, Money.ofMinorUnits(0));
+        assertSame(Money.ZERO, Money.fromDecimal(0.4));
+        assertSame(Money.ZERO, Money.ofMinorUnits(5).minus(Money.ofMinorUnits(5)));
+    }
+
+    @Test
+    public void plusAndMinusAreExact() {
+        Money a = Money.ofMinorUnits(9_007_199_254_740_993L);
+        Money b = Money.ofMinorUnits(1);
+        assertEquals(9_007_199_254_740_994L, a.plus(b).getMinorUnits());
+        assertEquals(9_007_199_254_740_992L, a.minus(b).getMinorUnits());
+        assertEquals(-1, Money.ZERO.minus(b).getMinorUnits());
+    }
+
+    @Test
+    public void overflowThrows() {
+        assertThrows(ArithmeticException.class,
+                () -> Money.ofMinorUnits(Long.MAX_VALUE).plus(Money.ofMinorUnits(1)));
+        assertThrows(ArithmeticException.class,
+                () -> Money.ofMinorUnits(Long.MIN_VALUE).minus(Money.ofMinorUnits(1)));
+    }
+
+    // Math.round: nửa đơn vị làm tròn lên (về phía dương)
+    @Test
+    public void fromDecimalRoundsHalfUp() {
+        assertEquals(1, Money.fromDecimal(0.5).getMinorUnits());
+        assertEquals(2, Money.fromDecimal(1.5).getMinorUnits());
+        assertEquals(3, Money.fromDecimal(2.5).getMinorUnits());
+        assertEquals(2, Money.fromDecimal(2.4999).getMinorUnits());
+        assertEquals(-1, Money.fromDecimal(-1.5).getMinorUnits());
+        assertEquals(-2, Money.fromDecimal(-1.51).getMinorUnits());
+        assertEquals(24_500_000, Money.fromDecimal(1000 * 24500.0).getMinorUnits());
+    }
+
+    @Test
+    public void dividedByRounds() {
+        assertEquals(3, Money.ofMinorUnits(10).dividedBy(3).getMinorUnits());
+        assertEquals(6, Money.ofMinorUnits(11).dividedBy(2).getMinorUnits());
+        assertEquals(-5, Money.ofMinorUnits(-11).dividedBy(2).getMinorUnits());
+        assertEquals(7, Money.ofMinorUnits(20).dividedBy(3).getMinorUnits());
+    }
+
+    @Test
+    public void percentOf() {
+        assertEquals(25.0, Money.ofMinorUnits(50).percentOf(Money.ofMinorUnits(200)), 0);
+        assertEquals(150.0, Money.ofMinorUnits(300).percentOf(Money.ofMinorUnits(200)), 0);
+        assertEquals(0.0, Money.ofMinorUnits(300).percentOf(Money.ZERO), 0);
+    }
+
+    @Test
+    public void signAndOrdering() {
+        Money negative = Money.ofMinorUnits(-1);
+        Money positive = Money.ofMinorUnits(1);
+        assertTrue(negative.isNegative());
+        assertFalse(negative.isPositive());
+        assertTrue(positive.isPositive());
+        assertFalse(Money.ZERO.isPositive());
+        assertFalse(Money.ZERO.isNegative());
+        assertTrue(negative.compareTo(positive) < 0);
+        assertEquals(0, Money.ofMinorUnits(7).compareTo(Money.ofMinorUnits(7)));
+    }
+
+    @Test
+    public void equalsByValue() {
+        assertEquals(Money.ofMinorUnits(1234), Money.ofMinorUnits(1234));
+        assertEquals(Money.ofMinorUnits(1234).hashCode(), Money.ofMinorUnits(1234).hashCode());
+        assertNotEquals(Money.ofMinorUnits(1234), Money.ofMinorUnits(1235));
+        assertEquals("1234", Money.ofMinorUnits(1234).toString());
+    }
+}
@@ -0,0 +1,147 @@
+package com.khanghv.campusexpense.ui.expense;
+
+import com.khanghv.campusexpense.data.ExpensePager;
+import com.khanghv.campusexpense.data.model.Expense;
+import com.khanghv.campusexpense.data.model.Money;
+import com.khanghv.campusexpense.util.DateLabels;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ExpenseRowBuilderTest {
+
+    private static final int EXPENSES = 10_000;
+    // Không chia hết PAGE_SIZE nên phần lớn các trang bắt đầu giữa một ngày
+    private static final int PER_DAY = 33;
+    private static final String TODAY = "Today";
+    private static final String UNKNOWN = "Unknown";
+    private static final int WARM_UP_BUILDS = 20;
+    private static final int TIMED_BUILDS = 20;
+    // Rất rộng: chỉ bắt lỗi kiểu dựng lại formatter hoặc quét lại danh sách cho mỗi dòng
+    private static final long MAX_NS_PER_ROW = 20_000;
+
+    private List<Expense> expenses;
+
+    // Sắp theo (date, createdAt, id) giảm dần như ExpensePager, bắt đầu từ hôm nay
+    @Before
+    public void setUp() {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now();
+        expenses = new ArrayList<>(EXPENSES);
+        for (int i = 0; i < EXPENSES; i++) {
+            long dayStart = today.minusDays(i / PER_DAY).atStartOfDay(zone).toInstant().toEpochMilli();
+            long date = dayStart + (23 * 60 - i % PER_DAY) * 60_000L;
+            Expense expense = new Expense(1, i % 5, Money.ofMinorUnits(1000 + i),
+                    i % 3 == 0 ? "note " + i : "  ", date);
+            expense.setId(EXPENSES - i);
+            expenses.add(expense);
+        }
+    }
+
+    @Test
+    public void rowsHaveOneHeaderPerDayInOrder() {
+        List<ExpenseRecyclerAdapter.ExpenseItem> rows = newBuilder().build(expenses);
+
+        int days = (EXPENSES + PER_DAY - 1) / PER_DAY;
+        assertEquals(EXPENSES + days, rows.size());
+
+        Set<Long> ids = new HashSet<>();
+        int expenseIndex = 0;
+        int headerDay = Integer.MAX_VALUE;
+        for (ExpenseRecyclerAdapter.ExpenseItem row : rows) {
+            assertTrue("duplicate stable id " + row.getStableId(), ids.add(row.getStableId()));
+            if (row.type == ExpenseRecyclerAdapter.ExpenseItem.TYPE_HEADER) {
+                assertTrue(row.epochDay < headerDay);
+                headerDay = row.epochDay;
+                assertEquals(ExpenseRecyclerAdapter.HEADER_ID_BASE + row.epochDay, row.getStableId());
+            } else {
+                Expense expected = expenses.get(expenseIndex++);
+                assertSame(expected, row.expense);
+                assertEquals(headerDay, row.epochDay);
+                assertEquals(expected.getId(), row.getStableId());
+            }
+        }
+        assertEquals(EXPENSES, expenseIndex);
+    }
+
+    // Cửa sổ của ExpensePager có thể bắt đầu giữa một ngày (trang đầu đã bị bỏ): dòng đầu vẫn là header
+    @Test
+    public void windowStartingMidDayStartsWithHeader() {
+        List<Expense> window = expenses.subList(ExpensePager.PAGE_SIZE, 2 * ExpensePager.PAGE_SIZE);
+        List<ExpenseRecyclerAdapter.ExpenseItem> rows = newBuilder().build(window);
+
+        // Dòng 50 cùng ngày với dòng 49 (ngày thứ hai có các dòng 33..65)
+        assertEquals(expenses.get(ExpensePager.PAGE_SIZE - 1).getEpochDay(), window.get(0).getEpochDay());
+        assertEquals(ExpenseRecyclerAdapter.ExpenseItem.TYPE_HEADER, rows.get(0).type);
+        assertEquals(window.get(0).getEpochDay(), rows.get(0).epochDay);
+        // Dòng 50..99: phần còn lại của ngày 1, cả ngày 2 và dòng đầu của ngày 3
+        assertEquals(ExpensePager.PAGE_SIZE + 3, rows.size());
+    }
+
+    // Fragment dựng lại cả cửa sổ mỗi lần cuộn bằng cùng một builder: kết quả không phụ thuộc lần gọi trước
+    @Test
+    public void reusedBuilderMatchesFreshBuilder() {
+        int window = ExpensePager.MAX_PAGES * ExpensePager.PAGE_SIZE;
+        ExpenseRowBuilder reused = newBuilder();
+        for (int start = 0; start + window <= expenses.size(); start += ExpensePager.PAGE_SIZE) {
+            List<Expense> slice = expenses.subList(start, start + window);
+            List<ExpenseRecyclerAdapter.ExpenseItem> rows = reused.build(slice);
+            List<ExpenseRecyclerAdapter.ExpenseItem> fresh = newBuilder().build(slice);
+            assertEquals(fresh.size(), rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(fresh.get(i).getStableId(), rows.get(i).getStableId());
+                assertTrue(fresh.get(i).hasSameContent(rows.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void rowsCarryPreformattedText() {
+        List<ExpenseRecyclerAdapter.ExpenseItem> rows = newBuilder().build(expenses.subList(0, 2 * PER_DAY));
+
+        ExpenseRecyclerAdapter.ExpenseItem todayHeader = rows.get(0);
+        assertEquals(TODAY, todayHeader.headerText);
+        ExpenseRecyclerAdapter.ExpenseItem yesterdayHeader = rows.get(PER_DAY + 1);
+        assertEquals(ExpenseRecyclerAdapter.ExpenseItem.TYPE_HEADER, yesterdayHeader.type);
+        assertEquals(DateLabels.day(yesterdayHeader.epochDay), yesterdayHeader.headerText);
+
+        ExpenseRecyclerAdapter.ExpenseItem withNote = rows.get(1);
+        assertEquals("note 0", withNote.description);
+        assertEquals("1000", withNote.amountText);
+        assertEquals(UNKNOWN, withNote.categoryName);
+        assertEquals(DateLabels.time(expenses.get(0).getDate()), withNote.timeText);
+        // Mô tả chỉ có khoảng trắng thì không hiển thị
+        assertNull(rows.get(2).description);
+    }
+
+    // Đo build trên cả fixture 10k như lúc cuộn tải lại cửa sổ; in ns/dòng
+    @Test
+    public void buildTimePerRow() {
+        ExpenseRowBuilder builder = newBuilder();
+        int rowCount = 0;
+        for (int i = 0; i < WARM_UP_BUILDS; i++) {
+            rowCount += builder.build(expenses).size();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < TIMED_BUILDS; i++) {
+            rowCount += builder.build(expenses).size();
+        }
+        long nsPerRow = (System.nanoTime() - started) / ((long) TIMED_BUILDS * EXPENSES);
+        System.out.println("ExpenseRowBuilder.build: " + nsPerRow + " ns/row over " + EXPENSES + " expenses");
+        assertTrue(rowCount > 0);
+        assertTrue(nsPerRow + " ns/row", nsPerRow < MAX_NS_PER_ROW);
+    }
+
+    private static ExpenseRowBuilder newBuilder() {
+        return new ExpenseRowBuilder(null, Money::toString, TODAY, UNKNOWN);
+    }
+}
@@ -0,0 +1,110 @@
+package com.khanghv.campusexpense.ui.home;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.khanghv.campusexpense.data.model.DashboardSnapshot;
+import com.khanghv.campusexpense.data.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HomeViewModelTest {
+
+    // HomeFragment gọi setKey mỗi lần onResume: mô phỏng 50 lần quay lại màn hình với cùng user và tháng
+    private static final int RESUMES = 50;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutor = new InstantTaskExecutorRule();
+
+    private final CountingSources sources = new CountingSources();
+    private final Observer<User> userObserver = user -> { };
+    private final Observer<DashboardSnapshot> dashboardObserver = snapshot -> { };
+    private HomeViewModel viewModel;
+
+    @Before
+    public void setUp() {
+        viewModel = new HomeViewModel(sources);
+        // switchMap chỉ tạo nguồn khi có observer
+        viewModel.getUser().observeForever(userObserver);
+        viewModel.getDashboard().observeForever(dashboardObserver);
+    }
+
+    @After
+    public void tearDown() {
+        viewModel.getUser().removeObserver(userObserver);
+        viewModel.getDashboard().removeObserver(dashboardObserver);
+    }
+
+    @Test
+    public void sameKeyDoesNotCreateNewSources() {
+        for (int i = 0; i < RESUMES; i++) {
+            viewModel.setKey(1, 202410);
+        }
+
+        assertEquals(1, sources.userQueries);
+        assertEquals(1, sources.dashboardQueries);
+        // switchMap vẫn theo dõi nguồn đầu tiên
+        DashboardSnapshot snapshot = new DashboardSnapshot();
+        sources.lastDashboard.setValue(snapshot);
+        assertSame(snapshot, viewModel.getDashboard().getValue());
+    }
+
+    @Test
+    public void newMonthQueriesDashboardOnly() {
+        viewModel.setKey(1, 202410);
+        viewModel.setKey(1, 202411);
+        viewModel.setKey(1, 202411);
+
+        assertEquals(1, sources.userQueries);
+        assertEquals(2, sources.dashboardQueries);
+    }
+
+    @Test
+    public void newUserQueriesBoth() {
+        viewModel.setKey(1, 202410);
+        viewModel.setKey(2, 202410);
+
+        assertEquals(2, sources.userQueries);
+        assertEquals(2, sources.dashboardQueries);
+    }
+
+    @Test
+    public void valuesFromCurrentSourceReachObservers() {
+        viewModel.setKey(1, 202410);
+        User user = new User();
+        DashboardSnapshot snapshot = new DashboardSnapshot();
+        sources.lastUser.setValue(user);
+        sources.lastDashboard.setValue(snapshot);
+
+        assertSame(user, viewModel.getUser().getValue());
+        assertSame(snapshot, viewModel.getDashboard().getValue());
+    }
+
+    private static final class CountingSources implements HomeViewModel.Sources {
+        int userQueries;
+        int dashboardQueries;
+        MutableLiveData<User> lastUser;
+        MutableLiveData<DashboardSnapshot> lastDashboard;
+
+        @Override
+        public LiveData<User> getUserById(int userId) {
+            userQueries++;
+            lastUser = new MutableLiveData<>();
+            return lastUser;
+        }
+
+        @Override
+        public LiveData<DashboardSnapshot> getDashboard(int userId, int yearMonth) {
+            dashboardQueries++;
+            lastDashboard = new MutableLiveData<>();
+            return lastDashboard;
+        }
+    }
+}
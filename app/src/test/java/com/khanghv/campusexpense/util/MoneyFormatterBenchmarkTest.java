@@ -0,0 +1,86 @@
+package com.khanghv.campusexpense.util;
+
+import com.khanghv.campusexpense.data.model.Money;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.function.LongFunction;
+
+import static org.junit.Assert.*;
+
+/**
+ * So sánh cách định dạng cũ của formatDisplayCurrency (mỗi lần gọi dựng NumberFormat.getCurrencyInstance mới)
+ * với MoneyFormatter mà formatDisplayCurrency dùng bây giờ. Phần đọc AppSettings cần Context nên không đo ở đây.
+ * In ns/lần gọi và số byte cấp phát/lần gọi trên luồng test (com.sun.management.ThreadMXBean).
+ * Chạy: ./gradlew testDebugUnitTest --tests '*MoneyFormatterBenchmarkTest' -i
+ */
+public class MoneyFormatterBenchmarkTest {
+
+    private static final int CALLS = 200_000;
+    private static final int WARM_UP_CALLS = 50_000;
+    private static final Locale VIETNAM = new Locale("vi", "VN");
+    private static final double RATE = 24500;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void vnd() {
+        MoneyFormatter formatter = MoneyFormatter.create(CurrencyManager.CurrencyType.VND, RATE);
+        compare("VND", value -> {
+            NumberFormat format = NumberFormat.getCurrencyInstance(VIETNAM);
+            format.setMaximumFractionDigits(0);
+            return format.format(value);
+        }, value -> formatter.format(Money.ofMinorUnits(value)));
+    }
+
+    @Test
+    public void usd() {
+        MoneyFormatter formatter = MoneyFormatter.create(CurrencyManager.CurrencyType.USD, RATE);
+        compare("USD", value -> {
+            NumberFormat format = NumberFormat.getCurrencyInstance(Locale.US);
+            format.setMaximumFractionDigits(2);
+            return format.format(value / RATE);
+        }, value -> formatter.format(Money.ofMinorUnits(value)));
+    }
+
+    private static void compare(String name, LongFunction<String> old, LongFunction<String> cached) {
+        enableAllocationCounting();
+        measure(old, WARM_UP_CALLS);
+        measure(cached, WARM_UP_CALLS);
+        long[] oldResult = measure(old, CALLS);
+        long[] cachedResult = measure(cached, CALLS);
+
+        double oldBytes = (double) oldResult[1] / CALLS;
+        double cachedBytes = (double) cachedResult[1] / CALLS;
+        System.out.println(String.format(Locale.US,
+                "%s NumberFormat: %.0f ns/call, %.0f B/call; MoneyFormatter: %.0f ns/call, %.0f B/call",
+                name, (double) oldResult[0] / CALLS, oldBytes, (double) cachedResult[0] / CALLS, cachedBytes));
+        // MoneyFormatter chỉ cấp phát chuỗi kết quả; NumberFormat mới mỗi lần kéo theo DecimalFormat và các bảng ký hiệu
+        assertTrue(name + ": " + cachedBytes + " vs " + oldBytes + " B/call", cachedBytes * 4 < oldBytes);
+    }
+
+    // {nano giây, byte cấp phát} cho cả lượt; giữ tổng độ dài để JIT không bỏ kết quả
+    private static long[] measure(LongFunction<String> format, int calls) {
+        long thread = Thread.currentThread().getId();
+        long length = 0;
+        long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+        long started = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            length += format.apply(1_000 + i * 7919L).length();
+        }
+        long elapsed = System.nanoTime() - started;
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+        assertTrue(length > 0);
+        return new long[]{elapsed, bytes};
+    }
+
+    private static void enableAllocationCounting() {
+        if (!THREADS.isThreadAllocatedMemoryEnabled()) {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+}
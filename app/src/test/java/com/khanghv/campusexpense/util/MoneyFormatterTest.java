@@ -0,0 +1,72 @@
+package com.khanghv.campusexpense.util;
+
+import com.khanghv.campusexpense.data.model.Money;
+
+import org.junit.Test;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MoneyFormatterTest {
+
+    private static final Locale VIETNAM = new Locale("vi", "VN");
+
+    @Test
+    public void vndMatchesNumberFormat() {
+        MoneyFormatter formatter = MoneyFormatter.create(CurrencyManager.CurrencyType.VND, 24500);
+        NumberFormat expected = NumberFormat.getCurrencyInstance(VIETNAM);
+        long[] values = {0, 1, -1, 999, 1000, -1000, 1234567, -1234567, 9_007_199_254_740_993L, Long.MAX_VALUE};
+        for (long value : values) {
+            assertEquals(expected.format(value), formatter.format(Money.ofMinorUnits(value)));
+        }
+    }
+
+    @Test
+    public void usdMatchesNumberFormat() {
+        long[] values = {0, 1, -1, 99, 24500, -24500, 30_000_000, 1_234_567_890_123L, -9_007_199_254_740_993L};
+        for (double rate : new double[]{24500, 25347.5, 1, 0}) {
+            assertUsd(rate, values);
+        }
+    }
+
+    // Nửa cent: 0.005 -> 0.01, 0.015 (thực ra 0.01499...) -> 0.01, 0.025 -> 0.03
+    @Test
+    public void usdRoundsHalfCentLikeNumberFormat() {
+        assertUsd(200, new long[]{1, 3, 5, 7, -1, -3, -5, 246913});
+        assertUsd(1000, new long[]{5, 15, 25, 35, 45, -15, 1234565, -1234565});
+        assertEquals("$0.01", MoneyFormatter.create(CurrencyManager.CurrencyType.USD, 200)
+                .format(Money.ofMinorUnits(1)));
+    }
+
+    @Test
+    public void usdMatchesNumberFormatForRandomAmounts() {
+        Random random = new Random(42);
+        long[] values = new long[2000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong() % 10_000_000_000L;
+        }
+        assertUsd(24500, values);
+        assertUsd(23999.99, values);
+    }
+
+    @Test
+    public void formatToAppendsToBuffer() {
+        MoneyFormatter formatter = MoneyFormatter.create(CurrencyManager.CurrencyType.USD, 1);
+        StringBuilder out = new StringBuilder("Total: ");
+        formatter.formatTo(Money.ofMinorUnits(-1234), out);
+        assertEquals("Total: -$1,234.00", out.toString());
+    }
+
+    private static void assertUsd(double rate, long[] values) {
+        MoneyFormatter formatter = MoneyFormatter.create(CurrencyManager.CurrencyType.USD, rate);
+        NumberFormat expected = NumberFormat.getCurrencyInstance(Locale.US);
+        for (long value : values) {
+            double amount = rate == 0 ? value : value / rate;
+            assertEquals("rate " + rate + ", minor units " + value,
+                    expected.format(amount), formatter.format(Money.ofMinorUnits(value)));
+        }
+    }
+}